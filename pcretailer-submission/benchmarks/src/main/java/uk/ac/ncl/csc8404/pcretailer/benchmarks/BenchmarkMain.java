@@ -0,0 +1,40 @@
+package uk.ac.ncl.csc8404.pcretailer.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Takes the usual JMH command line and always adds the GC profiler, so
+ * every result comes with its allocation rate next to throughput and latency.
+ * <p>
+ * Pass {@code --scaling <regex>} instead to run the matching benchmarks once per thread count in 1, 2, 4, 8,
+ * 16 and 32.
+ */
+public final class BenchmarkMain {
+
+    // tiny wrapper so nobody forgets -prof gc
+
+    private static final int[] SCALING_THREADS = {1, 2, 4, 8, 16, 32};
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        if (args.length == 2 && args[0].equals("--scaling")) {
+            for (int threads : SCALING_THREADS) {
+                new Runner(new OptionsBuilder()
+                        .include(args[1])
+                        .threads(threads)
+                        .addProfiler(GCProfiler.class)
+                        .build()).run();
+            }
+            return;
+        }
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build()).run();
+    }
+}
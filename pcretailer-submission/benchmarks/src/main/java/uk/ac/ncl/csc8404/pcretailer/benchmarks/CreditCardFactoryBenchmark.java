@@ -0,0 +1,80 @@
+package uk.ac.ncl.csc8404.pcretailer.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CreditCardFactory#register} on a factory that already holds {@code allocated} numbers. Numbers are
+ * pre-formatted so the benchmark measures validation and allocation rather than string formatting.
+ * <p>
+ * Each thread has its own factory; allocation is a lock-free bitmap, so sharing one mostly measures the
+ * cache line traffic on neighbouring numbers.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CreditCardFactoryBenchmark {
+
+    // how fast can we hand out cards
+
+    private static final int BATCH = 1 << 20;
+
+    @Param({"0", "100000", "1000000"})
+    public int allocated;
+
+    private final Date expiry = WorkloadData.farExpiry();
+    private String[] numbers;
+    private CreditCard[] issued;
+    private CreditCardFactory factory;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void formatNumbers() {
+        numbers = new String[BATCH];
+        issued = new CreditCard[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            numbers[i] = WorkloadData.cardNumber(50_000_000 + i);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void fillFactory() {
+        factory = new CreditCardFactory();
+        for (int i = 0; i < allocated; i++) {
+            factory.register(WorkloadData.cardNumber(i), expiry, "Holder");
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public CreditCard register() {
+        if (next == BATCH) {
+            // ran out of fresh numbers; hand them back and go round again
+            for (CreditCard card : issued) {
+                factory.release(card);
+            }
+            next = 0;
+        }
+        CreditCard card = factory.register(numbers[next], expiry, "Holder");
+        issued[next++] = card;
+        return card;
+    }
+}
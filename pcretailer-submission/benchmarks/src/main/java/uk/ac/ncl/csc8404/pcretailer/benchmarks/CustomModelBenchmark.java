@@ -0,0 +1,86 @@
+package uk.ac.ncl.csc8404.pcretailer.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ncl.csc8404.pcretailer.model.CustomComputerModel;
+import uk.ac.ncl.csc8404.pcretailer.model.CustomModel;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copy-on-write edits of a {@link CustomModel} holding {@code partCount} parts. Each call adds a part the
+ * model does not have or removes one it does, cycling through a fixed list so the result is not cached.
+ * Models are immutable, so the contended variants share one instance freely.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomModelBenchmark {
+
+    // bigger builds, pricier edits?
+
+    private static final int EXTRA_PARTS = 64;
+
+    @Param({"4", "16", "64", "256", "1024"})
+    public int partCount;
+
+    private CustomModel model;
+    private String[] present;
+    private String[] absent;
+
+    @Setup(Level.Trial)
+    public void build() {
+        String[] parts = WorkloadData.parts(partCount + EXTRA_PARTS);
+        present = Arrays.copyOf(parts, partCount);
+        absent = Arrays.copyOfRange(parts, partCount, parts.length);
+        model = CustomModel.of("Bench build", Arrays.asList(present));
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(int bound) {
+            int index = next;
+            next = index + 1 == bound ? 0 : index + 1;
+            return index;
+        }
+    }
+
+    @Benchmark
+    public CustomComputerModel withPart(Cursor cursor) {
+        return model.withPart(absent[cursor.next(absent.length)]);
+    }
+
+    @Benchmark
+    public CustomComputerModel withoutPart(Cursor cursor) {
+        return model.withoutPart(present[cursor.next(present.length)]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public CustomComputerModel withPartContended(Cursor cursor) {
+        return model.withPart(absent[cursor.next(absent.length)]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public CustomComputerModel withoutPartContended(Cursor cursor) {
+        return model.withoutPart(present[cursor.next(present.length)]);
+    }
+}
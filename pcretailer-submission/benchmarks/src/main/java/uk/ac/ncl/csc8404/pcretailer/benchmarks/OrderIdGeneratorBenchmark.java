@@ -0,0 +1,47 @@
+package uk.ac.ncl.csc8404.pcretailer.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ncl.csc8404.pcretailer.order.OrderIdGenerator;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one order id from the random and time-ordered generators. Run with {@code --scaling} to see how
+ * each holds up as threads are added.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderIdGeneratorBenchmark {
+
+    // randomUUID shares one SecureRandom, the other shares nothing
+
+    @Param({"random", "timeOrdered"})
+    public String generator;
+
+    private OrderIdGenerator target;
+
+    @Setup
+    public void create() {
+        target = generator.equals("random") ? OrderIdGenerator.random() : OrderIdGenerator.timeOrdered();
+    }
+
+    @Benchmark
+    public UUID next() {
+        return target.next(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,124 @@
+package uk.ac.ncl.csc8404.pcretailer.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ncl.csc8404.pcretailer.order.CustomerOrder;
+import uk.ac.ncl.csc8404.pcretailer.order.FulfillmentPlan;
+import uk.ac.ncl.csc8404.pcretailer.order.OrderAnalytics;
+import uk.ac.ncl.csc8404.pcretailer.order.OrderService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of {@link OrderService} against services that already hold {@code historySize} orders, half of
+ * them fulfilled. The service is rebuilt before every iteration so the history does not keep growing
+ * across the run.
+ * <p>
+ * A fulfilment needs a placed order, so {@code fulfillOrder} places one first; subtract {@code placeOrder}
+ * to get the fulfilment alone. The {@code *Contended} variants run on every available core, and the
+ * {@code mixed} group has fulfilling threads racing one thread reading analytics.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderServiceBenchmark {
+
+    // how slow is the shop when it is already busy
+
+    @Param({"0", "10000", "100000"})
+    public int historySize;
+
+    private WorkloadData data;
+    private OrderService service;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        data = WorkloadData.standard();
+    }
+
+    @Setup(Level.Iteration)
+    public void fillHistory() {
+        service = new OrderService();
+        for (int i = 0; i < historySize; i++) {
+            CustomerOrder order = place(i);
+            if ((i & 1) == 0) {
+                service.fulfillOrder(order.getId());
+            }
+        }
+    }
+
+    /**
+     * Per-thread position in the workload, so threads do not share a counter.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next() {
+            return next++;
+        }
+    }
+
+    @Benchmark
+    public CustomerOrder placeOrder(Cursor cursor) {
+        return place(cursor.next());
+    }
+
+    @Benchmark
+    public FulfillmentPlan fulfillOrder(Cursor cursor) {
+        return service.fulfillOrder(place(cursor.next()).getId());
+    }
+
+    @Benchmark
+    public OrderAnalytics analytics() {
+        return service.analytics();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public CustomerOrder placeOrderContended(Cursor cursor) {
+        return place(cursor.next());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public FulfillmentPlan fulfillOrderContended(Cursor cursor) {
+        return service.fulfillOrder(place(cursor.next()).getId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public FulfillmentPlan mixedFulfil(Cursor cursor) {
+        return service.fulfillOrder(place(cursor.next()).getId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public OrderAnalytics mixedAnalytics() {
+        return service.analytics();
+    }
+
+    private CustomerOrder place(int index) {
+        int customer = Math.floorMod(index * 31, data.customerCount());
+        return service.placeOrder(data.customer(customer), data.card(customer),
+                data.lines(Math.floorMod(index, data.orderCount())));
+    }
+}
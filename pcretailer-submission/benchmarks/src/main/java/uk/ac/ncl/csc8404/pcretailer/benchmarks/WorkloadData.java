@@ -0,0 +1,178 @@
+package uk.ac.ncl.csc8404.pcretailer.benchmarks;
+
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.model.ComputerModel;
+import uk.ac.ncl.csc8404.pcretailer.model.CustomModel;
+import uk.ac.ncl.csc8404.pcretailer.model.PresetModel;
+import uk.ac.ncl.csc8404.pcretailer.order.OrderLine;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeded generator for benchmark inputs. A workload has a pool of customers with their cards, a catalogue of
+ * preset models spread over a few manufacturers, a pool of custom models drawn from a shared part list, and a
+ * batch of ready-made order lines mixing the two. The same seed always gives the same data so runs compare.
+ */
+public final class WorkloadData {
+
+    // fake shop full of fake people, same every run
+
+    private static final String[] MANUFACTURERS = {"Dell", "Lenovo", "HP", "Apple", "Asus", "Acer", "MSI", "Framework"};
+    private static final String[] PART_KINDS = {"CPU", "GPU", "RAM", "SSD", "HDD", "PSU", "Case", "Fan", "Board", "NIC"};
+    private static final long EXPIRY_MILLIS = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(3650);
+
+    private final Customer[] customers;
+    private final CreditCard[] cards;
+    private final PresetModel[] presets;
+    private final CustomModel[] customs;
+    private final String[] parts;
+    private final List<List<OrderLine>> orders;
+
+    private WorkloadData(Customer[] customers, CreditCard[] cards, PresetModel[] presets, CustomModel[] customs,
+                         String[] parts, List<List<OrderLine>> orders) {
+        this.customers = customers;
+        this.cards = cards;
+        this.presets = presets;
+        this.customs = customs;
+        this.parts = parts;
+        this.orders = orders;
+    }
+
+    /**
+     * Builds a workload.
+     *
+     * @param seed             random seed.
+     * @param customerCount    number of distinct customers, each with one card.
+     * @param presetCount      number of preset models in the catalogue.
+     * @param partCount        size of the shared part list custom models draw from.
+     * @param customShare      fraction of order lines, 0 to 1, that use a custom model.
+     * @param distinctOrders   number of pre-built line lists to cycle through.
+     * @return the generated workload.
+     */
+    public static WorkloadData generate(long seed, int customerCount, int presetCount, int partCount,
+                                        double customShare, int distinctOrders) {
+        Random random = new Random(seed);
+        String[] parts = parts(partCount);
+
+        Customer[] customers = new Customer[customerCount];
+        CreditCard[] cards = new CreditCard[customerCount];
+        CreditCardFactory cardFactory = new CreditCardFactory();
+        Date expiry = new Date(EXPIRY_MILLIS);
+        for (int i = 0; i < customerCount; i++) {
+            customers[i] = Customer.of("c-" + i, "Customer " + i);
+            cards[i] = cardFactory.register(cardNumber(i), expiry, "Customer " + i);
+        }
+
+        PresetModel[] presets = new PresetModel[presetCount];
+        for (int i = 0; i < presetCount; i++) {
+            String manufacturer = MANUFACTURERS[i % MANUFACTURERS.length];
+            presets[i] = PresetModel.of(manufacturer, manufacturer + " Model " + i, pick(random, parts, 4 + random.nextInt(5)));
+        }
+
+        CustomModel[] customs = new CustomModel[Math.max(1, presetCount)];
+        for (int i = 0; i < customs.length; i++) {
+            customs[i] = CustomModel.of("Custom " + i, pick(random, parts, 3 + random.nextInt(10)));
+        }
+
+        List<List<OrderLine>> orders = new ArrayList<>(distinctOrders);
+        for (int i = 0; i < distinctOrders; i++) {
+            int lineCount = 1 + random.nextInt(4);
+            List<OrderLine> lines = new ArrayList<>(lineCount);
+            for (int j = 0; j < lineCount; j++) {
+                ComputerModel model = random.nextDouble() < customShare
+                        ? customs[random.nextInt(customs.length)]
+                        : presets[skewed(random, presets.length)];
+                lines.add(OrderLine.of(model, 1 + random.nextInt(3)));
+            }
+            orders.add(List.copyOf(lines));
+        }
+        return new WorkloadData(customers, cards, presets, customs, parts, orders);
+    }
+
+    /**
+     * @return a workload with 1,000 customers, 200 presets, 500 parts, 30% custom lines and 4,096 orders.
+     */
+    public static WorkloadData standard() {
+        return generate(42L, 1_000, 200, 500, 0.3, 4_096);
+    }
+
+    /**
+     * @return the eight digit card number used for the {@code index}-th generated card.
+     */
+    public static String cardNumber(int index) {
+        return String.format("%08d", index);
+    }
+
+    /**
+     * @return a far future expiry date valid for generated cards.
+     */
+    public static Date farExpiry() {
+        return new Date(EXPIRY_MILLIS);
+    }
+
+    /**
+     * @return {@code count} part names of the form {@code "CPU-17"}.
+     */
+    public static String[] parts(int count) {
+        String[] parts = new String[count];
+        for (int i = 0; i < count; i++) {
+            parts[i] = PART_KINDS[i % PART_KINDS.length] + "-" + i;
+        }
+        return parts;
+    }
+
+    public int customerCount() {
+        return customers.length;
+    }
+
+    public Customer customer(int index) {
+        return customers[index];
+    }
+
+    public CreditCard card(int index) {
+        return cards[index];
+    }
+
+    public PresetModel preset(int index) {
+        return presets[index];
+    }
+
+    public CustomModel custom(int index) {
+        return customs[index];
+    }
+
+    public String[] parts() {
+        return parts.clone();
+    }
+
+    public int orderCount() {
+        return orders.size();
+    }
+
+    /**
+     * @return the immutable line list of the {@code index}-th pre-built order.
+     */
+    public List<OrderLine> lines(int index) {
+        return orders.get(index);
+    }
+
+    private static List<String> pick(Random random, String[] parts, int count) {
+        List<String> picked = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            picked.add(parts[random.nextInt(parts.length)]);
+        }
+        return picked;
+    }
+
+    // roughly 80/20: most lines go to the first fifth of the catalogue
+    private static int skewed(Random random, int size) {
+        int hot = Math.max(1, size / 5);
+        return random.nextInt(10) < 8 ? random.nextInt(hot) : random.nextInt(size);
+    }
+}
@@ -0,0 +1,80 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ncl.csc8404.pcretailer.benchmarks.WorkloadData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a {@link FulfillmentPlan} from {@code lineCount} order lines. {@code toPlan} only measures
+ * turning finished totals into the plan; {@code accumulateAndBuild} also counts the lines, which is what a
+ * fulfilment pays. Lives in the order package because the plan constructor is package-private.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FulfillmentPlanBenchmark {
+
+    // how much does the pick sheet cost to write out
+
+    @Param({"1", "16", "256", "4096"})
+    public int lineCount;
+
+    private List<OrderLine> lines;
+    private PlanAccumulator totals;
+
+    @Setup(Level.Trial)
+    public void collectLines() {
+        WorkloadData data = WorkloadData.standard();
+        lines = new ArrayList<>(lineCount);
+        for (int i = 0; lines.size() < lineCount; i++) {
+            for (OrderLine line : data.lines(i % data.orderCount())) {
+                if (lines.size() < lineCount) {
+                    lines.add(line);
+                }
+            }
+        }
+        totals = accumulate();
+    }
+
+    @Benchmark
+    public FulfillmentPlan toPlan() {
+        return totals.toPlan();
+    }
+
+    @Benchmark
+    public FulfillmentPlan accumulateAndBuild() {
+        return accumulate().toPlan();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public FulfillmentPlan accumulateAndBuildContended() {
+        return accumulate().toPlan();
+    }
+
+    private PlanAccumulator accumulate() {
+        PlanAccumulator accumulator = new PlanAccumulator();
+        for (OrderLine line : lines) {
+            accumulator.addLine(line);
+        }
+        return accumulator;
+    }
+}
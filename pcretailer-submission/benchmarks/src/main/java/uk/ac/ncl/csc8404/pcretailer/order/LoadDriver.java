@@ -0,0 +1,329 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.benchmarks.WorkloadData;
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.model.ComputerModel;
+import uk.ac.ncl.csc8404.pcretailer.model.CustomModel;
+import uk.ac.ncl.csc8404.pcretailer.model.CustomModelFactory;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load-test driver: many client threads issue a {@link LoadMix} of operations against one {@link OrderService},
+ * {@link CreditCardFactory} and {@link CustomModelFactory}, then throughput and latency percentiles are reported
+ * per operation.
+ * <p>
+ * Closed loop (no rate): each client issues its next operation as soon as the previous one returns, which
+ * finds the maximum throughput. Open loop (a rate): operations are due at fixed intervals whether or not the
+ * system keeps up, and latency is measured from when an operation was due, so queueing behind a slow call
+ * shows up in the percentiles instead of silently lowering the offered load.
+ * <p>
+ * Run with {@code java -cp target/benchmarks.jar uk.ac.ncl.csc8404.pcretailer.order.LoadDriver [options]}:
+ * <pre>
+ * --threads N        client threads (default 8)
+ * --rate R           total operations per second, open loop; 0 for closed loop (default 0)
+ * --warmup S         seconds before measuring starts (default 5)
+ * --duration S       seconds measured (default 30)
+ * --mix op=w,...     weights for place, cancel, fulfil, analytics, register_card, create_model
+ * --customers N      distinct customers (default 1000)
+ * --skew Z           Zipf exponent for picking customers (default 1.0)
+ * --lines MIN-MAX    lines per order (default 1-4)
+ * --custom F         share of custom model lines (default 0.3)
+ * --seed N           random seed (default 42)
+ * --off-heap         keep orders in the off-heap store
+ * </pre>
+ */
+public final class LoadDriver {
+
+    // throw traffic at the shop and write down how long everything took
+
+    private static final LoadMix.Operation[] OPERATIONS = LoadMix.Operation.values();
+    private static final int PENDING_ORDERS = 100_000;
+    private static final int CARD_NUMBERS_FROM = 10_000_000;
+    private static final int CARD_NUMBERS_TO = 99_999_999;
+
+    private final LoadMix mix;
+    private final long seed;
+    private final OrderService service;
+    private final CreditCardFactory cardFactory = new CreditCardFactory();
+    private final CustomModelFactory modelFactory = new CustomModelFactory();
+    private final WorkloadData data;
+    private final double[] customerCdf;
+    private final int[] cumulativeWeights;
+    private final BlockingQueue<UUID> pending = new ArrayBlockingQueue<>(PENDING_ORDERS);
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final LongAdder[] errors = new LongAdder[OPERATIONS.length];
+
+    /**
+     * @param mix     traffic to generate.
+     * @param seed    seed for the catalogue and every client's choices.
+     * @param service service under test.
+     */
+    public LoadDriver(LoadMix mix, long seed, OrderService service) {
+        this.mix = mix;
+        this.seed = seed;
+        this.service = service;
+        this.data = WorkloadData.generate(seed, mix.customers(), 200, 500, mix.customShare(), 0);
+        this.customerCdf = zipf(mix.customers(), mix.customerSkew());
+        this.cumulativeWeights = new int[OPERATIONS.length];
+        int total = 0;
+        for (LoadMix.Operation operation : OPERATIONS) {
+            total += mix.weight(operation);
+            cumulativeWeights[operation.ordinal()] = total;
+        }
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            latencies[i] = new LatencyHistogram();
+            errors[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Runs the clients and waits for them to finish.
+     *
+     * @param threads      client threads.
+     * @param opsPerSecond total offered load for an open loop, or 0 for a closed loop.
+     * @param warmup       time before measuring starts; operations during it run but are not recorded.
+     * @param measure      time measured.
+     * @return what was measured.
+     * @throws InterruptedException if interrupted while waiting for the clients.
+     */
+    public LoadReport run(int threads, double opsPerSecond, Duration warmup, Duration measure)
+            throws InterruptedException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        if (opsPerSecond < 0) {
+            throw new IllegalArgumentException("opsPerSecond must not be negative");
+        }
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long measureTo = measureFrom + measure.toNanos();
+        long interval = opsPerSecond == 0 ? 0 : (long) (1e9 * threads / opsPerSecond);
+        int cardSpan = (CARD_NUMBERS_TO - CARD_NUMBERS_FROM) / threads;
+        List<Thread> clients = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Client client = new Client(t, new SplittableRandom(seed + t), CARD_NUMBERS_FROM + t * cardSpan, cardSpan);
+            // stagger open-loop clients across one interval so they do not all fire together
+            long firstDue = start + (interval * t) / threads;
+            Thread thread = new Thread(() -> client.run(firstDue, interval, measureFrom, measureTo), "load-client-" + t);
+            thread.setDaemon(true);
+            clients.add(thread);
+            thread.start();
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        Map<LoadMix.Operation, LoadReport.Result> results = new EnumMap<>(LoadMix.Operation.class);
+        for (LoadMix.Operation operation : OPERATIONS) {
+            LatencySummary latency = LatencySummary.of(latencies[operation.ordinal()].snapshot());
+            results.put(operation, new LoadReport.Result(latency, errors[operation.ordinal()].sum()));
+        }
+        return new LoadReport(measure, opsPerSecond, threads, results);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = 8;
+        double rate = 0;
+        int warmup = 5;
+        int duration = 30;
+        long seed = 42;
+        boolean offHeap = false;
+        LoadMix mix = LoadMix.defaults();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--off-heap")) {
+                offHeap = true;
+                continue;
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--rate" -> rate = Double.parseDouble(value);
+                case "--warmup" -> warmup = Integer.parseInt(value);
+                case "--duration" -> duration = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--customers" -> mix = mix.withCustomers(Integer.parseInt(value), mix.customerSkew());
+                case "--skew" -> mix = mix.withCustomers(mix.customers(), Double.parseDouble(value));
+                case "--custom" -> mix = mix.withCustomShare(Double.parseDouble(value));
+                case "--lines" -> {
+                    String[] range = value.split("-");
+                    mix = mix.withLines(Integer.parseInt(range[0]), Integer.parseInt(range[range.length - 1]));
+                }
+                case "--mix" -> mix = parseMix(mix, value);
+                default -> throw new IllegalArgumentException("unknown option " + option);
+            }
+        }
+        OrderService service = new OrderService(OrderServiceConfig.defaults().withOffHeapOrders(offHeap));
+        System.out.println(mix);
+        System.out.printf("%d threads, %s, %ds warmup, %ds measured%n", threads,
+                rate == 0 ? "closed loop" : "open loop at " + rate + " ops/s", warmup, duration);
+        LoadReport report = new LoadDriver(mix, seed, service)
+                .run(threads, rate, Duration.ofSeconds(warmup), Duration.ofSeconds(duration));
+        System.out.print(report.format());
+    }
+
+    private static LoadMix parseMix(LoadMix mix, String value) {
+        // weights not named keep their default, so "--mix analytics=50" only bumps analytics
+        for (String entry : value.split(",")) {
+            String[] pair = entry.split("=");
+            mix = mix.withWeight(LoadMix.Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return mix;
+    }
+
+    private static double[] zipf(int size, double exponent) {
+        double[] cdf = new double[size];
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += 1 / Math.pow(i + 1, exponent);
+            cdf[i] = total;
+        }
+        for (int i = 0; i < size; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    /**
+     * One client thread with its own random stream and its own slice of card numbers.
+     */
+    private final class Client {
+        private final int id;
+        private final SplittableRandom random;
+        private final int cardNumbersFrom;
+        private final int cardNumberSpan;
+        private final String[] parts = data.parts();
+        private long issued;
+
+        Client(int id, SplittableRandom random, int cardNumbersFrom, int cardNumberSpan) {
+            this.id = id;
+            this.random = random;
+            this.cardNumbersFrom = cardNumbersFrom;
+            this.cardNumberSpan = cardNumberSpan;
+        }
+
+        void run(long firstDue, long interval, long measureFrom, long measureTo) {
+            long due = firstDue;
+            while (true) {
+                long started;
+                if (interval > 0) {
+                    started = due;
+                    due += interval;
+                    long wait = started - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                } else {
+                    started = System.nanoTime();
+                }
+                if (started >= measureTo) {
+                    return;
+                }
+                LoadMix.Operation operation = pick();
+                boolean ok;
+                try {
+                    operation = execute(operation);
+                    ok = true;
+                } catch (RuntimeException e) {
+                    ok = false;
+                }
+                long elapsed = System.nanoTime() - started;
+                if (started >= measureFrom) {
+                    latencies[operation.ordinal()].record(elapsed);
+                    if (!ok) {
+                        errors[operation.ordinal()].increment();
+                    }
+                }
+            }
+        }
+
+        private LoadMix.Operation pick() {
+            int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (LoadMix.Operation operation : OPERATIONS) {
+                if (ticket < cumulativeWeights[operation.ordinal()]) {
+                    return operation;
+                }
+            }
+            throw new AssertionError();
+        }
+
+        /**
+         * @return the operation actually run: a cancel or fulfil with no placed order left to act on places
+         * one instead.
+         */
+        private LoadMix.Operation execute(LoadMix.Operation operation) {
+            switch (operation) {
+                case CANCEL, FULFIL -> {
+                    UUID orderId = pending.poll();
+                    if (orderId == null) {
+                        place();
+                        return LoadMix.Operation.PLACE;
+                    }
+                    if (operation == LoadMix.Operation.CANCEL) {
+                        service.cancelOrder(orderId);
+                    } else {
+                        service.fulfillOrder(orderId);
+                    }
+                }
+                case PLACE -> place();
+                case ANALYTICS -> service.analytics();
+                case REGISTER_CARD -> registerCard();
+                case CREATE_MODEL -> createModel();
+            }
+            return operation;
+        }
+
+        private void place() {
+            int customer = customer();
+            int lineCount = mix.minLines() + random.nextInt(mix.maxLines() - mix.minLines() + 1);
+            OrderLine[] lines = new OrderLine[lineCount];
+            for (int i = 0; i < lineCount; i++) {
+                ComputerModel model = random.nextDouble() < mix.customShare()
+                        ? data.custom(random.nextInt(200))
+                        : data.preset(random.nextInt(200));
+                lines[i] = OrderLine.of(model, 1 + random.nextInt(3));
+            }
+            Customer who = data.customer(customer);
+            CustomerOrder order = service.placeOrder(who, data.card(customer), List.of(lines));
+            // a full backlog just means some orders are never cancelled or fulfilled
+            pending.offer(order.getId());
+        }
+
+        private void registerCard() {
+            String number = String.format("%08d", cardNumbersFrom + (int) (issued++ % cardNumberSpan));
+            CreditCard card = cardFactory.register(number, WorkloadData.farExpiry(), "Load Client " + id);
+            cardFactory.release(card);
+        }
+
+        private void createModel() {
+            List<String> picked = new ArrayList<>();
+            for (int i = 3 + random.nextInt(6); i > 0; i--) {
+                picked.add(parts[random.nextInt(parts.length)]);
+            }
+            String name = "load-" + id + "-" + issued++;
+            CustomModel model = modelFactory.create(name, picked);
+            modelFactory.release(model);
+        }
+
+        private int customer() {
+            int index = Arrays.binarySearch(customerCdf, random.nextDouble());
+            return Math.min(customerCdf.length - 1, index >= 0 ? index : -index - 1);
+        }
+    }
+}
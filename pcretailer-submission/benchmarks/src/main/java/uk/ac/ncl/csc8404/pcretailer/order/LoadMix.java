@@ -0,0 +1,136 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Immutable description of the traffic {@link LoadDriver} generates: how often each operation runs, how orders
+ * are shaped and how unevenly customers are picked. Start from {@link #defaults()} and adjust with the
+ * {@code with...} methods.
+ */
+public final class LoadMix {
+
+    // what a day at the shop looks like, give or take
+
+    /**
+     * Operations the driver can issue. Card and model operations register and then release, so the factories
+     * stay at a steady size however long the run.
+     */
+    public enum Operation {
+        PLACE, CANCEL, FULFIL, ANALYTICS, REGISTER_CARD, CREATE_MODEL
+    }
+
+    private final int[] weights;
+    private final int customers;
+    private final double customerSkew;
+    private final int minLines;
+    private final int maxLines;
+    private final double customShare;
+
+    private LoadMix(int[] weights, int customers, double customerSkew, int minLines, int maxLines,
+                    double customShare) {
+        this.weights = weights;
+        this.customers = customers;
+        this.customerSkew = customerSkew;
+        this.minLines = minLines;
+        this.maxLines = maxLines;
+        this.customShare = customShare;
+    }
+
+    /**
+     * @return 50% place, 10% cancel, 35% fulfil, 5% analytics; 1,000 customers with Zipf skew 1.0; one to four
+     * lines per order, 30% of them custom models.
+     */
+    public static LoadMix defaults() {
+        return new LoadMix(new int[]{50, 10, 35, 5, 0, 0}, 1_000, 1.0, 1, 4, 0.3);
+    }
+
+    /**
+     * @param operation operation to weigh.
+     * @param weight    relative share of operations; 0 turns it off.
+     */
+    public LoadMix withWeight(Operation operation, int weight) {
+        Objects.requireNonNull(operation, "operation");
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must not be negative");
+        }
+        int[] updated = weights.clone();
+        updated[operation.ordinal()] = weight;
+        if (Arrays.stream(updated).sum() == 0) {
+            throw new IllegalArgumentException("at least one operation needs a weight");
+        }
+        return new LoadMix(updated, customers, customerSkew, minLines, maxLines, customShare);
+    }
+
+    /**
+     * @param customers number of distinct customers, each with one card.
+     * @param skew      Zipf exponent for picking customers; 0 is uniform, around 1 is a typical long tail.
+     */
+    public LoadMix withCustomers(int customers, double skew) {
+        if (customers < 1) {
+            throw new IllegalArgumentException("customers must be positive");
+        }
+        if (skew < 0) {
+            throw new IllegalArgumentException("skew must not be negative");
+        }
+        return new LoadMix(weights, customers, skew, minLines, maxLines, customShare);
+    }
+
+    /**
+     * @param minLines fewest lines per placed order.
+     * @param maxLines most lines per placed order.
+     */
+    public LoadMix withLines(int minLines, int maxLines) {
+        if (minLines < 1 || maxLines < minLines) {
+            throw new IllegalArgumentException("need 1 <= minLines <= maxLines");
+        }
+        return new LoadMix(weights, customers, customerSkew, minLines, maxLines, customShare);
+    }
+
+    /**
+     * @param customShare fraction of order lines, 0 to 1, that use a custom rather than a preset model.
+     */
+    public LoadMix withCustomShare(double customShare) {
+        if (customShare < 0 || customShare > 1) {
+            throw new IllegalArgumentException("customShare must be between 0 and 1");
+        }
+        return new LoadMix(weights, customers, customerSkew, minLines, maxLines, customShare);
+    }
+
+    public int weight(Operation operation) {
+        return weights[operation.ordinal()];
+    }
+
+    public int customers() {
+        return customers;
+    }
+
+    public double customerSkew() {
+        return customerSkew;
+    }
+
+    public int minLines() {
+        return minLines;
+    }
+
+    public int maxLines() {
+        return maxLines;
+    }
+
+    public double customShare() {
+        return customShare;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("LoadMix{");
+        for (Operation operation : Operation.values()) {
+            text.append(operation).append('=').append(weights[operation.ordinal()]).append(", ");
+        }
+        return text.append("customers=").append(customers)
+                .append(", skew=").append(customerSkew)
+                .append(", lines=").append(minLines).append('-').append(maxLines)
+                .append(", customShare=").append(customShare)
+                .append('}').toString();
+    }
+}
@@ -0,0 +1,80 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * What one {@link LoadDriver} run measured, per operation. Only operations started after the warmup count.
+ */
+public final class LoadReport {
+
+    // the bit that ends up pasted into the write-up
+
+    /**
+     * @param latency time from when each operation was due to when it returned.
+     * @param errors  operations that threw.
+     */
+    public record Result(LatencySummary latency, long errors) {
+    }
+
+    private final Duration measured;
+    private final double offeredRate;
+    private final int threads;
+    private final Map<LoadMix.Operation, Result> results;
+
+    LoadReport(Duration measured, double offeredRate, int threads, Map<LoadMix.Operation, Result> results) {
+        this.measured = measured;
+        this.offeredRate = offeredRate;
+        this.threads = threads;
+        this.results = Collections.unmodifiableMap(new EnumMap<>(results));
+    }
+
+    public Result result(LoadMix.Operation operation) {
+        return results.get(operation);
+    }
+
+    public long totalOperations() {
+        return results.values().stream().mapToLong(result -> result.latency().getCount()).sum();
+    }
+
+    /**
+     * @return operations completed per second over the measured period.
+     */
+    public double throughput() {
+        return totalOperations() / (measured.toNanos() / 1e9);
+    }
+
+    /**
+     * @return one line per operation that ran, then the total, with latencies in microseconds.
+     */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%-14s %10s %10s %10s %10s %10s %10s %8s%n",
+                "operation", "count", "ops/s", "p50 us", "p99 us", "p99.9 us", "max us", "errors"));
+        double seconds = measured.toNanos() / 1e9;
+        for (Map.Entry<LoadMix.Operation, Result> entry : results.entrySet()) {
+            LatencySummary latency = entry.getValue().latency();
+            if (latency.getCount() == 0) {
+                continue;
+            }
+            text.append(String.format("%-14s %10d %10.0f %10.1f %10.1f %10.1f %10.1f %8d%n",
+                    entry.getKey().name().toLowerCase(), latency.getCount(), latency.getCount() / seconds,
+                    latency.getP50Nanos() / 1e3, latency.getP99Nanos() / 1e3, latency.getP999Nanos() / 1e3,
+                    latency.getMaxNanos() / 1e3, entry.getValue().errors()));
+        }
+        text.append(String.format("%-14s %10d %10.0f%n", "total", totalOperations(), throughput()));
+        if (offeredRate > 0 && throughput() < offeredRate * 0.95) {
+            text.append(String.format("offered %.0f ops/s across %d threads but only %.0f completed: saturated%n",
+                    offeredRate, threads, throughput()));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "LoadReport{threads=" + threads + ", offeredRate=" + offeredRate + ", measured=" + measured
+                + ", throughput=" + throughput() + ", results=" + results + '}';
+    }
+}
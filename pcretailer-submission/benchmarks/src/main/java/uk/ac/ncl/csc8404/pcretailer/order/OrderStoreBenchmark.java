@@ -0,0 +1,96 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ncl.csc8404.pcretailer.benchmarks.WorkloadData;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup latency of the heap and off-heap order stores holding {@code orders} orders. Reading the status is
+ * what most service calls need; reading the lines shows the cost of decoding a whole off-heap order.
+ * Footprint is measured separately by {@link OrderStoreFootprint}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g", "-XX:MaxDirectMemorySize=4g"})
+@State(Scope.Benchmark)
+public class OrderStoreBenchmark {
+
+    // how much a lookup costs once the order is not an object any more
+
+    @Param({"heap", "offHeap"})
+    public String store;
+
+    @Param({"100000", "1000000"})
+    public int orders;
+
+    private OrderStore target;
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        target = create(store);
+        ids = fill(target, WorkloadData.standard(), orders);
+    }
+
+    @Benchmark
+    public OrderStatus lookupStatus() {
+        return target.get(ids[ThreadLocalRandom.current().nextInt(ids.length)]).getStatus();
+    }
+
+    @Benchmark
+    public List<OrderLine> lookupLines() {
+        return target.get(ids[ThreadLocalRandom.current().nextInt(ids.length)]).getOrderLines();
+    }
+
+    @Benchmark
+    public OrderRecord lookupMissing() {
+        return target.get(new UUID(ThreadLocalRandom.current().nextLong(), 0));
+    }
+
+    static OrderStore create(String store) {
+        return switch (store) {
+            case "heap" -> new HeapOrderStore();
+            case "offHeap" -> new OffHeapOrderStore();
+            default -> throw new IllegalArgumentException("unknown store: " + store);
+        };
+    }
+
+    /**
+     * Puts {@code count} orders drawn from {@code data} into {@code store}, fulfilling every other one.
+     *
+     * @return their ids.
+     */
+    static UUID[] fill(OrderStore store, WorkloadData data, int count) {
+        UUID[] ids = new UUID[count];
+        long placedAt = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            int customer = i % data.customerCount();
+            StandardOrder order = new StandardOrder(UUID.randomUUID(), data.customer(customer),
+                    data.lines(i % data.orderCount()), data.card(customer), new Date(placedAt + i));
+            if ((i & 1) == 0) {
+                order.transition(OrderStatus.PLACED, OrderStatus.FULFILLED);
+            }
+            store.put(order);
+            ids[i] = order.getId();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,84 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.benchmarks.WorkloadData;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+
+/**
+ * Prints how much heap and direct memory each order store needs per order, both bare ({@code heap},
+ * {@code offHeap}) and inside an {@link OrderService} with its indexes ({@code service},
+ * {@code serviceOffHeap}). Run with
+ * {@code java -cp target/benchmarks.jar uk.ac.ncl.csc8404.pcretailer.order.OrderStoreFootprint [orders [store]]};
+ * give it a heap and {@code -XX:MaxDirectMemorySize} big enough for the order count.
+ */
+public final class OrderStoreFootprint {
+
+    // JMH measures time, this measures space
+
+    private OrderStoreFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        WorkloadData data = WorkloadData.standard();
+        System.out.printf("%-14s %10s %14s %14s %12s %12s%n",
+                "store", "orders", "heap bytes", "direct bytes", "heap/order", "bytes/order");
+        String[] stores = args.length > 1 ? new String[]{args[1]} : new String[]{"heap", "offHeap", "service", "serviceOffHeap"};
+        for (String store : stores) {
+            long heapBefore = usedHeap();
+            long directBefore = usedDirect();
+            Object target = store.startsWith("service") ? fillService(store.equals("serviceOffHeap"), data, count)
+                    : fillStore(store, data, count);
+            long heap = usedHeap() - heapBefore;
+            long direct = usedDirect() - directBefore;
+            System.out.printf("%-14s %10d %14d %14d %12.1f %12.1f%n", store, count, heap, direct,
+                    heap / (double) count, (heap + direct) / (double) count);
+            // keep the target reachable until both readings are taken
+            Objects.requireNonNull(target);
+        }
+    }
+
+    private static OrderStore fillStore(String store, WorkloadData data, int count) {
+        OrderStore target = OrderStoreBenchmark.create(store);
+        // the ids are dropped here, so only the store itself stays reachable
+        OrderStoreBenchmark.fill(target, data, count);
+        return target;
+    }
+
+    /**
+     * Places {@code count} orders through a service, with its status, customer, time and card expiry indexes,
+     * and fulfils every other one like {@link OrderStoreBenchmark#fill} does.
+     */
+    private static OrderService fillService(boolean offHeap, WorkloadData data, int count) {
+        OrderService service = new OrderService(OrderServiceConfig.defaults().withOffHeapOrders(offHeap));
+        for (int i = 0; i < count; i++) {
+            int customer = i % data.customerCount();
+            CustomerOrder order = service.placeOrder(data.customer(customer), data.card(customer),
+                    data.lines(i % data.orderCount()));
+            if ((i & 1) == 0) {
+                service.fulfillOrder(order.getId());
+            }
+        }
+        return service;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedDirect() {
+        long used = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                used += pool.getMemoryUsed();
+            }
+        }
+        return used;
+    }
+}
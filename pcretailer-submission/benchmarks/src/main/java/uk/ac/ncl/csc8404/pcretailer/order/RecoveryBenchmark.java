@@ -0,0 +1,75 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ncl.csc8404.pcretailer.benchmarks.WorkloadData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Start-up time of an {@link OrderService} restoring {@code orders} orders, half of them fulfilled, from a
+ * binary snapshot. The snapshot is written once per trial; each call builds a fresh service from it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+
+    // how long until we are open for business again
+
+    @Param({"10000", "100000", "1000000"})
+    public int orders;
+
+    private Path directory;
+    private SnapshotStore store;
+
+    @Setup(Level.Trial)
+    public void writeSnapshot() throws IOException {
+        WorkloadData data = WorkloadData.standard();
+        OrderService service = new OrderService();
+        for (int i = 0; i < orders; i++) {
+            int customer = i % data.customerCount();
+            CustomerOrder order = service.placeOrder(data.customer(customer), data.card(customer),
+                    data.lines(i % data.orderCount()));
+            if ((i & 1) == 0) {
+                service.fulfillOrder(order.getId());
+            }
+        }
+        directory = Files.createTempDirectory("pcretailer-recovery");
+        store = new SnapshotStore(directory);
+        store.write(service.snapshotContents(0));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public OrderService restore() {
+        return new OrderService(OrderServiceConfig.defaults().withSnapshots(store));
+    }
+}
@@ -0,0 +1,80 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ncl.csc8404.pcretailer.benchmarks.WorkloadData;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Analytics counter bumps with {@code keys} distinct keys, where a small key count means heavy contention on
+ * the same cells. Meant to be run across thread counts with
+ * {@code java -jar benchmarks.jar --scaling StripedCountersBenchmark.add}; the {@code bumpWhileDraining}
+ * group adds a reader that drains the dirty queue the way {@link OrderService#analytics()} does.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StripedCountersBenchmark {
+
+    // do the counters keep up when everybody bumps at once
+
+    @Param({"1", "16", "1024"})
+    public int keys;
+
+    private String[] names;
+    private IntFunction<String> nameOf;
+    private StripedCounters<String> byKey;
+    private StripedCounters<String> byIndex;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        names = WorkloadData.parts(keys);
+        String[] table = names;
+        nameOf = index -> table[index];
+        byKey = new StripedCounters<>();
+        byIndex = new StripedCounters<>();
+    }
+
+    @Benchmark
+    public void addByKey() {
+        byKey.add(names[ThreadLocalRandom.current().nextInt(keys)], 1);
+    }
+
+    @Benchmark
+    public void addByIndex() {
+        byIndex.add(ThreadLocalRandom.current().nextInt(keys), 1, nameOf);
+    }
+
+    @Benchmark
+    @Group("bumpWhileDraining")
+    @GroupThreads(3)
+    public void bump() {
+        byKey.add(names[ThreadLocalRandom.current().nextInt(keys)], 1);
+    }
+
+    @Benchmark
+    @Group("bumpWhileDraining")
+    @GroupThreads(1)
+    public void drain(Blackhole blackhole) {
+        byKey.drain((key, total) -> blackhole.consume(total));
+    }
+}
@@ -0,0 +1,57 @@
+package uk.ac.ncl.csc8404.pcretailer.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Lock-free Bloom filter over 64-bit hashes. Bits are only ever set, with an atomic {@code OR}, so a
+ * {@code false} from {@link #mightContain(long)} is final for anything added before the call started.
+ */
+final class BloomFilter {
+
+    // says "definitely not" quickly, "maybe" means go ask the real set
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] words;
+    private final long bitMask;
+    private final int hashes;
+
+    /**
+     * Sizes the filter for a false positive rate of about 1% at {@code expectedItems}: ten bits and seven
+     * probes per item, rounded up to a power of two bits.
+     */
+    BloomFilter(int expectedItems) {
+        if (expectedItems <= 0) {
+            throw new IllegalArgumentException("expectedItems must be positive");
+        }
+        long bits = Math.max(Long.SIZE, Long.highestOneBit(expectedItems * 10L - 1) << 1);
+        this.words = new long[(int) Math.min(bits >>> 6, 1 << 26)];
+        this.bitMask = (long) words.length * Long.SIZE - 1;
+        this.hashes = 7;
+    }
+
+    void add(long hash) {
+        long step = step(hash);
+        for (int i = 0; i < hashes; i++, hash += step) {
+            long bit = hash & bitMask;
+            WORDS.getAndBitwiseOr(words, (int) (bit >>> 6), 1L << bit);
+        }
+    }
+
+    boolean mightContain(long hash) {
+        long step = step(hash);
+        for (int i = 0; i < hashes; i++, hash += step) {
+            long bit = hash & bitMask;
+            if (((long) WORDS.getVolatile(words, (int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long step(long hash) {
+        // odd, so the probes walk the whole table; taken from the high bits the mask never sees
+        return (hash >>> 32) | 1;
+    }
+}
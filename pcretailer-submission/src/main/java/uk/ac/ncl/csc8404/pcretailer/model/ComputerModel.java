@@ -1,6 +1,7 @@
 package uk.ac.ncl.csc8404.pcretailer.model;
 
 import java.util.Set;
+import java.util.function.IntConsumer;
 
 /**
  * Describes a computer model offered by the retailer.
@@ -20,4 +21,17 @@ public interface ComputerModel {
      * @return an immutable set of parts.
      */
     Set<String> getParts();
+
+    /**
+     * Passes the {@link PartDictionary} id of every part to {@code action}, in the same order as
+     * {@link #getParts()}. The built-in models already store ids, so this avoids touching strings.
+     *
+     * @param action receives each part id.
+     */
+    default void forEachPartId(IntConsumer action) {
+        PartDictionary dictionary = PartDictionary.shared();
+        for (String part : getParts()) {
+            action.accept(dictionary.intern(part));
+        }
+    }
 }
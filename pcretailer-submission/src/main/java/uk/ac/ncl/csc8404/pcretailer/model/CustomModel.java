@@ -1,22 +1,25 @@
 package uk.ac.ncl.csc8404.pcretailer.model;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Objects;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.function.IntConsumer;
 
 /**
- * Immutable implementation of a custom computer model.
+ * Immutable implementation of a custom computer model. Parts live in a persistent {@link PartTree}, so
+ * {@link #withPart(String)} and {@link #withoutPart(String)} cost O(log n) and share the untouched parts
+ * with the model they were made from.
  */
 public final class CustomModel implements CustomComputerModel {
 
     //  comment: we can swap parts but keep the rules nice an tidy
 
     private final String name;
-    private final SortedSet<String> parts;
+    // part ids from PartDictionary, ordered by part name
+    private final PartTree parts;
 
-    CustomModel(String name, SortedSet<String> parts) {
+    private CustomModel(String name, PartTree parts) {
         this.name = name;
         this.parts = parts;
     }
@@ -31,32 +34,25 @@ public final class CustomModel implements CustomComputerModel {
     public static CustomModel of(String name, Collection<String> parts) {
         String safeName = requireText("name", name);
         SortedSet<String> safeParts = sanitizeParts(parts);
-        return new CustomModel(safeName, safeParts);
+        return new CustomModel(safeName, PartTree.of(PartSet.encode(safeParts)));
     }
 
     @Override
     public CustomComputerModel withPart(String part) {
-        String safe = requireText("part", part);
-        if (parts.contains(safe)) {
-            return this;
-        }
-        SortedSet<String> updated = new TreeSet<>(parts);
-        updated.add(safe);
-        return new CustomModel(name, Collections.unmodifiableSortedSet(updated));
+        PartTree updated = parts.with(requireText("part", part));
+        return updated == parts ? this : new CustomModel(name, updated);
     }
 
     @Override
     public CustomComputerModel withoutPart(String part) {
-        String safe = requireText("part", part);
-        if (!parts.contains(safe)) {
+        PartTree updated = parts.without(requireText("part", part));
+        if (updated == parts) {
             return this;
         }
-        SortedSet<String> updated = new TreeSet<>(parts);
-        updated.remove(safe);
-        if (updated.isEmpty()) {
+        if (updated.size() == 0) {
             throw new IllegalStateException("custom model must contain at least one part");
         }
-        return new CustomModel(name, Collections.unmodifiableSortedSet(updated));
+        return new CustomModel(name, updated);
     }
 
     @Override
@@ -66,7 +62,12 @@ public final class CustomModel implements CustomComputerModel {
 
     @Override
     public SortedSet<String> getParts() {
-        return Collections.unmodifiableSortedSet(parts);
+        return new PartSet(parts);
+    }
+
+    @Override
+    public void forEachPartId(IntConsumer action) {
+        parts.forEach(action);
     }
 
     @Override
@@ -82,14 +83,14 @@ public final class CustomModel implements CustomComputerModel {
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, parts);
+        return Objects.hash(name, parts.hashCode());
     }
 
     @Override
     public String toString() {
         return "CustomModel{" +
                 "name='" + name + '\'' +
-                ", parts=" + parts +
+                ", parts=" + getParts() +
                 '}';
     }
 
@@ -103,7 +104,7 @@ public final class CustomModel implements CustomComputerModel {
         if (sanitized.isEmpty()) {
             throw new IllegalArgumentException("custom model must contain at least one part");
         }
-        return Collections.unmodifiableSortedSet(sanitized);
+        return sanitized;
     }
 
     private static String requireText(String label, String value) {
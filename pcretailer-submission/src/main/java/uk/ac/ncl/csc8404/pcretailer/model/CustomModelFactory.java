@@ -2,17 +2,30 @@ package uk.ac.ncl.csc8404.pcretailer.model;
 
 import java.util.Collection;
 import java.util.Objects;
-import java.util.Set;
-import java.util.TreeSet;
 
 /**
- * Factory responsible for creating {@link CustomModel} instances while enforcing name uniqueness.
+ * Factory responsible for creating {@link CustomModel} instances while enforcing name uniqueness. Safe for
+ * concurrent use: names are reserved in a {@link NameRegistry}, which may be shared or file-backed.
  */
 public final class CustomModelFactory {
 
     // dont let same name twice coz that gets confuzing
 
-    private final Set<String> allocatedNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    private final NameRegistry allocatedNames;
+
+    /**
+     * Creates a factory with its own in-memory name registry.
+     */
+    public CustomModelFactory() {
+        this(NameRegistry.inMemory());
+    }
+
+    /**
+     * @param allocatedNames registry the factory reserves names in.
+     */
+    public CustomModelFactory(NameRegistry allocatedNames) {
+        this.allocatedNames = Objects.requireNonNull(allocatedNames, "allocatedNames");
+    }
 
     /**
      * Creates a new custom model while ensuring that the name has not been used previously within this factory.
@@ -25,14 +38,23 @@ public final class CustomModelFactory {
      */
     public CustomModel create(String name, Collection<String> parts) {
         String safeName = requireText("name", name);
-        if (allocatedNames.contains(safeName)) {
+        // validate before claiming, so a rejected create never holds or logs the name
+        CustomModel model = CustomModel.of(safeName, parts);
+        if (!allocatedNames.reserve(safeName)) {
             throw new IllegalStateException("custom model name already exists: " + name);
         }
-        CustomModel model = CustomModel.of(safeName, parts);
-        allocatedNames.add(model.getName());
         return model;
     }
 
+    /**
+     * @param name proposed name, surrounding whitespace ignored.
+     * @return {@code true} if the name is non-blank and not currently allocated; another thread may still
+     * take it before {@link #create} is called.
+     */
+    public boolean isAvailable(String name) {
+        return name != null && !name.trim().isEmpty() && !allocatedNames.isReserved(name.trim());
+    }
+
     /**
      * Releases a name from the allocation pool, primarily intended for testing scenarios.
      *
@@ -40,7 +62,7 @@ public final class CustomModelFactory {
      */
     public void release(CustomComputerModel model) {
         if (model != null) {
-            allocatedNames.remove(model.getName().trim());
+            allocatedNames.release(model.getName().trim());
         }
     }
 
@@ -0,0 +1,140 @@
+package uk.ac.ncl.csc8404.pcretailer.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only file of name reservations and releases. Records are laid out back to back as
+ * {@code [int length][int crc][byte op][utf-8 name]}, where the CRC covers the op and the name, so a torn
+ * write at the tail is found and cut off when the file is opened.
+ */
+final class NameLog implements Closeable {
+
+    // a journal for names, small enough to read back in one go
+
+    static final byte RESERVE = 1;
+    static final byte RELEASE = 0;
+
+    private static final int HEADER_BYTES = 8;
+
+    private final Path path;
+    private FileChannel channel;
+    private long records;
+
+    private NameLog(Path path, FileChannel channel, long records) {
+        this.path = path;
+        this.channel = channel;
+        this.records = records;
+    }
+
+    /**
+     * Opens or creates the log, hands every intact record to {@code visitor} in file order and truncates
+     * anything after the last intact record.
+     */
+    static NameLog open(Path path, BiConsumer<Byte, String> visitor) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+            long records = 0;
+            int position = 0;
+            while (position + HEADER_BYTES <= data.limit()) {
+                int length = data.getInt(position);
+                if (length <= 0 || position + HEADER_BYTES + length > data.limit()
+                        || data.getInt(position + 4) != checksum(data.slice(position + HEADER_BYTES, length))) {
+                    break;
+                }
+                byte op = data.get(position + HEADER_BYTES);
+                byte[] name = new byte[length - 1];
+                data.get(position + HEADER_BYTES + 1, name);
+                visitor.accept(op, new String(name, StandardCharsets.UTF_8));
+                position += HEADER_BYTES + length;
+                records++;
+            }
+            channel.truncate(position);
+            channel.position(position);
+            return new NameLog(path, channel, records);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes one record through to the file. It reaches the operating system before this returns, so it
+     * survives the process; {@link #close()} forces it to the device.
+     */
+    synchronized void append(byte op, String name) throws IOException {
+        writeFully(channel, encode(op, name));
+        records++;
+    }
+
+    /**
+     * @return records in the file, reservations and releases alike.
+     */
+    synchronized long records() {
+        return records;
+    }
+
+    /**
+     * Replaces the file with one reservation per live name. The new file is written under a temporary name,
+     * forced and then renamed over the old one. Only safe while nothing else is appending.
+     */
+    synchronized void compact(Collection<String> live) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (String name : live) {
+                writeFully(out, encode(RESERVE, name));
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        records = live.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer record) throws IOException {
+        while (record.hasRemaining()) {
+            out.write(record);
+        }
+    }
+
+    private static ByteBuffer encode(byte op, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + 1 + bytes.length);
+        record.putInt(1 + bytes.length).putInt(0).put(op).put(bytes).flip();
+        record.putInt(4, checksum(record.slice(HEADER_BYTES, 1 + bytes.length)));
+        return record;
+    }
+
+    private static int checksum(ByteBuffer data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+}
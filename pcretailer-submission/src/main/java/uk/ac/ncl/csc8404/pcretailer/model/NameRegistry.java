@@ -0,0 +1,220 @@
+package uk.ac.ncl.csc8404.pcretailer.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Set of reserved names, compared ignoring case exactly as {@link String#CASE_INSENSITIVE_ORDER} does.
+ * Each name is case-folded once and the folded form is the key of a {@link ConcurrentHashMap}, so a
+ * reservation is a single atomic insert and any number of threads may reserve and release at once.
+ * <p>
+ * A registry can optionally keep a Bloom filter in front of the map, which answers {@link #isReserved} for
+ * names that were never reserved without touching the map, and can optionally be backed by an append-only
+ * file that is read back in one pass by {@link #open(Path)}.
+ */
+public final class NameRegistry implements Closeable {
+
+    // fold once, hash once, and let the map do the locking
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int COMPACT_SLACK = 1024;
+
+    private final ConcurrentHashMap<String, Boolean> names;
+    private final BloomFilter filter;
+    private final NameLog log;
+
+    private NameRegistry(ConcurrentHashMap<String, Boolean> names, BloomFilter filter, NameLog log) {
+        this.names = names;
+        this.filter = filter;
+        this.log = log;
+    }
+
+    /**
+     * @return empty registry held in memory only, without a Bloom filter.
+     */
+    public static NameRegistry inMemory() {
+        return new NameRegistry(new ConcurrentHashMap<>(DEFAULT_CAPACITY), null, null);
+    }
+
+    /**
+     * @param expectedNames names the registry is sized for; the Bloom filter answers wrongly for about 1% of
+     *                      unknown names at that size, and more often beyond it.
+     * @return empty registry held in memory only, with a Bloom filter.
+     */
+    public static NameRegistry inMemory(int expectedNames) {
+        return new NameRegistry(new ConcurrentHashMap<>(expectedNames), new BloomFilter(expectedNames), null);
+    }
+
+    /**
+     * Opens a file-backed registry without a Bloom filter; see {@link #open(Path, int)}.
+     */
+    public static NameRegistry open(Path file) throws IOException {
+        return open(file, null, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens a file-backed registry, creating the file if it does not exist. Every reservation and release is
+     * written to the file before it returns, and the names reserved when the file was last closed are
+     * reserved again here. A log holding many more releases than live names is compacted on open.
+     *
+     * @param file          registry file.
+     * @param expectedNames names the registry and its Bloom filter are sized for.
+     * @return open registry; close it to force the file to disk.
+     * @throws IOException if the file cannot be read or created.
+     */
+    public static NameRegistry open(Path file, int expectedNames) throws IOException {
+        return open(file, new BloomFilter(expectedNames), expectedNames);
+    }
+
+    private static NameRegistry open(Path file, BloomFilter filter, int capacity) throws IOException {
+        Objects.requireNonNull(file, "file");
+        ConcurrentHashMap<String, Boolean> loaded = new ConcurrentHashMap<>(capacity);
+        NameLog log = NameLog.open(file, (op, key) -> {
+            if (op == NameLog.RESERVE) {
+                loaded.put(key, Boolean.TRUE);
+            } else {
+                loaded.remove(key);
+            }
+        });
+        try {
+            if (log.records() > 2L * loaded.size() + COMPACT_SLACK) {
+                log.compact(new ArrayList<>(loaded.keySet()));
+            }
+        } catch (IOException e) {
+            log.close();
+            throw e;
+        }
+        if (filter != null) {
+            loaded.keySet().forEach(key -> filter.add(hash(key)));
+        }
+        return new NameRegistry(loaded, filter, log);
+    }
+
+    /**
+     * Reserves a name unless a name equal to it ignoring case already is.
+     *
+     * @param name name to reserve.
+     * @return {@code true} if this call reserved the name.
+     * @throws UncheckedIOException if the reservation could not be written to the registry file.
+     */
+    public boolean reserve(String name) {
+        String key = fold(Objects.requireNonNull(name, "name"));
+        if (filter != null) {
+            // before the map, so a lookup that misses the filter can never miss a reserved name
+            filter.add(hash(key));
+        }
+        if (log == null) {
+            return names.putIfAbsent(key, Boolean.TRUE) == null;
+        }
+        boolean[] reserved = {false};
+        // the record is written while the map holds the key's bin, so the file sees each name's
+        // reservations and releases in the order the map does
+        names.computeIfAbsent(key, k -> {
+            append(NameLog.RESERVE, k);
+            reserved[0] = true;
+            return Boolean.TRUE;
+        });
+        return reserved[0];
+    }
+
+    /**
+     * @param name name to release, compared ignoring case.
+     * @return {@code true} if the name was reserved and now is not.
+     * @throws UncheckedIOException if the release could not be written to the registry file.
+     */
+    public boolean release(String name) {
+        String key = fold(Objects.requireNonNull(name, "name"));
+        if (log == null) {
+            return names.remove(key) != null;
+        }
+        boolean[] released = {false};
+        names.computeIfPresent(key, (k, v) -> {
+            append(NameLog.RELEASE, k);
+            released[0] = true;
+            return null;
+        });
+        return released[0];
+    }
+
+    /**
+     * @param name name to look up, compared ignoring case.
+     * @return {@code true} if the name is currently reserved.
+     */
+    public boolean isReserved(String name) {
+        String key = fold(Objects.requireNonNull(name, "name"));
+        return (filter == null || filter.mightContain(hash(key))) && names.containsKey(key);
+    }
+
+    /**
+     * @return names currently reserved.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Forces the registry file to disk and closes it. Does nothing for an in-memory registry.
+     *
+     * @throws IOException if the file could not be forced or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    /**
+     * Folds each character to lower case of its upper case, the pair of mappings
+     * {@link String#CASE_INSENSITIVE_ORDER} compares by, so two names fold to the same string exactly when
+     * that comparator calls them equal. Names without upper case ASCII or any non-ASCII are returned as is.
+     */
+    static String fold(String name) {
+        int length = name.length();
+        int first = 0;
+        while (first < length) {
+            char c = name.charAt(first);
+            if ((c >= 'A' && c <= 'Z') || c >= 0x80) {
+                break;
+            }
+            first++;
+        }
+        if (first == length) {
+            return name;
+        }
+        StringBuilder folded = new StringBuilder(length).append(name, 0, first);
+        for (int i = first; i < length; ) {
+            // by code point, as the comparator pairs up surrogates too
+            int c = name.codePointAt(i);
+            folded.appendCodePoint(Character.toLowerCase(Character.toUpperCase(c)));
+            i += Character.charCount(c);
+        }
+        return folded.toString();
+    }
+
+    /**
+     * 64-bit FNV-1a of the folded name, finished with the MurmurHash3 mixer so every bit feeds the filter.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    private void append(byte op, String key) {
+        try {
+            log.append(op, key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package uk.ac.ncl.csc8404.pcretailer.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide dictionary that maps part names to dense int ids, so models can store their parts as
+ * {@code int[]} and counters can be plain arrays indexed by part id. Ids start at zero, are never reused
+ * and are only meaningful inside the running process. Safe for concurrent use.
+ */
+public final class PartDictionary {
+
+    // every part name gets a number once, then we only pass numbers around
+
+    private static final PartDictionary SHARED = new PartDictionary();
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[64];
+    private volatile int size;
+
+    private PartDictionary() {
+    }
+
+    /**
+     * @return the dictionary used by every {@link PresetModel} and {@link CustomModel}.
+     */
+    public static PartDictionary shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the id for {@code part}, assigning the next free id the first time a name is seen.
+     *
+     * @param part trimmed, non-blank part name.
+     * @return dense id of the part.
+     */
+    public int intern(String part) {
+        Integer id = ids.get(part);
+        if (id != null) {
+            return id;
+        }
+        return assign(Objects.requireNonNull(part, "part"));
+    }
+
+    /**
+     * @param part part name.
+     * @return id of the part, or {@code -1} if the name has never been interned.
+     */
+    public int idOf(String part) {
+        Integer id = ids.get(part);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id id returned by {@link #intern(String)}.
+     * @return the part name for that id.
+     */
+    public String name(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("unknown part id: " + id);
+        }
+        return names[id];
+    }
+
+    /**
+     * @return number of distinct parts seen so far; every id is below this value.
+     */
+    public int size() {
+        return size;
+    }
+
+    private synchronized int assign(String part) {
+        Integer existing = ids.get(part);
+        if (existing != null) {
+            return existing;
+        }
+        int id = size;
+        String[] current = names;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, id * 2);
+        }
+        current[id] = part;
+        names = current;
+        size = id + 1;
+        // publishing through the map last means anyone who sees the id also sees the name
+        ids.put(part, id);
+        return id;
+    }
+}
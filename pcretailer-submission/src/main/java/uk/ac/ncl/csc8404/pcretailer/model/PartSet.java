@@ -0,0 +1,213 @@
+package uk.ac.ncl.csc8404.pcretailer.model;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.SortedSet;
+
+/**
+ * Read-only sorted view over a slice of part ids ordered by part name, held either in a plain {@code int[]}
+ * or in a {@link PartTree}. Names are looked up in the {@link PartDictionary} as the view is read; nothing
+ * is copied.
+ */
+final class PartSet extends AbstractSet<String> implements SortedSet<String> {
+
+    // looks like a SortedSet<String> from outside, is just ints inside
+
+    private static final PartDictionary DICTIONARY = PartDictionary.shared();
+
+    private final Ids ids;
+    private final int from;
+    private final int to;
+
+    PartSet(int[] ids) {
+        this(new ArrayIds(ids));
+    }
+
+    PartSet(Ids ids) {
+        this(ids, 0, ids.size());
+    }
+
+    private PartSet(Ids ids, int from, int to) {
+        this.ids = ids;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Builds the id array for already validated part names, ordered by name and without duplicates.
+     */
+    static int[] encode(SortedSet<String> names) {
+        int[] encoded = new int[names.size()];
+        int i = 0;
+        for (String name : names) {
+            encoded[i++] = DICTIONARY.intern(name);
+        }
+        return encoded;
+    }
+
+    /**
+     * Binary search by part name in {@code ids[from, to)}.
+     *
+     * @return index of the name, or {@code -(insertionPoint + 1)} if it is absent.
+     */
+    static int search(int[] ids, int from, int to, String name) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = DICTIONARY.name(ids[middle]).compareTo(name);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        PrimitiveIterator.OfInt source = ids.iterator(from);
+        return new Iterator<>() {
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public String next() {
+                if (next >= to) {
+                    throw new NoSuchElementException();
+                }
+                next++;
+                return DICTIONARY.name(source.nextInt());
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof String name && ids.search(from, to, name) >= 0;
+    }
+
+    @Override
+    public Comparator<? super String> comparator() {
+        return null;
+    }
+
+    @Override
+    public SortedSet<String> subSet(String fromElement, String toElement) {
+        if (fromElement.compareTo(toElement) > 0) {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+        return new PartSet(ids, lowerBound(fromElement), Math.max(lowerBound(fromElement), lowerBound(toElement)));
+    }
+
+    @Override
+    public SortedSet<String> headSet(String toElement) {
+        return new PartSet(ids, from, lowerBound(toElement));
+    }
+
+    @Override
+    public SortedSet<String> tailSet(String fromElement) {
+        return new PartSet(ids, lowerBound(fromElement), to);
+    }
+
+    @Override
+    public String first() {
+        if (from == to) {
+            throw new NoSuchElementException();
+        }
+        return DICTIONARY.name(ids.idAt(from));
+    }
+
+    @Override
+    public String last() {
+        if (from == to) {
+            throw new NoSuchElementException();
+        }
+        return DICTIONARY.name(ids.idAt(to - 1));
+    }
+
+    private int lowerBound(String name) {
+        int index = ids.search(from, to, name);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    /**
+     * Part ids ordered by part name and addressed by position.
+     */
+    interface Ids {
+
+        int size();
+
+        int idAt(int index);
+
+        /**
+         * Looks {@code name} up among positions {@code [from, to)}.
+         *
+         * @return position of the name, or {@code -(insertionPoint + 1)} if it is absent.
+         */
+        int search(int from, int to, String name);
+
+        /**
+         * @return iterator over the ids from position {@code from} to the end.
+         */
+        PrimitiveIterator.OfInt iterator(int from);
+    }
+
+    private static final class ArrayIds implements Ids {
+        private final int[] ids;
+
+        ArrayIds(int[] ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+
+        @Override
+        public int idAt(int index) {
+            return ids[index];
+        }
+
+        @Override
+        public int search(int from, int to, String name) {
+            return PartSet.search(ids, from, to, name);
+        }
+
+        @Override
+        public PrimitiveIterator.OfInt iterator(int from) {
+            return new PrimitiveIterator.OfInt() {
+                private int next = from;
+
+                @Override
+                public boolean hasNext() {
+                    return next < ids.length;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (next >= ids.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return ids[next++];
+                }
+            };
+        }
+    }
+}
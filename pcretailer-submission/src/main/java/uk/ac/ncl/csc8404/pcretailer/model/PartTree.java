@@ -0,0 +1,293 @@
+package uk.ac.ncl.csc8404.pcretailer.model;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Persistent AVL tree of part ids ordered by part name. Adding or removing a part copies only the
+ * O(log n) nodes on the path to it and shares every other node with the previous version, so a chain of
+ * edits on a large custom model never copies the whole set. Nodes carry subtree sizes, which gives
+ * positional access for the {@link PartSet} view. Instances are immutable and safe to share between threads.
+ */
+final class PartTree implements PartSet.Ids {
+
+    // each edit copies one branch, everything else is shared with the old version
+
+    private static final PartDictionary DICTIONARY = PartDictionary.shared();
+
+    private final Node root;
+
+    private PartTree(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Builds a perfectly balanced tree from ids already ordered by name and without duplicates.
+     */
+    static PartTree of(int[] sortedIds) {
+        return new PartTree(build(sortedIds, 0, sortedIds.length));
+    }
+
+    /**
+     * @param name validated part name.
+     * @return a tree that also holds {@code name}, or this tree if it already does.
+     */
+    PartTree with(String name) {
+        Node updated = insert(root, name);
+        return updated == root ? this : new PartTree(updated);
+    }
+
+    /**
+     * @param name validated part name.
+     * @return a tree without {@code name}, or this tree if it does not hold it.
+     */
+    PartTree without(String name) {
+        Node updated = remove(root, name);
+        return updated == root ? this : new PartTree(updated);
+    }
+
+    void forEach(IntConsumer action) {
+        forEach(root, action);
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public int idAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.id;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    @Override
+    public int search(int from, int to, String name) {
+        // positions are global, so search the whole tree and clamp the answer to the slice
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int comparison = name.compareTo(DICTIONARY.name(node.id));
+            if (comparison == 0) {
+                int found = rank + size(node.left);
+                if (found >= from && found < to) {
+                    return found;
+                }
+                return -(Math.min(Math.max(found, from), to) + 1);
+            }
+            if (comparison < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return -(Math.min(Math.max(rank, from), to) + 1);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator(int from) {
+        return new InOrder(root, from);
+    }
+
+    /**
+     * Equal when both trees hold the same ids in the same order, whatever their shape.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PartTree that) || size() != that.size()) {
+            return false;
+        }
+        PrimitiveIterator.OfInt mine = iterator(0);
+        PrimitiveIterator.OfInt theirs = that.iterator(0);
+        while (mine.hasNext()) {
+            if (mine.nextInt() != theirs.nextInt()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same value as {@link java.util.Arrays#hashCode(int[])} over the ids in order.
+     */
+    @Override
+    public int hashCode() {
+        int[] hash = {1};
+        forEach(id -> hash[0] = 31 * hash[0] + id);
+        return hash[0];
+    }
+
+    private static Node build(int[] ids, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node(ids[middle], build(ids, from, middle), build(ids, middle + 1, to));
+    }
+
+    private static Node insert(Node node, String name) {
+        if (node == null) {
+            return new Node(DICTIONARY.intern(name), null, null);
+        }
+        int comparison = name.compareTo(DICTIONARY.name(node.id));
+        if (comparison == 0) {
+            return node;
+        }
+        if (comparison < 0) {
+            Node left = insert(node.left, name);
+            return left == node.left ? node : balance(node.id, left, node.right);
+        }
+        Node right = insert(node.right, name);
+        return right == node.right ? node : balance(node.id, node.left, right);
+    }
+
+    private static Node remove(Node node, String name) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = name.compareTo(DICTIONARY.name(node.id));
+        if (comparison < 0) {
+            Node left = remove(node.left, name);
+            return left == node.left ? node : balance(node.id, left, node.right);
+        }
+        if (comparison > 0) {
+            Node right = remove(node.right, name);
+            return right == node.right ? node : balance(node.id, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.id, node.left, removeFirst(node.right));
+    }
+
+    private static Node removeFirst(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.id, removeFirst(node.left), node.right);
+    }
+
+    /**
+     * Makes a node from subtrees whose heights differ by at most two, rotating if they differ by two.
+     */
+    private static Node balance(int id, Node left, Node right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node(left.id, left.left, new Node(id, left.right, right));
+            }
+            Node pivot = left.right;
+            return new Node(pivot.id, new Node(left.id, left.left, pivot.left), new Node(id, pivot.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node(right.id, new Node(id, left, right.left), right.right);
+            }
+            Node pivot = right.left;
+            return new Node(pivot.id, new Node(id, left, pivot.left), new Node(right.id, pivot.right, right.right));
+        }
+        return new Node(id, left, right);
+    }
+
+    private static void forEach(Node node, IntConsumer action) {
+        while (node != null) {
+            forEach(node.left, action);
+            action.accept(node.id);
+            node = node.right;
+        }
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node {
+        private final int id;
+        private final Node left;
+        private final Node right;
+        private final int height;
+        private final int size;
+
+        Node(int id, Node left, Node right) {
+            this.id = id;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    /**
+     * In-order walk starting at a given position, keeping the pending ancestors on a small stack.
+     */
+    private static final class InOrder implements PrimitiveIterator.OfInt {
+        private final Node[] stack;
+        private int depth;
+
+        InOrder(Node root, int from) {
+            stack = new Node[height(root)];
+            Node node = root;
+            int skip = from;
+            while (node != null) {
+                int leftSize = size(node.left);
+                if (skip < leftSize) {
+                    stack[depth++] = node;
+                    node = node.left;
+                } else if (skip == leftSize) {
+                    stack[depth++] = node;
+                    node = null;
+                } else {
+                    skip -= leftSize + 1;
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (depth == 0) {
+                throw new NoSuchElementException();
+            }
+            Node node = stack[--depth];
+            for (Node next = node.right; next != null; next = next.left) {
+                stack[depth++] = next;
+            }
+            return node.id;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package uk.ac.ncl.csc8404.pcretailer.model;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Intern table for {@link PresetModel}s keyed by manufacturer and model name. Each key maps to one canonical
+ * instance, so order lines that name the same preset share it and compare by reference. Lookups are two hash
+ * probes with no allocation. Safe for concurrent use.
+ */
+public final class PresetCatalog {
+
+    // a few thousand presets, millions of lines pointing at them
+
+    private static final PresetCatalog SHARED = new PresetCatalog();
+
+    private final Map<String, Map<String, PresetModel>> byManufacturer = new ConcurrentHashMap<>();
+
+    /**
+     * @return the catalog that order recovery canonicalises decoded presets through.
+     */
+    public static PresetCatalog shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the catalog's instance for this preset, registering a new one the first time the key is seen.
+     * A preset already registered with these parts is found without building or encoding a new one.
+     *
+     * @param manufacturer the manufacturer; must be non-blank.
+     * @param name         the model name; must be non-blank.
+     * @param parts        the parts; each must be non-blank.
+     * @return canonical preset.
+     * @throws IllegalStateException    if the key is already registered with different parts.
+     * @throws IllegalArgumentException if validation fails.
+     */
+    public PresetModel intern(String manufacturer, String name, Collection<String> parts) {
+        if (manufacturer != null && name != null) {
+            PresetModel existing = lookup(manufacturer.trim(), name.trim());
+            if (existing != null && existing.hasParts(parts)) {
+                return existing;
+            }
+        }
+        // a miss, or different parts that intern rejects with the usual validation errors first
+        return intern(PresetModel.of(manufacturer, name, parts));
+    }
+
+    /**
+     * @param model preset to canonicalise.
+     * @return the registered instance equal to {@code model}, or {@code model} itself if it is the first.
+     * @throws IllegalStateException if the key is already registered with different parts.
+     */
+    public PresetModel intern(PresetModel model) {
+        PresetModel canonical = register(model);
+        if (canonical != model && !canonical.equals(model)) {
+            throw new IllegalStateException("preset already registered with different parts: "
+                    + model.getManufacturer() + " " + model.getName());
+        }
+        return canonical;
+    }
+
+    /**
+     * Like {@link #intern(PresetModel)}, but a preset whose key is taken by different parts is handed back
+     * unchanged instead of rejected. Meant for replaying data that may predate a catalogue change.
+     */
+    public PresetModel canonical(PresetModel model) {
+        PresetModel canonical = register(model);
+        return canonical == model || canonical.equals(model) ? canonical : model;
+    }
+
+    /**
+     * @return the registered preset, if any.
+     */
+    public Optional<PresetModel> find(String manufacturer, String name) {
+        Objects.requireNonNull(manufacturer, "manufacturer");
+        Objects.requireNonNull(name, "name");
+        return Optional.ofNullable(lookup(manufacturer.trim(), name.trim()));
+    }
+
+    /**
+     * @return number of registered presets.
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, PresetModel> models : byManufacturer.values()) {
+            size += models.size();
+        }
+        return size;
+    }
+
+    private PresetModel lookup(String manufacturer, String name) {
+        Map<String, PresetModel> models = byManufacturer.get(manufacturer);
+        return models == null ? null : models.get(name);
+    }
+
+    private PresetModel register(PresetModel model) {
+        Objects.requireNonNull(model, "model");
+        Map<String, PresetModel> models = byManufacturer.get(model.getManufacturer());
+        if (models == null) {
+            models = byManufacturer.computeIfAbsent(model.getManufacturer(), key -> new ConcurrentHashMap<>());
+        }
+        PresetModel existing = models.get(model.getName());
+        if (existing != null) {
+            return existing;
+        }
+        existing = models.putIfAbsent(model.getName(), model);
+        return existing == null ? model : existing;
+    }
+}
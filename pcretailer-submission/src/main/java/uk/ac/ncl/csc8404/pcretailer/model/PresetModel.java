@@ -1,11 +1,12 @@
 package uk.ac.ncl.csc8404.pcretailer.model;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.function.IntConsumer;
 
 /**
  * Immutable implementation of a preset computer model backed by a manufacturer.
@@ -16,12 +17,16 @@ public final class PresetModel implements PresetComputerModel {
 
     private final String manufacturer;
     private final String name;
-    private final SortedSet<String> parts;
+    // part ids from PartDictionary, ordered by part name
+    private final int[] partIds;
+    // every field is final, so work the hash out once instead of on every map lookup
+    private final int hash;
 
-    private PresetModel(String manufacturer, String name, SortedSet<String> parts) {
+    private PresetModel(String manufacturer, String name, int[] partIds) {
         this.manufacturer = manufacturer;
         this.name = name;
-        this.parts = parts;
+        this.partIds = partIds;
+        this.hash = Objects.hash(manufacturer, name, Arrays.hashCode(partIds));
     }
 
     /**
@@ -31,12 +36,13 @@ public final class PresetModel implements PresetComputerModel {
      * @param name         the model name; must be non-blank.
      * @param parts        the collection of parts; each must be a non-blank string.
      * @return a new immutable {@link PresetModel}.
+     * @see PresetCatalog#intern(String, String, Collection)
      */
     public static PresetModel of(String manufacturer, String name, Collection<String> parts) {
         String safeManufacturer = requireText("manufacturer", manufacturer);
         String safeName = requireText("name", name);
         SortedSet<String> safeParts = validateParts(parts);
-        return new PresetModel(safeManufacturer, safeName, safeParts);
+        return new PresetModel(safeManufacturer, safeName, PartSet.encode(safeParts));
     }
 
     @Override
@@ -51,7 +57,38 @@ public final class PresetModel implements PresetComputerModel {
 
     @Override
     public Set<String> getParts() {
-        return Collections.unmodifiableSet(parts);
+        return new PartSet(partIds);
+    }
+
+    @Override
+    public void forEachPartId(IntConsumer action) {
+        for (int id : partIds) {
+            action.accept(id);
+        }
+    }
+
+    /**
+     * Checks {@code parts}, trimmed and de-duplicated as {@link #of} would, against this model's parts without
+     * building a set. May answer {@code false} for a match it cannot check cheaply; callers then build the model.
+     *
+     * @return {@code true} if the parts are exactly this model's parts.
+     */
+    boolean hasParts(Collection<String> parts) {
+        if (parts == null || partIds.length > Long.SIZE) {
+            return false;
+        }
+        long seen = 0;
+        for (String part : parts) {
+            if (part == null) {
+                return false;
+            }
+            int index = PartSet.search(partIds, 0, partIds.length, part.trim());
+            if (index < 0) {
+                return false;
+            }
+            seen |= 1L << index;
+        }
+        return seen == (partIds.length == Long.SIZE ? -1L : (1L << partIds.length) - 1);
     }
 
     @Override
@@ -62,14 +99,15 @@ public final class PresetModel implements PresetComputerModel {
         if (!(o instanceof PresetModel that)) {
             return false;
         }
-        return manufacturer.equals(that.manufacturer)
+        return hash == that.hash
+                && manufacturer.equals(that.manufacturer)
                 && name.equals(that.name)
-                && parts.equals(that.parts);
+                && Arrays.equals(partIds, that.partIds);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(manufacturer, name, parts);
+        return hash;
     }
 
     @Override
@@ -77,7 +115,7 @@ public final class PresetModel implements PresetComputerModel {
         return "PresetModel{" +
                 "manufacturer='" + manufacturer + '\'' +
                 ", name='" + name + '\'' +
-                ", parts=" + parts +
+                ", parts=" + getParts() +
                 '}';
     }
 
@@ -100,6 +138,6 @@ public final class PresetModel implements PresetComputerModel {
         if (sanitized.isEmpty()) {
             throw new IllegalArgumentException("parts must not be blank");
         }
-        return Collections.unmodifiableSortedSet(sanitized);
+        return sanitized;
     }
 }
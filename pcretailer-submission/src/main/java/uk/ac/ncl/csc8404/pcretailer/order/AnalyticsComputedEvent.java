@@ -0,0 +1,27 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one {@link OrderService#analytics()} or {@link OrderService#analytics(AnalyticsWindow)} call.
+ */
+@Name("uk.ac.ncl.csc8404.pcretailer.AnalyticsComputed")
+@Label("Analytics Computed")
+@Category({"PC Retailer", "Orders"})
+@StackTrace(false)
+final class AnalyticsComputedEvent extends Event {
+
+    @Label("Window")
+    String window;
+
+    void end(AnalyticsWindow analyticsWindow) {
+        if (shouldCommit()) {
+            window = analyticsWindow == null ? "ALL_TIME" : analyticsWindow.name();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.time.Duration;
+
+/**
+ * Trailing time windows supported by {@link OrderService#analytics(AnalyticsWindow)}.
+ */
+public enum AnalyticsWindow {
+
+    LAST_HOUR(Duration.ofHours(1)),
+    LAST_DAY(Duration.ofDays(1)),
+    LAST_WEEK(Duration.ofDays(7));
+
+    private final Duration length;
+
+    AnalyticsWindow(Duration length) {
+        this.length = length;
+    }
+
+    /**
+     * @return how far back the window reaches from the current time.
+     */
+    public Duration getLength() {
+        return length;
+    }
+}
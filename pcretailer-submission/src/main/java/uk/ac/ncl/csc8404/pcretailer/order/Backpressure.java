@@ -0,0 +1,19 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+/**
+ * What a {@link FulfillmentPipeline} does with a new order when its queue is full.
+ */
+public enum Backpressure {
+    /**
+     * The submitting thread waits for space in the queue.
+     */
+    BLOCK,
+    /**
+     * The returned future fails at once with a {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    REJECT,
+    /**
+     * The submitting thread fulfils the order itself, which slows submitters down to the pipeline's pace.
+     */
+    CALLER_RUNS
+}
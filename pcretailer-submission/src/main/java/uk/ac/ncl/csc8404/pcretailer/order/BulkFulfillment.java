@@ -0,0 +1,48 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Result of {@link OrderService#fulfillOrders(java.util.Collection)}: one plan covering every order that
+ * was fulfilled, plus an outcome per requested id.
+ */
+public final class BulkFulfillment {
+
+    // one pick plan for the whole wave and a tick or cross per order
+
+    private final FulfillmentPlan plan;
+    private final List<OrderOutcome<CustomerOrder>> outcomes;
+
+    BulkFulfillment(FulfillmentPlan plan, List<OrderOutcome<CustomerOrder>> outcomes) {
+        this.plan = Objects.requireNonNull(plan, "plan");
+        this.outcomes = List.copyOf(outcomes);
+    }
+
+    /**
+     * @return combined plan for all successfully fulfilled orders.
+     */
+    public FulfillmentPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * @return one outcome per requested id, in the order the ids were supplied.
+     */
+    public List<OrderOutcome<CustomerOrder>> getOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * @return number of orders fulfilled by this call.
+     */
+    public int fulfilledCount() {
+        int count = 0;
+        for (OrderOutcome<CustomerOrder> outcome : outcomes) {
+            if (outcome.isSuccess()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,180 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.model.ComputerModel;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Binary layout of one cold-tier block. Like a snapshot, customers, cards and models go into tables once;
+ * orders are sorted by placement time so each time is stored as a small delta from the previous one, and
+ * every count, index and delta is a variable-length int. The caller wraps the stream in a compressor.
+ * <pre>
+ * magic, version
+ * customers: count, (id, name)*
+ * cards:     count, (number, expiry, holder)*
+ * models:    count, model*                       (as in {@link SnapshotCodec})
+ * orders:    count, (msb, lsb, customer, card, placedAtDelta, status, lineCount, (model, quantity)*)*
+ * </pre>
+ */
+final class ColdBlockCodec {
+
+    // finished orders squashed down, mostly tiny varints
+
+    private static final int MAGIC = 0x50434342;
+    private static final short VERSION = 1;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private ColdBlockCodec() {
+    }
+
+    static void write(DataOutput out, List<? extends OrderRecord> orders) throws IOException {
+        List<OrderRecord> sorted = new ArrayList<>(orders);
+        sorted.sort(Comparator.comparingLong(OrderRecord::placedAtMillis));
+        Map<Customer, Integer> customers = new HashMap<>();
+        Map<CreditCard, Integer> cards = new HashMap<>();
+        Map<ComputerModel, Integer> models = new HashMap<>();
+        List<Customer> customerTable = new ArrayList<>();
+        List<CreditCard> cardTable = new ArrayList<>();
+        List<ComputerModel> modelTable = new ArrayList<>();
+        for (OrderRecord order : sorted) {
+            index(customers, customerTable, order.getCustomer());
+            index(cards, cardTable, order.getPaymentMethod());
+            for (OrderLine line : order.getOrderLines()) {
+                index(models, modelTable, line.getModel());
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        writeVarLong(out, customerTable.size());
+        for (Customer customer : customerTable) {
+            out.writeUTF(customer.getIdentifier());
+            out.writeUTF(customer.getDisplayName());
+        }
+        writeVarLong(out, cardTable.size());
+        for (CreditCard card : cardTable) {
+            out.writeInt(Integer.parseInt(card.getNumber()));
+            out.writeLong(card.getExpiry().getTime());
+            out.writeUTF(card.getHolderName());
+        }
+        writeVarLong(out, modelTable.size());
+        for (ComputerModel model : modelTable) {
+            SnapshotCodec.writeModel(out, model);
+        }
+        writeVarLong(out, sorted.size());
+        long previous = 0;
+        for (OrderRecord order : sorted) {
+            out.writeLong(order.getId().getMostSignificantBits());
+            out.writeLong(order.getId().getLeastSignificantBits());
+            writeVarLong(out, customers.get(order.getCustomer()));
+            writeVarLong(out, cards.get(order.getPaymentMethod()));
+            long placedAt = order.placedAtMillis();
+            // the first delta is from zero and may be negative for dates before 1970
+            writeVarLong(out, zigZag(placedAt - previous));
+            previous = placedAt;
+            out.writeByte(order.getStatus().ordinal());
+            writeVarLong(out, order.getOrderLines().size());
+            for (OrderLine line : order.getOrderLines()) {
+                writeVarLong(out, models.get(line.getModel()));
+                writeVarLong(out, line.getQuantity());
+            }
+        }
+    }
+
+    static List<StandardOrder> read(DataInput in, CreditCardFactory cardFactory) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a cold order block");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("unsupported cold block version " + version);
+        }
+        Customer[] customers = new Customer[readVarInt(in)];
+        for (int i = 0; i < customers.length; i++) {
+            customers[i] = Customer.of(in.readUTF(), in.readUTF());
+        }
+        CreditCard[] cards = new CreditCard[readVarInt(in)];
+        for (int i = 0; i < cards.length; i++) {
+            String number = String.format("%08d", in.readInt());
+            Date expiry = new Date(in.readLong());
+            cards[i] = cardFactory.restore(number, expiry, in.readUTF());
+        }
+        ComputerModel[] models = new ComputerModel[readVarInt(in)];
+        for (int i = 0; i < models.length; i++) {
+            models[i] = SnapshotCodec.readModel(in);
+        }
+        int orderCount = readVarInt(in);
+        List<StandardOrder> orders = new ArrayList<>(orderCount);
+        long placedAt = 0;
+        for (int i = 0; i < orderCount; i++) {
+            UUID id = new UUID(in.readLong(), in.readLong());
+            Customer customer = customers[readVarInt(in)];
+            CreditCard card = cards[readVarInt(in)];
+            placedAt += unZigZag(readVarLong(in));
+            OrderStatus status = STATUSES[in.readByte()];
+            OrderLine[] lines = new OrderLine[readVarInt(in)];
+            for (int j = 0; j < lines.length; j++) {
+                lines[j] = OrderLine.of(models[readVarInt(in)], readVarInt(in));
+            }
+            StandardOrder order = new StandardOrder(id, customer, List.of(lines), card, new Date(placedAt));
+            order.transition(OrderStatus.PLACED, status);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("varint out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static <T> void index(Map<T, Integer> indexes, List<T> table, T value) {
+        if (!indexes.containsKey(value)) {
+            indexes.put(value, table.size());
+            table.add(value);
+        }
+    }
+}
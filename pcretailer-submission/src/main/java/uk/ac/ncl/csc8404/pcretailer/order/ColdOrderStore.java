@@ -0,0 +1,217 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Cold tier for finished orders. {@link OrderService#evictFinishedOrders()} moves fulfilled and cancelled orders
+ * placed longer than {@link #finishedAge()} ago into deflate-compressed, delta-encoded block files here and drops
+ * them from the heap. An in-memory id index says which block holds each order, and a small LRU cache of
+ * decoded blocks serves repeated cold reads.
+ * <p>
+ * The blocks are a spill area, not a durable record: the journal and snapshots stay the source of truth, so
+ * opening a store clears any blocks left from a previous run. Safe for concurrent use.
+ */
+public final class ColdOrderStore implements Closeable {
+
+    // old finished orders go to disk, we only keep where to find them
+
+    /**
+     * Default number of decoded blocks kept in memory.
+     */
+    public static final int DEFAULT_CACHED_BLOCKS = 8;
+    private static final int BLOCK_ORDERS = 1024;
+    private static final String PREFIX = "block-";
+    private static final String SUFFIX = ".bin";
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final Path directory;
+    private final Duration finishedAge;
+    private final CreditCardFactory cardFactory;
+    private final Map<UUID, Integer> blockOf = new ConcurrentHashMap<>();
+    private final AtomicInteger nextBlock = new AtomicInteger();
+    private final Map<Integer, Map<UUID, StandardOrder>> cache;
+
+    private ColdOrderStore(Path directory, Duration finishedAge, int cachedBlocks, CreditCardFactory cardFactory) {
+        this.directory = directory;
+        this.finishedAge = finishedAge;
+        this.cardFactory = cardFactory;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Map<UUID, StandardOrder>> eldest) {
+                return size() > cachedBlocks;
+            }
+        };
+    }
+
+    /**
+     * Opens a store with {@link #DEFAULT_CACHED_BLOCKS} cached blocks and its own card factory.
+     *
+     * @param directory   directory for block files; created if missing and emptied of old blocks.
+     * @param finishedAge how long after placement a finished order may stay on the heap.
+     * @return the store.
+     * @throws IOException if the directory cannot be prepared.
+     */
+    public static ColdOrderStore open(Path directory, Duration finishedAge) throws IOException {
+        return open(directory, finishedAge, DEFAULT_CACHED_BLOCKS, new CreditCardFactory());
+    }
+
+    /**
+     * @param directory    directory for block files; created if missing and emptied of old blocks.
+     * @param finishedAge  how long after placement a finished order may stay on the heap.
+     * @param cachedBlocks number of decoded blocks kept in memory.
+     * @param cardFactory  factory that card numbers read back from blocks are restored into.
+     * @return the store.
+     * @throws IOException if the directory cannot be prepared.
+     */
+    public static ColdOrderStore open(Path directory, Duration finishedAge, int cachedBlocks,
+                                      CreditCardFactory cardFactory) throws IOException {
+        Objects.requireNonNull(directory, "directory");
+        Objects.requireNonNull(finishedAge, "finishedAge");
+        Objects.requireNonNull(cardFactory, "cardFactory");
+        if (finishedAge.isNegative()) {
+            throw new IllegalArgumentException("finishedAge must not be negative");
+        }
+        if (cachedBlocks < 1) {
+            throw new IllegalArgumentException("cachedBlocks must be positive");
+        }
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, PREFIX + "*")) {
+            for (Path file : stale) {
+                Files.delete(file);
+            }
+        }
+        return new ColdOrderStore(directory, finishedAge, cachedBlocks, cardFactory);
+    }
+
+    /**
+     * @return how long after placement a finished order may stay on the heap.
+     */
+    public Duration finishedAge() {
+        return finishedAge;
+    }
+
+    /**
+     * @return number of orders held in the cold tier.
+     */
+    public int orderCount() {
+        return blockOf.size();
+    }
+
+    /**
+     * @return number of block files written.
+     */
+    public int blockCount() {
+        return nextBlock.get();
+    }
+
+    /**
+     * Writes {@code orders} as blocks of up to 1024 orders. Each block becomes visible to {@link #find(UUID)}
+     * once its file is complete.
+     */
+    void writeAll(List<? extends OrderRecord> orders) throws IOException {
+        for (int from = 0; from < orders.size(); from += BLOCK_ORDERS) {
+            write(orders.subList(from, Math.min(orders.size(), from + BLOCK_ORDERS)));
+        }
+    }
+
+    private void write(List<? extends OrderRecord> orders) throws IOException {
+        int block = nextBlock.getAndIncrement();
+        Path target = blockFile(block);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (OutputStream raw = new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_BYTES);
+             DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(raw, deflater, BUFFER_BYTES))) {
+            ColdBlockCodec.write(out, orders);
+        } finally {
+            deflater.end();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        for (OrderRecord order : orders) {
+            blockOf.put(order.getId(), block);
+        }
+    }
+
+    /**
+     * @return the cold order with this id, or {@code null} if it is not in the cold tier.
+     */
+    OrderRecord find(UUID orderId) throws IOException {
+        Integer block = blockOf.get(orderId);
+        if (block == null) {
+            return null;
+        }
+        Map<UUID, StandardOrder> orders;
+        synchronized (cache) {
+            orders = cache.get(block);
+        }
+        if (orders == null) {
+            // decode outside the lock; two readers racing on one block just both decode it
+            List<StandardOrder> decoded = readBlock(block);
+            orders = new HashMap<>(decoded.size() * 2);
+            for (StandardOrder order : decoded) {
+                orders.put(order.getId(), order);
+            }
+            synchronized (cache) {
+                cache.put(block, orders);
+            }
+        }
+        return orders.get(orderId);
+    }
+
+    /**
+     * Hands every cold order to {@code action}, one block at a time, without filling the cache.
+     */
+    void forEach(Consumer<? super StandardOrder> action) throws IOException {
+        int blocks = nextBlock.get();
+        for (int block = 0; block < blocks; block++) {
+            if (Files.exists(blockFile(block))) {
+                readBlock(block).forEach(action);
+            }
+        }
+    }
+
+    /**
+     * Drops the cache. Block files stay until the next {@link #open}.
+     */
+    @Override
+    public void close() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private List<StandardOrder> readBlock(int block) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(Files.newInputStream(blockFile(block))), BUFFER_BYTES))) {
+            return ColdBlockCodec.read(in, cardFactory);
+        }
+    }
+
+    private Path blockFile(int block) {
+        return directory.resolve(String.format("%s%010d%s", PREFIX, block, SUFFIX));
+    }
+}
@@ -0,0 +1,15 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+/**
+ * What {@link OrderService#sweepExpiredCards(ExpiredCardAction)} does with a placed order whose card has expired.
+ */
+public enum ExpiredCardAction {
+    /**
+     * The order is cancelled, exactly as {@link OrderService#cancelOrder} would, and journaled.
+     */
+    CANCEL,
+    /**
+     * The order is left placed and only reported, so the caller can chase a new card.
+     */
+    FLAG
+}
@@ -0,0 +1,118 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Placed orders grouped by the expiry of the card paying for them. Each distinct expiry is one group, and
+ * only groups go on the {@link TimingWheel}, so a sweep costs O(groups that expired + their orders) and never
+ * looks at orders whose cards are still good.
+ * <p>
+ * Adding and removing orders touches only concurrent maps; the wheel is locked when a new expiry is first
+ * seen and while sweeping.
+ */
+final class ExpiryIndex {
+
+    // cards run out on a timetable, so keep the timetable instead of scanning
+
+    static final long TICK_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    private final Map<Long, Group> groups = new ConcurrentHashMap<>();
+    private final TimingWheel<Group> wheel = new TimingWheel<>(TICK_MILLIS, 0);
+    // ids a failed sweep handed back, already due
+    private final ConcurrentLinkedQueue<UUID> requeued = new ConcurrentLinkedQueue<>();
+
+    void add(OrderRecord order) {
+        long expiry = order.getPaymentMethod().getExpiry().getTime();
+        UUID id = order.getId();
+        while (true) {
+            Group group = groups.computeIfAbsent(expiry, Group::new);
+            if (!group.scheduled) {
+                schedule(group);
+            }
+            group.orders.add(id);
+            if (!group.expired) {
+                return;
+            }
+            // a sweep took the group as we joined; whoever removes the id owns it
+            if (!group.orders.remove(id)) {
+                return;
+            }
+            groups.remove(expiry, group);
+        }
+    }
+
+    /**
+     * Called once an order has left {@link OrderStatus#PLACED}.
+     */
+    void remove(OrderRecord order) {
+        Group group = groups.get(order.getPaymentMethod().getExpiry().getTime());
+        if (group != null) {
+            group.orders.remove(order.getId());
+        }
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis} and takes out every group whose cards have expired by then.
+     *
+     * @return ids of orders that were placed with those cards and not removed since, plus any handed back by
+     * {@link #requeue}. Each id is returned by at most one call unless it is handed back.
+     */
+    List<UUID> expire(long nowMillis) {
+        List<Group> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(nowMillis, due::add);
+        }
+        List<UUID> ids = new ArrayList<>();
+        for (UUID id; (id = requeued.poll()) != null; ) {
+            ids.add(id);
+        }
+        for (Group group : due) {
+            group.expired = true;
+            groups.remove(group.expiry, group);
+            for (UUID id : group.orders) {
+                // an order joining right now may take its id back, so claim each one
+                if (group.orders.remove(id)) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Hands back ids returned by {@link #expire} that the caller could not deal with, so the next call returns
+     * them again. An order may have left {@link OrderStatus#PLACED} in the meantime; callers check.
+     */
+    void requeue(Collection<UUID> ids) {
+        requeued.addAll(ids);
+    }
+
+    private void schedule(Group group) {
+        synchronized (wheel) {
+            if (!group.scheduled) {
+                // a card is still valid on its expiry date, so it lapses just after
+                wheel.schedule(group.expiry + 1, group);
+                group.scheduled = true;
+            }
+        }
+    }
+
+    private static final class Group {
+        private final long expiry;
+        private final Set<UUID> orders = ConcurrentHashMap.newKeySet();
+        private volatile boolean scheduled;
+        private volatile boolean expired;
+
+        private Group(long expiry) {
+            this.expiry = expiry;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs {@link OrderService#sweepExpiredCards(ExpiredCardAction)} on a background thread and hands each affected
+ * order to a listener, for example to email the customer.
+ */
+public final class ExpirySweeper implements Closeable {
+
+    // someone has to look at the clock now and then
+
+    private final OrderService service;
+    private final ExpiredCardAction action;
+    private final Consumer<? super CustomerOrder> listener;
+    private final LongAdder affected = new LongAdder();
+    private ScheduledExecutorService scheduler;
+    private volatile RuntimeException lastFailure;
+
+    /**
+     * @param service  service to sweep.
+     * @param action   what to do with orders whose card has expired.
+     * @param listener called once per affected order, on the sweeping thread, as soon as the order is dealt with.
+     */
+    public ExpirySweeper(OrderService service, ExpiredCardAction action, Consumer<? super CustomerOrder> listener) {
+        this.service = Objects.requireNonNull(service, "service");
+        this.action = Objects.requireNonNull(action, "action");
+        this.listener = Objects.requireNonNull(listener, "listener");
+    }
+
+    /**
+     * Sweeps once on the calling thread. If the sweep fails part way, the listener has already heard of the
+     * orders dealt with before the failure, and the rest are swept again next time.
+     *
+     * @return the orders affected by this sweep.
+     */
+    public synchronized List<CustomerOrder> sweep() {
+        List<CustomerOrder> orders = new ArrayList<>();
+        service.sweepExpiredCards(action, order -> {
+            affected.increment();
+            orders.add(order);
+            listener.accept(order);
+        });
+        return orders;
+    }
+
+    /**
+     * Sweeps every {@code period} on a background thread until {@link #close()} is called.
+     *
+     * @param period time between sweeps; a second or more, the timing wheel's resolution.
+     * @throws IllegalArgumentException if {@code period} is shorter than a second.
+     */
+    public synchronized void start(Duration period) {
+        Objects.requireNonNull(period, "period");
+        if (period.toMillis() < ExpiryIndex.TICK_MILLIS) {
+            throw new IllegalArgumentException("period must be at least the timing wheel tick of "
+                    + ExpiryIndex.TICK_MILLIS + "ms");
+        }
+        if (scheduler != null) {
+            throw new IllegalStateException("sweeper already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "order-expiry-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = period.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                // keep sweeping; the orders a failed round did not get to are swept again next time
+                lastFailure = e;
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return orders affected by every sweep so far.
+     */
+    public long affectedCount() {
+        return affected.sum();
+    }
+
+    /**
+     * @return the error from the most recent failed background sweep, if any.
+     */
+    public Optional<RuntimeException> lastFailure() {
+        return Optional.ofNullable(lastFailure);
+    }
+
+    /**
+     * Stops periodic sweeps. A sweep already running is allowed to finish.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+}
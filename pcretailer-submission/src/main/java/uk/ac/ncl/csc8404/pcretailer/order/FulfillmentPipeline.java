@@ -0,0 +1,217 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.io.Closeable;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fulfils orders off the caller's thread. {@link #submit(UUID)} puts the order id on a bounded queue and
+ * returns at once; a fixed set of workers takes ids off the queue and runs
+ * {@link OrderService#fulfillOrder(UUID)}, which adds up the lines and updates the analytics, then completes
+ * the caller's future with the plan or the failure.
+ * <p>
+ * Workers are virtual threads when the runtime has them (Java 21 and later) and daemon platform threads
+ * otherwise. What happens when the queue is full is up to the {@link Backpressure} policy.
+ */
+public final class FulfillmentPipeline implements Closeable {
+
+    // request threads hand the work over and go back to serving requests
+
+    /**
+     * Default queue depth.
+     */
+    public static final int DEFAULT_QUEUE_DEPTH = 1024;
+
+    private final OrderService service;
+    private final ThreadPoolExecutor executor;
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram processing = new LatencyHistogram();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private FulfillmentPipeline(OrderService service, int workers, int queueDepth, Backpressure backpressure) {
+        this.service = service;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth), workerFactory(), handler(backpressure));
+    }
+
+    /**
+     * Starts a pipeline with one worker per processor, a queue of {@link #DEFAULT_QUEUE_DEPTH} and
+     * {@link Backpressure#BLOCK}.
+     *
+     * @param service service whose orders are fulfilled.
+     * @return the running pipeline.
+     */
+    public static FulfillmentPipeline start(OrderService service) {
+        return start(service, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_DEPTH, Backpressure.BLOCK);
+    }
+
+    /**
+     * @param service      service whose orders are fulfilled.
+     * @param workers      number of worker threads.
+     * @param queueDepth   most orders that may wait for a worker.
+     * @param backpressure what to do when that many are already waiting.
+     * @return the running pipeline.
+     */
+    public static FulfillmentPipeline start(OrderService service, int workers, int queueDepth,
+                                            Backpressure backpressure) {
+        Objects.requireNonNull(service, "service");
+        Objects.requireNonNull(backpressure, "backpressure");
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        if (queueDepth < 1) {
+            throw new IllegalArgumentException("queueDepth must be positive");
+        }
+        return new FulfillmentPipeline(service, workers, queueDepth, backpressure);
+    }
+
+    /**
+     * Queues an order for fulfilment. Whatever {@link OrderService#fulfillOrder(UUID)} would throw, such as for
+     * an unknown or cancelled order, fails the future instead.
+     *
+     * @param orderId identifier of the order.
+     * @return completes with the order's plan once a worker has fulfilled it; fails with a
+     * {@link RejectedExecutionException} if the order was turned away.
+     */
+    public CompletableFuture<FulfillmentPlan> submit(UUID orderId) {
+        Objects.requireNonNull(orderId, "orderId");
+        Task task = new Task(orderId);
+        // counted before execute, which may finish the task on a worker or on this thread before it returns
+        submitted.increment();
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            submitted.decrement();
+            rejected.increment();
+            task.future.completeExceptionally(e);
+        }
+        return task.future;
+    }
+
+    /**
+     * @return counters and latencies of every order submitted so far; the queued count is read as the call
+     * is made, so it may already be out of date.
+     */
+    public FulfillmentPipelineStats stats() {
+        return new FulfillmentPipelineStats(submitted.sum(), completed.sum(), failed.sum(), rejected.sum(),
+                executor.getQueue().size(), LatencySummary.of(queueWait.snapshot()),
+                LatencySummary.of(processing.snapshot()));
+    }
+
+    /**
+     * Stops taking new orders and waits for the queued ones to be fulfilled. Orders submitted afterwards are
+     * rejected.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static RejectedExecutionHandler handler(Backpressure backpressure) {
+        return switch (backpressure) {
+            case REJECT -> new ThreadPoolExecutor.AbortPolicy();
+            case CALLER_RUNS -> (task, executor) -> {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("fulfilment pipeline is closed");
+                }
+                task.run();
+            };
+            case BLOCK -> (task, executor) -> {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("fulfilment pipeline is closed");
+                }
+                try {
+                    executor.getQueue().put(task);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("interrupted while waiting for queue space", e);
+                }
+                // closed while we waited: the workers may already be gone, so take it back out
+                if (executor.isShutdown() && executor.getQueue().remove(task)) {
+                    throw new RejectedExecutionException("fulfilment pipeline is closed");
+                }
+            };
+        };
+    }
+
+    /**
+     * Virtual threads if {@code Thread.ofVirtual()} exists, looked up reflectively so this still builds and
+     * runs on Java 17.
+     */
+    private static ThreadFactory workerFactory() {
+        try {
+            // go through the public interface; the builder's own class is not accessible
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "order-fulfilment-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger count = new AtomicInteger();
+            return task -> {
+                Thread thread = new Thread(task, "order-fulfilment-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    private final class Task implements Runnable {
+        private final UUID orderId;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<FulfillmentPlan> future = new CompletableFuture<>();
+
+        Task(UUID orderId) {
+            this.orderId = orderId;
+        }
+
+        @Override
+        public void run() {
+            long started = System.nanoTime();
+            queueWait.record(started - enqueuedAt);
+            FulfillmentPlan plan;
+            try {
+                plan = service.fulfillOrder(orderId);
+            } catch (Throwable e) {
+                // counted before the future completes, so a caller that waited sees its own order in the stats
+                processing.record(System.nanoTime() - started);
+                failed.increment();
+                future.completeExceptionally(e);
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+                return;
+            }
+            processing.record(System.nanoTime() - started);
+            completed.increment();
+            future.complete(plan);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+/**
+ * Point-in-time counters of a {@link FulfillmentPipeline}. Queue wait runs from submission until a worker
+ * picks the order up; processing is the {@link OrderService#fulfillOrder(java.util.UUID)} call itself.
+ */
+public final class FulfillmentPipelineStats {
+
+    // if wait dwarfs processing, add workers; if processing is slow, workers wont help
+
+    private final long submitted;
+    private final long completed;
+    private final long failed;
+    private final long rejected;
+    private final int queued;
+    private final LatencySummary queueWait;
+    private final LatencySummary processing;
+
+    FulfillmentPipelineStats(long submitted, long completed, long failed, long rejected, int queued,
+                             LatencySummary queueWait, LatencySummary processing) {
+        this.submitted = submitted;
+        this.completed = completed;
+        this.failed = failed;
+        this.rejected = rejected;
+        this.queued = queued;
+        this.queueWait = queueWait;
+        this.processing = processing;
+    }
+
+    /**
+     * @return orders accepted into the pipeline, whether queued or run by the caller.
+     */
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    /**
+     * @return orders fulfilled successfully.
+     */
+    public long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return orders whose fulfilment threw, e.g. because they were already cancelled.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return orders turned away because the queue was full or the pipeline closed.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return orders waiting in the queue right now.
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    public LatencySummary getQueueWait() {
+        return queueWait;
+    }
+
+    public LatencySummary getProcessing() {
+        return processing;
+    }
+
+    @Override
+    public String toString() {
+        return "FulfillmentPipelineStats{" +
+                "submitted=" + submitted +
+                ", completed=" + completed +
+                ", failed=" + failed +
+                ", rejected=" + rejected +
+                ", queued=" + queued +
+                ", queueWait=" + queueWait +
+                ", processing=" + processing +
+                '}';
+    }
+}
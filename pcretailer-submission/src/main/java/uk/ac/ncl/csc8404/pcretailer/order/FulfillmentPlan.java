@@ -1,47 +1,157 @@
 package uk.ac.ncl.csc8404.pcretailer.order;
 
-import java.util.Collections;
+import uk.ac.ncl.csc8404.pcretailer.model.PartDictionary;
+
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Map;
 import java.util.Objects;
-import java.util.TreeMap;
 
 /**
  * Aggregated plan produced when fulfilling an order.
+ * <p>
+ * Totals are kept as sorted parallel arrays of names and {@code int} counts. The maps returned by the getters
+ * are read-only views over those arrays, created on first use, and iterate in name order.
  */
 public final class FulfillmentPlan {
 
     // this just keeps track of totals so warehouse pals happy
 
-    private final Map<String, Map<String, Integer>> presetModelCounts;
-    private final Map<String, Integer> customPartCounts;
+    private static final Comparator<PresetModelKey> PRESET_ORDER =
+            Comparator.comparing(PresetModelKey::manufacturer).thenComparing(PresetModelKey::model);
+
+    private final String[] manufacturers;
+    private final int[] firstModel;
+    private final String[] models;
+    private final int[] modelCounts;
+    private final String[] parts;
+    private final int[] partCounts;
+    // views are stateless over final arrays, so racing threads building two is harmless
+    private Map<String, Map<String, Integer>> presetView;
+    private Map<String, Integer> partView;
+
+    /**
+     * @param manufacturers manufacturer names in name order.
+     * @param firstModel    index of each manufacturer's first model, plus the model count at the end.
+     * @param models        model names, grouped by manufacturer and in name order within each.
+     * @param modelCounts   count for each model in the matching slot.
+     * @param parts         part names in name order.
+     * @param partCounts    count for each part in the matching slot.
+     */
+    private FulfillmentPlan(String[] manufacturers, int[] firstModel, String[] models, int[] modelCounts,
+                            String[] parts, int[] partCounts) {
+        this.manufacturers = manufacturers;
+        this.firstModel = firstModel;
+        this.models = models;
+        this.modelCounts = modelCounts;
+        this.parts = parts;
+        this.partCounts = partCounts;
+    }
+
+    private static FulfillmentPlan of(Map<String, Map<String, Integer>> presetModelCounts, String[] parts,
+                                      int[] partCounts) {
+        String[] manufacturers = sortedKeys(presetModelCounts);
+        int[] firstModel = new int[manufacturers.length + 1];
+        for (int i = 0; i < manufacturers.length; i++) {
+            firstModel[i + 1] = firstModel[i] + presetModelCounts.get(manufacturers[i]).size();
+        }
+        String[] models = new String[firstModel[manufacturers.length]];
+        int[] modelCounts = new int[models.length];
+        for (int i = 0; i < manufacturers.length; i++) {
+            Map<String, Integer> counts = presetModelCounts.get(manufacturers[i]);
+            String[] names = sortedKeys(counts);
+            System.arraycopy(names, 0, models, firstModel[i], names.length);
+            for (int j = 0; j < names.length; j++) {
+                modelCounts[firstModel[i] + j] = counts.get(names[j]);
+            }
+        }
+        return new FulfillmentPlan(manufacturers, firstModel, models, modelCounts, parts, partCounts);
+    }
+
+    /**
+     * @param presetModelCounts model counts keyed by manufacturer, in any order.
+     * @param customPartCounts  part counts keyed by part name, in any order.
+     */
+    static FulfillmentPlan of(Map<String, Map<String, Integer>> presetModelCounts,
+                              Map<String, Integer> customPartCounts) {
+        Objects.requireNonNull(presetModelCounts, "presetModelCounts");
+        String[] parts = sortedKeys(Objects.requireNonNull(customPartCounts, "customPartCounts"));
+        int[] counts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = customPartCounts.get(parts[i]);
+        }
+        return of(presetModelCounts, parts, counts);
+    }
+
+    /**
+     * Builds the plan straight from preset keys and dictionary-id part counts, without going through name-keyed
+     * maps.
+     */
+    static FulfillmentPlan of(Map<PresetModelKey, Integer> presetModelCounts, PartCounts customPartCounts) {
+        PresetModelKey[] presets = presetModelCounts.keySet().toArray(new PresetModelKey[0]);
+        Arrays.sort(presets, PRESET_ORDER);
+        int manufacturerCount = 0;
+        for (int i = 0; i < presets.length; i++) {
+            if (i == 0 || !presets[i].manufacturer().equals(presets[i - 1].manufacturer())) {
+                manufacturerCount++;
+            }
+        }
+        String[] manufacturers = new String[manufacturerCount];
+        int[] firstModel = new int[manufacturerCount + 1];
+        String[] models = new String[presets.length];
+        int[] modelCounts = new int[presets.length];
+        int manufacturer = -1;
+        for (int i = 0; i < presets.length; i++) {
+            if (manufacturer < 0 || !presets[i].manufacturer().equals(manufacturers[manufacturer])) {
+                manufacturers[++manufacturer] = presets[i].manufacturer();
+                firstModel[manufacturer] = i;
+            }
+            models[i] = presets[i].model();
+            modelCounts[i] = presetModelCounts.get(presets[i]);
+        }
+        firstModel[manufacturerCount] = presets.length;
 
-    FulfillmentPlan(Map<String, Map<String, Integer>> presetModelCounts,
-                    Map<String, Integer> customPartCounts) {
-        this.presetModelCounts = deepCopy(presetModelCounts);
-        this.customPartCounts = Collections.unmodifiableMap(
-                new TreeMap<>(Objects.requireNonNull(customPartCounts, "customPartCounts")));
+        PartDictionary dictionary = PartDictionary.shared();
+        String[] parts = new String[customPartCounts.size()];
+        int[] next = new int[1];
+        customPartCounts.forEach((partId, count) -> parts[next[0]++] = dictionary.name(partId));
+        // sorting the names alone is cheaper than dragging the counts along; look them up again after
+        Arrays.sort(parts);
+        int[] partCounts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            partCounts[i] = customPartCounts.get(dictionary.idOf(parts[i]));
+        }
+        return new FulfillmentPlan(manufacturers, firstModel, models, modelCounts, parts, partCounts);
     }
 
     /**
      * @return per-manufacturer model counts.
      */
     public Map<String, Map<String, Integer>> getPresetModelCounts() {
-        return presetModelCounts;
+        Map<String, Map<String, Integer>> view = presetView;
+        if (view == null) {
+            view = new SortedArrayMap<>(manufacturers, 0, manufacturers.length,
+                    i -> new SortedArrayMap<>(models, firstModel[i], firstModel[i + 1], j -> modelCounts[j]));
+            presetView = view;
+        }
+        return view;
     }
 
     /**
      * @return part counts for custom models.
      */
     public Map<String, Integer> getCustomPartCounts() {
-        return customPartCounts;
+        Map<String, Integer> view = partView;
+        if (view == null) {
+            view = new SortedArrayMap<>(parts, 0, parts.length, i -> partCounts[i]);
+            partView = view;
+        }
+        return view;
     }
 
-    private Map<String, Map<String, Integer>> deepCopy(Map<String, Map<String, Integer>> input) {
-        Objects.requireNonNull(input, "presetModelCounts");
-        Map<String, Map<String, Integer>> copy = new TreeMap<>();
-        for (Map.Entry<String, Map<String, Integer>> entry : input.entrySet()) {
-            copy.put(entry.getKey(), Collections.unmodifiableMap(new TreeMap<>(entry.getValue())));
-        }
-        return Collections.unmodifiableMap(copy);
+    private static String[] sortedKeys(Map<String, ?> map) {
+        String[] keys = map.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+        return keys;
     }
 }
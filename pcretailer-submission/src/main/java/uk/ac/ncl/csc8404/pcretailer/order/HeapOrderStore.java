@@ -0,0 +1,50 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Default store: the orders themselves in a concurrent map keyed by id.
+ */
+final class HeapOrderStore implements OrderStore {
+
+    // plain old map, nothing clever
+
+    private final Map<UUID, StandardOrder> orders = new ConcurrentHashMap<>();
+
+    @Override
+    public OrderRecord put(OrderRecord order) {
+        StandardOrder stored = order instanceof StandardOrder standard ? standard : copy(order);
+        orders.put(stored.getId(), stored);
+        return stored;
+    }
+
+    @Override
+    public OrderRecord get(UUID orderId) {
+        return orders.get(orderId);
+    }
+
+    @Override
+    public void remove(UUID orderId) {
+        orders.remove(orderId);
+    }
+
+    @Override
+    public void forEach(Consumer<OrderRecord> action) {
+        orders.values().forEach(action);
+    }
+
+    @Override
+    public int size() {
+        return orders.size();
+    }
+
+    private static StandardOrder copy(OrderRecord order) {
+        StandardOrder copy = new StandardOrder(order.getId(), order.getCustomer(), order.getOrderLines(),
+                order.getPaymentMethod(), order.getPlacedAt());
+        copy.transition(OrderStatus.PLACED, order.getStatus());
+        return copy;
+    }
+}
@@ -0,0 +1,105 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear latency histogram in the style of HdrHistogram. Values below 64 ns get a bucket each; above that
+ * every power of two is split into 32 buckets, so any recorded value is reported within about 3% of its true
+ * size, up to {@link Long#MAX_VALUE}. Recording is a bucket index computation and one atomic increment, with
+ * no allocation. Threads are spread over a few stripes so they rarely fight over one counter.
+ */
+final class LatencyHistogram {
+
+    // bucket = magnitude plus the top five bits under the leading one
+
+    private static final int LINEAR = 64;
+    private static final int SUB_BUCKETS = 32;
+    private static final int SUB_BITS = 5;
+    private static final int BUCKETS = LINEAR + (63 - SUB_BITS - 1) * SUB_BUCKETS;
+    private static final int STRIPES = stripes();
+
+    private final AtomicLongArray[] counts = new AtomicLongArray[STRIPES];
+    private final AtomicLong max = new AtomicLong();
+
+    LatencyHistogram() {
+        for (int i = 0; i < STRIPES; i++) {
+            counts[i] = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[(int) Thread.currentThread().getId() & (STRIPES - 1)].incrementAndGet(bucketOf(value));
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Adds the stripes together. Not atomic against concurrent recording, which can only make the counts a
+     * little older in some buckets than in others.
+     */
+    Snapshot snapshot() {
+        long[] merged = new long[BUCKETS];
+        long total = 0;
+        for (AtomicLongArray stripe : counts) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = stripe.get(i);
+                merged[i] += count;
+                total += count;
+            }
+        }
+        return new Snapshot(merged, total, max.get());
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @return the largest value that lands in {@code bucket}.
+     */
+    static long highestIn(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR) / SUB_BUCKETS + 1;
+        long mantissa = (bucket - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    private static int stripes() {
+        return Math.min(4, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Counts merged from all stripes at one moment.
+     */
+    record Snapshot(long[] counts, long total, long max) {
+
+        /**
+         * @param quantile between 0 and 1.
+         * @return the value at {@code quantile}, as the top of its bucket but never above the largest value
+         * seen; 0 when nothing was recorded.
+         */
+        long valueAt(double quantile) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestIn(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.Objects;
+
+/**
+ * Percentiles of one latency histogram, in nanoseconds, accurate to about 3%.
+ */
+public final class LatencySummary {
+
+    // four numbers is usually all anyone looks at
+
+    private final long count;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+
+    private LatencySummary(long count, long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+        this.count = count;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    static LatencySummary of(LatencyHistogram.Snapshot snapshot) {
+        return new LatencySummary(snapshot.total(), snapshot.valueAt(0.5), snapshot.valueAt(0.99),
+                snapshot.valueAt(0.999), snapshot.max());
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LatencySummary that)) {
+            return false;
+        }
+        return count == that.count && p50Nanos == that.p50Nanos && p99Nanos == that.p99Nanos
+                && p999Nanos == that.p999Nanos && maxNanos == that.maxNanos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, p50Nanos, p99Nanos, p999Nanos, maxNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySummary{" +
+                "count=" + count +
+                ", p50=" + p50Nanos +
+                "ns, p99=" + p99Nanos +
+                "ns, p999=" + p999Nanos +
+                "ns, max=" + maxNanos +
+                "ns}";
+    }
+}
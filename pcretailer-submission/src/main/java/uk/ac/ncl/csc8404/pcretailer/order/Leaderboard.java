@@ -0,0 +1,79 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Running count per key kept in rank order, so the leader and the top-N can be read without scanning.
+ * Ranking is by count descending, then by the supplied tie-break comparator. Not thread-safe on its own.
+ *
+ * @param <K> type of the ranked key.
+ */
+final class Leaderboard<K> {
+
+    // every update re-slots just the one key, nobody else moves
+
+    private final Map<K, Ranked<K>> entries = new HashMap<>();
+    private final NavigableSet<Ranked<K>> ranking;
+    private Ranked<K> leader;
+
+    Leaderboard(Comparator<? super K> tieBreak) {
+        Comparator<Ranked<K>> byCount = Comparator.comparingLong(Ranked::count);
+        this.ranking = new TreeSet<>(byCount.reversed().thenComparing(Ranked::item, tieBreak));
+    }
+
+    /**
+     * Replaces the count of {@code key} with a total kept elsewhere and re-ranks it in O(log n).
+     */
+    void update(K key, long count) {
+        Ranked<K> previous = entries.get(key);
+        if (previous == null) {
+            put(new Ranked<>(key, count));
+        } else if (previous.count() != count) {
+            ranking.remove(previous);
+            put(new Ranked<>(previous.item(), count));
+        }
+    }
+
+    /**
+     * @return current leader or {@code null} when nothing was counted yet.
+     */
+    K leader() {
+        return leader == null ? null : leader.item();
+    }
+
+    /**
+     * @return up to {@code limit} entries in rank order.
+     */
+    List<Ranked<K>> top(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        List<Ranked<K>> result = new ArrayList<>(Math.min(limit, entries.size()));
+        Iterator<Ranked<K>> it = ranking.iterator();
+        while (result.size() < limit && it.hasNext()) {
+            result.add(it.next());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * @return every entry in rank order.
+     */
+    Iterable<Ranked<K>> entries() {
+        return Collections.unmodifiableSet(ranking);
+    }
+
+    private void put(Ranked<K> entry) {
+        entries.put(entry.item(), entry);
+        ranking.add(entry);
+        leader = ranking.first();
+    }
+}
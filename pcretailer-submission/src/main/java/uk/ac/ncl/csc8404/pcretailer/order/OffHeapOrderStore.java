@@ -0,0 +1,468 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.model.ComputerModel;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Order store that packs orders into direct memory instead of keeping them as objects on the heap.
+ * <p>
+ * Each order is one fixed-layout record, bump-allocated in 16 MiB segments:
+ * <pre>
+ *  0 int  status ordinal (updated in place by CAS)
+ *  4 int  line count
+ *  8 long id, most significant bits
+ * 16 long id, least significant bits
+ * 24 long placed at, epoch millis
+ * 32 int  customer ref
+ * 36 int  card ref
+ * 40 (int model ref, int quantity) per line
+ * </pre>
+ * Customers, cards and models are shared by many orders, so they stay on the heap in intern tables and
+ * records refer to them by index. The id index is an open-addressing table of (msb, lsb, address) slots, also
+ * in direct memory, read under optimistic {@link StampedLock} stamps.
+ * <p>
+ * Records are never moved or overwritten. {@link #get} hands out small views that decode fields on demand
+ * and hold on to their segment, so a view stays readable after its order is removed. A segment is dropped
+ * once every order in it has been removed and is freed when the last view into it goes away.
+ */
+final class OffHeapOrderStore implements OrderStore {
+
+    // one record per order, the heap only sees the views we hand out
+
+    private static final int SEGMENT_SHIFT = 24;
+    private static final int SEGMENT_BYTES = 1 << SEGMENT_SHIFT;
+    private static final int STATUS = 0;
+    private static final int LINE_COUNT = 4;
+    private static final int ID_MSB = 8;
+    private static final int ID_LSB = 16;
+    private static final int PLACED_AT = 24;
+    private static final int CUSTOMER = 32;
+    private static final int CARD = 36;
+    private static final int LINES = 40;
+    private static final int LINE_BYTES = 8;
+    private static final int MAX_LINES = (SEGMENT_BYTES - LINES) / LINE_BYTES;
+    private static final int SLOT_BYTES = 24;
+    private static final long EMPTY = 0;
+    private static final long REMOVED = -1;
+    private static final int INITIAL_SLOTS = 1 << 10;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final StampedLock lock = new StampedLock();
+    private final Interned<Customer> customers = new Interned<>();
+    private final Interned<CreditCard> cards = new Interned<>();
+    private final Interned<ComputerModel> models = new Interned<>();
+
+    // everything below is written under the write lock
+    private volatile ByteBuffer[] segments = new ByteBuffer[4];
+    private int[] liveRecords = new int[4];
+    private int currentSegment = -1;
+    private int nextOffset = SEGMENT_BYTES;
+    private volatile ByteBuffer slots = allocateDirect(INITIAL_SLOTS * SLOT_BYTES);
+    private int slotCount = INITIAL_SLOTS;
+    private int usedSlots;
+    private volatile int size;
+
+    @Override
+    public OrderRecord put(OrderRecord order) {
+        List<OrderLine> lines = order.getOrderLines();
+        if (lines.size() > MAX_LINES) {
+            throw new IllegalArgumentException("order has too many lines for an off-heap record: " + lines.size());
+        }
+        long stamp = lock.writeLock();
+        try {
+            UUID id = order.getId();
+            int slot = findSlot(slots, slotCount, id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (slot >= 0) {
+                release(slots.getLong(slot * SLOT_BYTES + 16));
+                slots.putLong(slot * SLOT_BYTES + 16, REMOVED);
+                size--;
+            }
+            long address = allocate(LINES + lines.size() * LINE_BYTES);
+            ByteBuffer segment = segments[segmentOf(address)];
+            int offset = offsetOf(address);
+            segment.putInt(offset + LINE_COUNT, lines.size());
+            segment.putLong(offset + ID_MSB, id.getMostSignificantBits());
+            segment.putLong(offset + ID_LSB, id.getLeastSignificantBits());
+            segment.putLong(offset + PLACED_AT, order.placedAtMillis());
+            segment.putInt(offset + CUSTOMER, customers.ref(order.getCustomer()));
+            segment.putInt(offset + CARD, cards.ref(order.getPaymentMethod()));
+            int line = offset + LINES;
+            for (OrderLine orderLine : lines) {
+                segment.putInt(line, models.ref(orderLine.getModel()));
+                segment.putInt(line + 4, orderLine.getQuantity());
+                line += LINE_BYTES;
+            }
+            INTS.setRelease(segment, offset + STATUS, order.getStatus().ordinal());
+            insert(id.getMostSignificantBits(), id.getLeastSignificantBits(), address);
+            size++;
+            return new View(segment, offset);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public OrderRecord get(UUID orderId) {
+        long msb = orderId.getMostSignificantBits();
+        long lsb = orderId.getLeastSignificantBits();
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            OrderRecord found = find(msb, lsb);
+            if (lock.validate(stamp)) {
+                return found;
+            }
+        }
+        // a writer got in the way, so whatever we read may be torn; read again properly
+        stamp = lock.readLock();
+        try {
+            return find(msb, lsb);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void remove(UUID orderId) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = findSlot(slots, slotCount, orderId.getMostSignificantBits(), orderId.getLeastSignificantBits());
+            if (slot >= 0) {
+                release(slots.getLong(slot * SLOT_BYTES + 16));
+                slots.putLong(slot * SLOT_BYTES + 16, REMOVED);
+                size--;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<OrderRecord> action) {
+        // copy the live addresses out first so the action may call back into the store
+        ByteBuffer[] segmentsSeen;
+        long[] addresses;
+        int count = 0;
+        long stamp = lock.readLock();
+        try {
+            segmentsSeen = segments;
+            addresses = new long[size];
+            for (int slot = 0; slot < slotCount; slot++) {
+                long address = slots.getLong(slot * SLOT_BYTES + 16);
+                if (address != EMPTY && address != REMOVED) {
+                    addresses[count++] = address - 1;
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        for (int i = 0; i < count; i++) {
+            action.accept(new View(segmentsSeen[segmentOf(addresses[i])], offsetOf(addresses[i])));
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return direct memory held by record segments and the id table, in bytes.
+     */
+    long offHeapBytes() {
+        long stamp = lock.readLock();
+        try {
+            long bytes = (long) slotCount * SLOT_BYTES;
+            for (ByteBuffer segment : segments) {
+                if (segment != null) {
+                    bytes += segment.capacity();
+                }
+            }
+            return bytes;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Reads without locking; callers check their stamp before trusting the answer. Probes at most every slot,
+     * so a table being resized under us cannot send this round in circles.
+     */
+    private OrderRecord find(long msb, long lsb) {
+        ByteBuffer table = slots;
+        int tableSlots = table.capacity() / SLOT_BYTES;
+        int slot = findSlot(table, tableSlots, msb, lsb);
+        if (slot < 0) {
+            return null;
+        }
+        long address = table.getLong(slot * SLOT_BYTES + 16) - 1;
+        ByteBuffer[] current = segments;
+        int segment = segmentOf(address);
+        if (segment < 0 || segment >= current.length || current[segment] == null) {
+            return null;
+        }
+        return new View(current[segment], offsetOf(address));
+    }
+
+    private static int findSlot(ByteBuffer table, int tableSlots, long msb, long lsb) {
+        int mask = tableSlots - 1;
+        int slot = hash(msb, lsb) & mask;
+        for (int probes = 0; probes < tableSlots; probes++) {
+            int base = slot * SLOT_BYTES;
+            long address = table.getLong(base + 16);
+            if (address == EMPTY) {
+                return -1;
+            }
+            if (address != REMOVED && table.getLong(base) == msb && table.getLong(base + 8) == lsb) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(long msb, long lsb, long address) {
+        if ((usedSlots + 1) * 2 > slotCount) {
+            resize();
+        }
+        int mask = slotCount - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (true) {
+            int base = slot * SLOT_BYTES;
+            long current = slots.getLong(base + 16);
+            if (current == EMPTY || current == REMOVED) {
+                if (current == EMPTY) {
+                    usedSlots++;
+                }
+                slots.putLong(base, msb);
+                slots.putLong(base + 8, lsb);
+                slots.putLong(base + 16, address + 1);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Rehashes into a fresh table, dropping tombstones; grows only if the live entries need it.
+     */
+    private void resize() {
+        int newCount = size * 4 > slotCount ? slotCount * 2 : slotCount;
+        ByteBuffer old = slots;
+        int oldCount = slotCount;
+        ByteBuffer table = allocateDirect(newCount * SLOT_BYTES);
+        int mask = newCount - 1;
+        int used = 0;
+        for (int slot = 0; slot < oldCount; slot++) {
+            long address = old.getLong(slot * SLOT_BYTES + 16);
+            if (address == EMPTY || address == REMOVED) {
+                continue;
+            }
+            long msb = old.getLong(slot * SLOT_BYTES);
+            long lsb = old.getLong(slot * SLOT_BYTES + 8);
+            int target = hash(msb, lsb) & mask;
+            while (table.getLong(target * SLOT_BYTES + 16) != EMPTY) {
+                target = (target + 1) & mask;
+            }
+            table.putLong(target * SLOT_BYTES, msb);
+            table.putLong(target * SLOT_BYTES + 8, lsb);
+            table.putLong(target * SLOT_BYTES + 16, address);
+            used++;
+        }
+        slots = table;
+        slotCount = newCount;
+        usedSlots = used;
+    }
+
+    /**
+     * Bumps the allocation pointer, opening a new segment when the record does not fit in this one.
+     */
+    private long allocate(int bytes) {
+        if (nextOffset + bytes > SEGMENT_BYTES) {
+            int segment = currentSegment + 1;
+            ByteBuffer[] grown;
+            if (segment == segments.length) {
+                grown = Arrays.copyOf(segments, segment * 2);
+                liveRecords = Arrays.copyOf(liveRecords, segment * 2);
+            } else {
+                grown = segments.clone();
+            }
+            grown[segment] = allocateDirect(SEGMENT_BYTES);
+            segments = grown;
+            int previous = currentSegment;
+            currentSegment = segment;
+            nextOffset = 0;
+            if (previous >= 0 && liveRecords[previous] == 0) {
+                dropSegment(previous);
+            }
+        }
+        long address = ((long) currentSegment << SEGMENT_SHIFT) | nextOffset;
+        nextOffset += bytes;
+        liveRecords[currentSegment]++;
+        return address;
+    }
+
+    private void release(long storedAddress) {
+        int segment = segmentOf(storedAddress - 1);
+        if (--liveRecords[segment] == 0 && segment != currentSegment) {
+            dropSegment(segment);
+        }
+    }
+
+    private void dropSegment(int segment) {
+        // views may still point into it; the buffer is freed when the last of them is collected
+        ByteBuffer[] shrunk = segments.clone();
+        shrunk[segment] = null;
+        segments = shrunk;
+    }
+
+    private static ByteBuffer allocateDirect(int bytes) {
+        // a few spare bytes so the aligned slice is still big enough; CAS on the status needs the alignment
+        return ByteBuffer.allocateDirect(bytes + 8).alignedSlice(8).order(ByteOrder.nativeOrder());
+    }
+
+    private static int segmentOf(long address) {
+        return (int) (address >>> SEGMENT_SHIFT);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) (address & (SEGMENT_BYTES - 1));
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * Heap-side table of shared objects, looked up by index from records. Appends happen under the store's write
+     * lock; readers reach an index only through a record published after it was added.
+     */
+    private static final class Interned<T> {
+        private final Map<T, Integer> refs = new ConcurrentHashMap<>();
+        private volatile Object[] values = new Object[16];
+        private int count;
+
+        int ref(T value) {
+            Integer ref = refs.get(value);
+            if (ref != null) {
+                return ref;
+            }
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count] = value;
+            refs.put(value, count);
+            return count++;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(int ref) {
+            return (T) values[ref];
+        }
+    }
+
+    /**
+     * An order read straight out of its record. Status is read and changed in place; everything else is decoded
+     * on every call, so callers that need a field often should keep the result.
+     */
+    private final class View implements OrderRecord {
+        private final ByteBuffer segment;
+        private final int offset;
+
+        View(ByteBuffer segment, int offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        @Override
+        public UUID getId() {
+            return new UUID(segment.getLong(offset + ID_MSB), segment.getLong(offset + ID_LSB));
+        }
+
+        @Override
+        public Customer getCustomer() {
+            return customers.get(segment.getInt(offset + CUSTOMER));
+        }
+
+        @Override
+        public List<OrderLine> getOrderLines() {
+            OrderLine[] lines = new OrderLine[segment.getInt(offset + LINE_COUNT)];
+            int line = offset + LINES;
+            for (int i = 0; i < lines.length; i++) {
+                lines[i] = OrderLine.of(models.get(segment.getInt(line)), segment.getInt(line + 4));
+                line += LINE_BYTES;
+            }
+            return List.of(lines);
+        }
+
+        @Override
+        public CreditCard getPaymentMethod() {
+            return cards.get(segment.getInt(offset + CARD));
+        }
+
+        @Override
+        public Date getPlacedAt() {
+            return new Date(placedAtMillis());
+        }
+
+        @Override
+        public long placedAtMillis() {
+            return segment.getLong(offset + PLACED_AT);
+        }
+
+        @Override
+        public OrderStatus getStatus() {
+            return STATUSES[(int) INTS.getVolatile(segment, offset + STATUS)];
+        }
+
+        @Override
+        public boolean transition(OrderStatus expected, OrderStatus next) {
+            return INTS.compareAndSet(segment, offset + STATUS, expected.ordinal(), next.ordinal());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof OrderRecord that)) {
+                return false;
+            }
+            return getId().equals(that.getId());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(getId());
+        }
+
+        @Override
+        public String toString() {
+            return "OffHeapOrder{" +
+                    "id=" + getId() +
+                    ", customer=" + getCustomer() +
+                    ", lines=" + getOrderLines() +
+                    ", status=" + getStatus() +
+                    '}';
+        }
+    }
+}
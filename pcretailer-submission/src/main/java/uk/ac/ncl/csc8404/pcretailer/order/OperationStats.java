@@ -0,0 +1,91 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Counts and latency percentiles of one {@link OrderOperation}, as captured by {@link OrderService#metrics()}.
+ * Latencies cover failed calls as well as successful ones and are accurate to about 3%.
+ */
+public final class OperationStats {
+
+    // plain getters so JMX can turn it into composite data
+
+    private final long successes;
+    private final Map<String, Long> failuresByType;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+
+    OperationStats(long successes, Map<String, Long> failuresByType, long p50Nanos, long p99Nanos, long p999Nanos,
+                   long maxNanos) {
+        this.successes = successes;
+        this.failuresByType = Map.copyOf(failuresByType);
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public long getSuccesses() {
+        return successes;
+    }
+
+    public long getFailures() {
+        return failuresByType.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return failed calls keyed by the fully qualified class name of the exception they threw.
+     */
+    public Map<String, Long> getFailuresByType() {
+        return failuresByType;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OperationStats that)) {
+            return false;
+        }
+        return successes == that.successes && p50Nanos == that.p50Nanos && p99Nanos == that.p99Nanos
+                && p999Nanos == that.p999Nanos && maxNanos == that.maxNanos
+                && failuresByType.equals(that.failuresByType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(successes, failuresByType, p50Nanos, p99Nanos, p999Nanos, maxNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "OperationStats{" +
+                "successes=" + successes +
+                ", failures=" + failuresByType +
+                ", p50=" + p50Nanos +
+                "ns, p99=" + p99Nanos +
+                "ns, p999=" + p999Nanos +
+                "ns, max=" + maxNanos +
+                "ns}";
+    }
+}
@@ -0,0 +1,12 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for an order cancelled through {@link OrderService}.
+ */
+@Name("uk.ac.ncl.csc8404.pcretailer.OrderCancelled")
+@Label("Order Cancelled")
+final class OrderCancelledEvent extends OrderLifecycleEvent {
+}
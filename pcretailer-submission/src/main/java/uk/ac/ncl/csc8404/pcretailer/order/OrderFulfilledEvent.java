@@ -0,0 +1,12 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for an order fulfilled through {@link OrderService}.
+ */
+@Name("uk.ac.ncl.csc8404.pcretailer.OrderFulfilled")
+@Label("Order Fulfilled")
+final class OrderFulfilledEvent extends OrderLifecycleEvent {
+}
@@ -0,0 +1,33 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.UUID;
+
+/**
+ * Source of ids for new orders. Implementations must be safe for concurrent use and must never hand out the
+ * same id twice.
+ */
+@FunctionalInterface
+public interface OrderIdGenerator {
+
+    /**
+     * @param placedAtMillis placement time of the order the id is for, as read from the service clock.
+     * @return a fresh id.
+     */
+    UUID next(long placedAtMillis);
+
+    /**
+     * Default generator: version 7 style UUIDs that start with the placement time, so ids sort by when
+     * their orders were placed, handed out by per-thread shards without any locking or shared random source.
+     */
+    static OrderIdGenerator timeOrdered() {
+        return new TimeOrderedIdGenerator();
+    }
+
+    /**
+     * @return a generator backed by {@link UUID#randomUUID()}, as the service used before ids were
+     * pluggable.
+     */
+    static OrderIdGenerator random() {
+        return placedAtMillis -> UUID.randomUUID();
+    }
+}
@@ -0,0 +1,152 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Secondary indexes over the orders of one {@link OrderService}: by customer, by status and by placement
+ * time. Every index is a skip list ordered by placement time then id, so each one can be cut to a time
+ * range in O(log n) and walked lazily in placement order. Placed orders are also kept in an
+ * {@link ExpiryIndex} by card expiry.
+ * <p>
+ * The indexes hold keys only and turn them into orders through the service's id lookup as the stream is
+ * consumed, so an order moved to the {@link ColdOrderStore cold tier} is not kept on the heap by its index entries.
+ * The entries themselves do stay on the heap: a key and three skip list nodes per order, a second key once the
+ * order leaves PLACED, and a UUID in the expiry index while it is placed. Measured with the benchmarks'
+ * {@code OrderStoreFootprint}, that is roughly 170 bytes per order, so with off-heap orders these indexes are
+ * most of the heap an order book still needs.
+ * <p>
+ * A status change adds the order under its new status before removing it from the old one, so a concurrent
+ * query may briefly see it in both; {@link #query(OrderQuery)} re-checks the live status to hide that.
+ */
+final class OrderIndex {
+
+    // extra ways in besides the id, all kept in time order
+
+    private static final UUID LOWEST_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private final Function<UUID, OrderRecord> lookup;
+    private final ConcurrentSkipListSet<Key> byTime = new ConcurrentSkipListSet<>();
+    private final Map<Customer, ConcurrentSkipListSet<Key>> byCustomer = new ConcurrentHashMap<>();
+    private final Map<OrderStatus, ConcurrentSkipListSet<Key>> byStatus = new EnumMap<>(OrderStatus.class);
+    // skip list sizes are O(n), so the gauges keep their own counts
+    private final Map<OrderStatus, LongAdder> statusCounts = new EnumMap<>(OrderStatus.class);
+    private final ExpiryIndex byCardExpiry = new ExpiryIndex();
+
+    /**
+     * @param lookup finds an order by id in whichever tier holds it, or returns null.
+     */
+    OrderIndex(Function<UUID, OrderRecord> lookup) {
+        this.lookup = lookup;
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, new ConcurrentSkipListSet<>());
+            statusCounts.put(status, new LongAdder());
+        }
+    }
+
+    void add(OrderRecord order) {
+        Key key = Key.of(order);
+        byTime.add(key);
+        byCustomer.computeIfAbsent(order.getCustomer(), customer -> new ConcurrentSkipListSet<>()).add(key);
+        byStatus.get(order.getStatus()).add(key);
+        statusCounts.get(order.getStatus()).increment();
+        if (order.getStatus() == OrderStatus.PLACED) {
+            byCardExpiry.add(order);
+        }
+    }
+
+    void addAll(Collection<? extends OrderRecord> orders) {
+        for (OrderRecord order : orders) {
+            add(order);
+        }
+    }
+
+    /**
+     * Moves an order between status indexes after its transition from {@code from} succeeded.
+     */
+    void moved(OrderRecord order, OrderStatus from, OrderStatus to) {
+        Key key = Key.of(order);
+        byStatus.get(to).add(key);
+        byStatus.get(from).remove(key);
+        statusCounts.get(to).increment();
+        statusCounts.get(from).decrement();
+        if (from == OrderStatus.PLACED) {
+            byCardExpiry.remove(order);
+        }
+    }
+
+    /**
+     * @return ids of placed orders whose card expired by {@code nowMillis}, each returned once; see
+     * {@link ExpiryIndex#expire(long)}.
+     */
+    List<UUID> expiredCards(long nowMillis) {
+        return byCardExpiry.expire(nowMillis);
+    }
+
+    /**
+     * Hands ids from {@link #expiredCards} back to be returned by the next call.
+     */
+    void requeueExpiredCards(Collection<UUID> ids) {
+        byCardExpiry.requeue(ids);
+    }
+
+    /**
+     * @return number of indexed orders in each status; a transition in flight may be counted under either.
+     */
+    Map<OrderStatus, Long> statusCounts() {
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        statusCounts.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Starts from the narrowest index the query allows and filters the rest as the stream is consumed.
+     */
+    Stream<OrderRecord> query(OrderQuery query) {
+        OrderStatus status = query.getStatus().orElse(null);
+        NavigableSet<Key> source;
+        if (query.getCustomer().isPresent()) {
+            source = byCustomer.get(query.getCustomer().get());
+            if (source == null) {
+                return Stream.empty();
+            }
+        } else if (status != null) {
+            source = byStatus.get(status);
+        } else {
+            source = byTime;
+        }
+        if (query.hasTimeRange()) {
+            source = source.subSet(new Key(query.placedFrom(), LOWEST_ID), true, new Key(query.placedTo(), LOWEST_ID), false);
+        }
+        Stream<OrderRecord> orders = source.stream().map(key -> lookup.apply(key.id())).filter(Objects::nonNull);
+        return status == null ? orders : orders.filter(order -> order.getStatus() == status);
+    }
+
+    /**
+     * Index key: placement time, then id so orders placed in the same millisecond stay distinct.
+     */
+    record Key(long placedAt, UUID id) implements Comparable<Key> {
+
+        static Key of(OrderRecord order) {
+            return new Key(order.placedAtMillis(), order.getId());
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byTime = Long.compare(placedAt, other.placedAt);
+            return byTime != 0 ? byTime : id.compareTo(other.id);
+        }
+    }
+}
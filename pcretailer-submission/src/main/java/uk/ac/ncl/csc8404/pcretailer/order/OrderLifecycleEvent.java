@@ -0,0 +1,49 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Fields shared by the JFR events for one order's place, cancel and fulfil. The event's own duration is the
+ * time the {@link OrderService} call took.
+ * <p>
+ * Callers {@link #begin()} before the work and call {@link #end(CustomerOrder)} after it. The fields are only
+ * filled in when the event is enabled and over its threshold, so with recording off the event is an
+ * allocation the JIT can drop and two cheap checks.
+ */
+@Category({"PC Retailer", "Orders"})
+@StackTrace(false)
+abstract class OrderLifecycleEvent extends Event {
+
+    // only pay for the strings when someone is recording
+
+    @Label("Order Id")
+    String orderId;
+
+    @Label("Customer Id")
+    String customerId;
+
+    @Label("Line Count")
+    int lineCount;
+
+    @Label("Total Quantity")
+    @Description("Sum of the quantities of all lines")
+    int totalQuantity;
+
+    void end(CustomerOrder order) {
+        if (shouldCommit()) {
+            orderId = order.getId().toString();
+            customerId = order.getCustomer().getIdentifier();
+            int quantity = 0;
+            for (OrderLine line : order.getOrderLines()) {
+                quantity += line.getQuantity();
+                lineCount++;
+            }
+            totalQuantity = quantity;
+            commit();
+        }
+    }
+}
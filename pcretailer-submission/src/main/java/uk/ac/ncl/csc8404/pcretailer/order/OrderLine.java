@@ -55,7 +55,7 @@ public final class OrderLine {
 
     @Override
     public int hashCode() {
-        return Objects.hash(model, quantity);
+        return 31 * model.hashCode() + quantity;
     }
 
     @Override
@@ -0,0 +1,11 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+/**
+ * The {@link OrderService} calls that are timed and counted by its metrics.
+ */
+public enum OrderOperation {
+    PLACE_ORDER,
+    CANCEL_ORDER,
+    FULFILL_ORDER,
+    ANALYTICS
+}
@@ -0,0 +1,67 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Result of one item in a bulk operation: either a value or the exception that rejected that item.
+ *
+ * @param <T> type of the successful value.
+ */
+public final class OrderOutcome<T> {
+
+    // one bad order shouldnt take the whole batch down with it
+
+    private final T value;
+    private final RuntimeException error;
+
+    private OrderOutcome(T value, RuntimeException error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    static <T> OrderOutcome<T> success(T value) {
+        return new OrderOutcome<>(Objects.requireNonNull(value, "value"), null);
+    }
+
+    static <T> OrderOutcome<T> failure(RuntimeException error) {
+        return new OrderOutcome<>(null, Objects.requireNonNull(error, "error"));
+    }
+
+    /**
+     * @return {@code true} if the item was processed successfully.
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return the value if the item succeeded.
+     */
+    public Optional<T> value() {
+        return Optional.ofNullable(value);
+    }
+
+    /**
+     * @return the exception that rejected the item, if it failed.
+     */
+    public Optional<RuntimeException> error() {
+        return Optional.ofNullable(error);
+    }
+
+    /**
+     * @return the value of a successful item.
+     * @throws RuntimeException the original error if the item failed.
+     */
+    public T orElseThrow() {
+        if (error != null) {
+            throw error;
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return error == null ? "OrderOutcome{value=" + value + '}' : "OrderOutcome{error=" + error + '}';
+    }
+}
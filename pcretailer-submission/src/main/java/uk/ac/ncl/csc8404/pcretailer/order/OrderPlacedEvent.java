@@ -0,0 +1,12 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for an order placed through {@link OrderService}.
+ */
+@Name("uk.ac.ncl.csc8404.pcretailer.OrderPlaced")
+@Label("Order Placed")
+final class OrderPlacedEvent extends OrderLifecycleEvent {
+}
@@ -0,0 +1,84 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+
+import java.util.Date;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Immutable filter for {@link OrderService#findOrders(OrderQuery)}. Start from {@link #all()} and narrow it with
+ * the {@code with...} methods, each of which returns a new instance. Criteria combine with AND.
+ */
+public final class OrderQuery {
+
+    // say what you want, the service picks the index
+
+    private static final OrderQuery ALL = new OrderQuery(null, null, Long.MIN_VALUE, Long.MAX_VALUE);
+
+    private final Customer customer;
+    private final OrderStatus status;
+    private final long placedFrom;
+    private final long placedTo;
+
+    private OrderQuery(Customer customer, OrderStatus status, long placedFrom, long placedTo) {
+        this.customer = customer;
+        this.status = status;
+        this.placedFrom = placedFrom;
+        this.placedTo = placedTo;
+    }
+
+    /**
+     * @return a query matching every order.
+     */
+    public static OrderQuery all() {
+        return ALL;
+    }
+
+    /**
+     * @param customer only orders placed by this customer.
+     */
+    public OrderQuery withCustomer(Customer customer) {
+        return new OrderQuery(Objects.requireNonNull(customer, "customer"), status, placedFrom, placedTo);
+    }
+
+    /**
+     * @param status only orders currently in this status.
+     */
+    public OrderQuery withStatus(OrderStatus status) {
+        return new OrderQuery(customer, Objects.requireNonNull(status, "status"), placedFrom, placedTo);
+    }
+
+    /**
+     * @param from earliest placement time, inclusive.
+     * @param to   latest placement time, exclusive.
+     */
+    public OrderQuery withPlacedBetween(Date from, Date to) {
+        long fromMillis = Objects.requireNonNull(from, "from").getTime();
+        long toMillis = Objects.requireNonNull(to, "to").getTime();
+        if (fromMillis > toMillis) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        return new OrderQuery(customer, status, fromMillis, toMillis);
+    }
+
+    public Optional<Customer> getCustomer() {
+        return Optional.ofNullable(customer);
+    }
+
+    public Optional<OrderStatus> getStatus() {
+        return Optional.ofNullable(status);
+    }
+
+    long placedFrom() {
+        return placedFrom;
+    }
+
+    long placedTo() {
+        return placedTo;
+    }
+
+    boolean hasTimeRange() {
+        return placedFrom != Long.MIN_VALUE || placedTo != Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,29 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+/**
+ * An order as the service holds it: the public {@link CustomerOrder} view plus the state changes only the
+ * service may make. Implemented by the on-heap {@link StandardOrder} and by views into off-heap memory.
+ */
+interface OrderRecord extends CustomerOrder {
+
+    /**
+     * @return placement time without the defensive {@link java.util.Date} copy.
+     */
+    long placedAtMillis();
+
+    /**
+     * Atomically moves the order from {@code expected} to {@code next}.
+     * Only one of several racing callers can win a given transition.
+     *
+     * @return {@code true} if this call performed the transition.
+     */
+    boolean transition(OrderStatus expected, OrderStatus next);
+
+    default boolean isCancelled() {
+        return getStatus() == OrderStatus.CANCELLED;
+    }
+
+    default boolean isFulfilled() {
+        return getStatus() == OrderStatus.FULFILLED;
+    }
+}
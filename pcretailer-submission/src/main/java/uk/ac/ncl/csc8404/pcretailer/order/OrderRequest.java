@@ -0,0 +1,64 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable request to place one order, used by {@link OrderService#placeOrders(List)}.
+ */
+public final class OrderRequest {
+
+    // what the cart sends us before it becomes an actual order
+
+    private final Customer customer;
+    private final CreditCard paymentMethod;
+    private final List<OrderLine> orderLines;
+
+    private OrderRequest(Customer customer, CreditCard paymentMethod, List<OrderLine> orderLines) {
+        this.customer = customer;
+        this.paymentMethod = paymentMethod;
+        this.orderLines = orderLines;
+    }
+
+    /**
+     * Creates a validated order request.
+     *
+     * @param customer customer placing the order.
+     * @param card     credit card used for payment.
+     * @param lines    lines included in the order; copied once and shared with the resulting order.
+     * @return immutable request.
+     * @throws IllegalArgumentException if there are no lines.
+     */
+    public static OrderRequest of(Customer customer, CreditCard card, List<OrderLine> lines) {
+        Objects.requireNonNull(customer, "customer");
+        Objects.requireNonNull(card, "card");
+        Objects.requireNonNull(lines, "lines");
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("order must contain lines");
+        }
+        return new OrderRequest(customer, card, List.copyOf(lines));
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    public CreditCard getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public List<OrderLine> getOrderLines() {
+        return orderLines;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderRequest{" +
+                "customer=" + customer +
+                ", lines=" + orderLines +
+                '}';
+    }
+}
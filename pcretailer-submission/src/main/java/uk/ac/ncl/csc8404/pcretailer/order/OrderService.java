@@ -1,33 +1,91 @@
 package uk.ac.ncl.csc8404.pcretailer.order;
 
 import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
-import uk.ac.ncl.csc8404.pcretailer.model.ComputerModel;
-import uk.ac.ncl.csc8404.pcretailer.model.CustomComputerModel;
-import uk.ac.ncl.csc8404.pcretailer.model.PresetComputerModel;
+import uk.ac.ncl.csc8404.pcretailer.model.PartDictionary;
+import uk.ac.ncl.csc8404.pcretailer.order.journal.OrderEvent;
+import uk.ac.ncl.csc8404.pcretailer.order.journal.OrderJournal;
 import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Core service responsible for order lifecycle management and analytics.
+ * <p>
+ * The service is safe to call from many threads at once. Orders live in an {@link OrderStore} and each
+ * status change is a compare-and-set on the order itself, so a cancel racing a fulfil has exactly one winner.
+ * <p>
+ * Fulfilment bumps striped {@code LongAdder} counters without taking any shared lock. Readers of the
+ * analytics re-rank just the keys that moved since the previous read into leaderboards, so reading the
+ * current winners costs O(changed keys) plus O(1), and reading a top-N adds O(N).
+ * <p>
+ * Recent fulfilments are also counted in rings of per-minute and per-hour buckets read on the service clock,
+ * which back {@link #analytics(AnalyticsWindow)}. Those windows live in memory only and start empty after a restart.
+ * <p>
+ * With an {@link OrderJournal} configured, every accepted place, cancel and fulfil is appended to it and
+ * the journal is replayed on startup, after loading the newest {@link SnapshotStore snapshot} if one is configured.
+ * <p>
+ * With a {@link ColdOrderStore} configured, {@link #evictFinishedOrders()} moves old fulfilled and cancelled orders
+ * off the heap into compressed blocks on disk. Lookups by id, queries and snapshots still see them.
+ * <p>
+ * Besides lookup by id, orders are indexed by customer, status and placement time; {@link #findOrders(OrderQuery)}
+ * cuts the narrowest index to the requested time range in O(log n) and streams the matches lazily.
+ * <p>
+ * Placed orders are also filed by card expiry on a timing wheel, so {@link #sweepExpiredCards(ExpiredCardAction)}
+ * finds the ones whose card has lapsed since without scanning the rest.
+ * <p>
+ * Place, cancel, fulfil and analytics calls are timed into latency histograms and counted by outcome unless
+ * metrics are switched off in the config; {@link #metrics()} and {@link #mxBean()} publish them. The same calls
+ * emit JDK Flight Recorder events carrying the order id, customer id, line count and total quantity, which cost
+ * next to nothing unless a recording enables them.
  */
 public final class OrderService {
 
     //  this class glues things together
 
+    private static final IntFunction<String> PART_NAMES = PartDictionary.shared()::name;
+
     private final Supplier<Date> clock;
-    private final Map<UUID, StandardOrder> orders = new HashMap<>();
-    private final Map<Customer, Integer> fulfilledByCustomer = new HashMap<>();
-    private final Map<String, Map<String, Integer>> fulfilledPresetCounts = new TreeMap<>();
-    private final Map<String, Integer> fulfilledCustomParts = new TreeMap<>();
+    private final OrderJournal journal;
+    private final ColdOrderStore coldStore;
+    private final RecoveryStats recoveryStats;
+    private final ForkJoinPool fulfilmentPool = ForkJoinPool.commonPool();
+    private final OrderStore orders;
+    private final OrderIdGenerator idGenerator;
+    private final ServiceMetrics metrics;
+    private final OrderIndex index = new OrderIndex(this::lookup);
+    private final Object evictionLock = new Object();
+    // fulfilment threads only touch the striped counters; the leaderboards belong to readers under analyticsLock
+    private final StripedCounters<Customer> customerCounts = new StripedCounters<>();
+    private final StripedCounters<PresetModelKey> presetCounts = new StripedCounters<>();
+    private final StripedCounters<String> customPartCounts = new StripedCounters<>();
+    private final Object analyticsLock = new Object();
+    private final Leaderboard<Customer> customerBoard = new Leaderboard<>(OrderService::compareCustomers);
+    private final Leaderboard<PresetModelKey> presetBoard = new Leaderboard<>(OrderService::compareManufacturerModel);
+    private final Map<String, Leaderboard<String>> manufacturerBoards = new HashMap<>();
+    private final Leaderboard<String> customPartBoard = new Leaderboard<>(Comparator.naturalOrder());
+    // an hour of minutes and a week of hours; each window reads whichever ring is fine enough
+    private final WindowedCounters minuteBuckets = new WindowedCounters(TimeUnit.MINUTES.toMillis(1), 60);
+    private final WindowedCounters hourBuckets = new WindowedCounters(TimeUnit.HOURS.toMillis(1), 168);
 
     /**
      * Creates a service configured with the system clock.
@@ -42,7 +100,49 @@ public final class OrderService {
      * @param clock supplier used to obtain timestamps.
      */
     public OrderService(Supplier<Date> clock) {
-        this.clock = Objects.requireNonNull(clock, "clock");
+        this(OrderServiceConfig.defaults().withClock(clock));
+    }
+
+    /**
+     * Creates a service from the supplied settings. The newest snapshot, if configured, is loaded first and
+     * then the journal events written after it are replayed, so orders and analytics are rebuilt before the
+     * constructor returns. How long that took is reported by {@link #recoveryStats()}.
+     *
+     * @param config service settings.
+     * @throws UncheckedIOException if a snapshot exists but cannot be read.
+     */
+    public OrderService(OrderServiceConfig config) {
+        Objects.requireNonNull(config, "config");
+        this.clock = config.getClock();
+        this.journal = config.getJournal().orElse(null);
+        this.coldStore = config.getColdStore().orElse(null);
+        this.orders = config.isOffHeapOrders() ? new OffHeapOrderStore() : new HeapOrderStore();
+        this.idGenerator = config.getIdGenerator();
+        this.metrics = new ServiceMetrics(config.isMetrics());
+        SnapshotStore snapshots = config.getSnapshots().orElse(null);
+        if (journal == null && snapshots == null) {
+            this.recoveryStats = RecoveryStats.NONE;
+            return;
+        }
+        long started = System.nanoTime();
+        long snapshotSequence = 0;
+        int ordersRestored = 0;
+        if (snapshots != null) {
+            try {
+                Optional<SnapshotCodec.Contents> contents = snapshots.readLatest();
+                if (contents.isPresent()) {
+                    restoreSnapshot(contents.get());
+                    snapshotSequence = contents.get().sequence();
+                    ordersRestored = contents.get().orders().size();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("failed to load order snapshot", e);
+            }
+        }
+        long loaded = System.nanoTime();
+        long replayed = journal == null ? 0 : replayJournal(journal, snapshotSequence, journal.lastSequence());
+        this.recoveryStats = new RecoveryStats(snapshotSequence, ordersRestored, replayed,
+                Duration.ofNanos(loaded - started), Duration.ofNanos(System.nanoTime() - loaded));
     }
 
     /**
@@ -54,23 +154,101 @@ public final class OrderService {
      * @return immutable order record.
      */
     public CustomerOrder placeOrder(Customer customer, CreditCard card, List<OrderLine> lines) {
-        Objects.requireNonNull(customer, "customer");
-        Objects.requireNonNull(card, "card");
-        Objects.requireNonNull(lines, "lines");
-        if (lines.isEmpty()) {
-            throw new IllegalArgumentException("order must contain lines");
+        long started = metrics.start();
+        OrderPlacedEvent event = new OrderPlacedEvent();
+        event.begin();
+        try {
+            CustomerOrder order = place(customer, card, lines);
+            metrics.succeeded(OrderOperation.PLACE_ORDER, started);
+            event.end(order);
+            return order;
+        } catch (RuntimeException e) {
+            metrics.failed(OrderOperation.PLACE_ORDER, started, e);
+            throw e;
         }
+    }
 
+    private CustomerOrder place(Customer customer, CreditCard card, List<OrderLine> lines) {
+        OrderRequest request = OrderRequest.of(customer, card, lines);
         Date now = clock.get();
         if (!card.isValid(now)) {
             throw new IllegalArgumentException("credit card is expired");
         }
+        StandardOrder order = newOrder(request, now);
+        if (journal != null) {
+            journal.write(placedEvent(order));
+        }
+        // indexed before it is published, so no transition can race the index insert
+        index.add(order);
+        return orders.put(order);
+    }
 
-        List<OrderLine> safeLines = new ArrayList<>(lines);
-        UUID id = UUID.randomUUID();
-        StandardOrder order = new StandardOrder(id, customer, safeLines, card, now);
-        orders.put(id, order);
-        return order;
+    /**
+     * Places a batch of orders. The clock is read once for the whole batch, each distinct card is checked once
+     * and all accepted orders are inserted together. A rejected request does not affect the others.
+     *
+     * @param requests orders to place.
+     * @return one outcome per request, in request order; failures carry the exception {@link #placeOrder} would throw.
+     */
+    public List<OrderOutcome<CustomerOrder>> placeOrders(List<OrderRequest> requests) {
+        Objects.requireNonNull(requests, "requests");
+        Date now = clock.get();
+        // identity, not equals: a released and re-registered number can come back with a different expiry
+        Map<CreditCard, Boolean> checkedCards = new IdentityHashMap<>();
+        List<StandardOrder> placed = new ArrayList<>(requests.size());
+        List<OrderOutcome<CustomerOrder>> outcomes = new ArrayList<>(requests.size());
+        for (OrderRequest request : requests) {
+            try {
+                Objects.requireNonNull(request, "request");
+                if (!checkedCards.computeIfAbsent(request.getPaymentMethod(), card -> card.isValid(now))) {
+                    throw new IllegalArgumentException("credit card is expired");
+                }
+                placed.add(newOrder(request, now));
+                // filled in with the stored record below
+                outcomes.add(null);
+            } catch (RuntimeException e) {
+                outcomes.add(OrderOutcome.failure(e));
+            }
+        }
+        if (journal != null) {
+            List<OrderEvent> events = new ArrayList<>(placed.size());
+            for (StandardOrder order : placed) {
+                events.add(placedEvent(order));
+            }
+            journal.writeAll(events);
+        }
+        index.addAll(placed);
+        int next = 0;
+        for (int i = 0; i < outcomes.size(); i++) {
+            if (outcomes.get(i) == null) {
+                outcomes.set(i, OrderOutcome.success(orders.put(placed.get(next++))));
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Looks up an order by its identifier.
+     *
+     * @param orderId identifier of the order.
+     * @return the order, or empty if no such order exists.
+     */
+    public Optional<CustomerOrder> findOrder(UUID orderId) {
+        Objects.requireNonNull(orderId, "orderId");
+        return Optional.ofNullable(lookup(orderId));
+    }
+
+    /**
+     * Finds the orders matching every criterion of {@code query}, in placement order. The stream is lazy and
+     * weakly consistent: it reflects orders placed or changed while it is consumed on a best-effort basis,
+     * and never fails because of them.
+     *
+     * @param query criteria to match.
+     * @return matching orders, oldest first.
+     */
+    public Stream<CustomerOrder> findOrders(OrderQuery query) {
+        Objects.requireNonNull(query, "query");
+        return index.query(query).map(CustomerOrder.class::cast);
     }
 
     /**
@@ -79,11 +257,64 @@ public final class OrderService {
      * @param orderId identifier of the order.
      */
     public void cancelOrder(UUID orderId) {
-        StandardOrder order = requireOrder(orderId);
-        if (order.isFulfilled()) {
-            throw new IllegalStateException("cannot cancel a fulfilled order");
+        long started = metrics.start();
+        OrderCancelledEvent event = new OrderCancelledEvent();
+        event.begin();
+        try {
+            OrderRecord order = requireOrder(orderId);
+            cancel(order);
+            metrics.succeeded(OrderOperation.CANCEL_ORDER, started);
+            event.end(order);
+        } catch (RuntimeException e) {
+            metrics.failed(OrderOperation.CANCEL_ORDER, started, e);
+            throw e;
+        }
+    }
+
+    private void cancel(OrderRecord order) {
+        while (!tryCancel(order)) {
+            if (order.isFulfilled()) {
+                throw new IllegalStateException("cannot cancel a fulfilled order");
+            }
+            if (order.isCancelled()) {
+                return;
+            }
+            // back in PLACED: the transition we lost to was refused by the journal and undone
+        }
+    }
+
+    /**
+     * @return {@code true} if this call cancelled the order, {@code false} if it had already left PLACED.
+     */
+    private boolean tryCancel(OrderRecord order) {
+        if (!order.transition(OrderStatus.PLACED, OrderStatus.CANCELLED)) {
+            return false;
+        }
+        journalTransition(order, new OrderEvent.Cancelled(order.getId()), OrderStatus.CANCELLED);
+        index.moved(order, OrderStatus.PLACED, OrderStatus.CANCELLED);
+        return true;
+    }
+
+    /**
+     * Journals a transition out of PLACED that the caller has just won, and undoes it if the journal refuses
+     * the event, so memory never shows a change the journal refused. Under
+     * {@link uk.ac.ncl.csc8404.pcretailer.order.journal.JournalConfig.Durability#WRITTEN WRITTEN} durability the
+     * write returns once the event is queued, so a change the writer later fails on stays in memory until
+     * restart; the journal then refuses every later write. Indexes are moved only after this.
+     * <p>
+     * The undo puts the order back in PLACED, so a caller that lost the CAS to this transition may find the order
+     * placed again; it must retry the CAS rather than carry on as if it had won, as {@link #claimForFulfilment} does.
+     */
+    private void journalTransition(OrderRecord order, OrderEvent event, OrderStatus next) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.write(event);
+        } catch (RuntimeException e) {
+            order.transition(next, OrderStatus.PLACED);
+            throw e;
         }
-        order.markCancelled();
     }
 
     /**
@@ -93,147 +324,464 @@ public final class OrderService {
      * @return aggregated fulfilment plan.
      */
     public FulfillmentPlan fulfillOrder(UUID orderId) {
-        StandardOrder order = requireOrder(orderId);
-        if (order.isCancelled()) {
-            throw new IllegalStateException("cannot fulfil a cancelled order");
+        long started = metrics.start();
+        OrderFulfilledEvent event = new OrderFulfilledEvent();
+        event.begin();
+        try {
+            OrderRecord order = requireOrder(orderId);
+            FulfillmentPlan plan = fulfil(order);
+            metrics.succeeded(OrderOperation.FULFILL_ORDER, started);
+            event.end(order);
+            return plan;
+        } catch (RuntimeException e) {
+            metrics.failed(OrderOperation.FULFILL_ORDER, started, e);
+            throw e;
         }
-        if (order.isFulfilled()) {
-            throw new IllegalStateException("order already fulfilled");
+    }
+
+    private FulfillmentPlan fulfil(OrderRecord order) {
+        requirePlaced(order);
+
+        PlanAccumulator accumulator = new PlanAccumulator();
+        accumulator.addOrder(order);
+
+        // someone may have cancelled or fulfilled it while we were adding up, only the CAS winner counts
+        claimForFulfilment(order);
+        journalTransition(order, new OrderEvent.Fulfilled(order.getId()), OrderStatus.FULFILLED);
+        index.moved(order, OrderStatus.PLACED, OrderStatus.FULFILLED);
+        updateAnalytics(accumulator);
+        updateWindows(accumulator);
+        return accumulator.toPlan();
+    }
+
+    /**
+     * Fulfils many orders at once. Every order is claimed individually, the lines of all claimed orders are
+     * added up on the fork/join pool and the analytics are updated once for the whole batch. If the journal
+     * refuses the batch, every claim is undone and each claimed order's outcome carries the journal's error.
+     *
+     * @param orderIds identifiers of the orders to fulfil.
+     * @return combined plan for the orders that were fulfilled, plus one outcome per id in iteration order.
+     */
+    public BulkFulfillment fulfillOrders(Collection<UUID> orderIds) {
+        Objects.requireNonNull(orderIds, "orderIds");
+        List<OrderOutcome<CustomerOrder>> outcomes = new ArrayList<>(orderIds.size());
+        List<OrderRecord> claimed = new ArrayList<>(orderIds.size());
+        for (UUID orderId : orderIds) {
+            try {
+                OrderRecord order = requireOrder(orderId);
+                claimForFulfilment(order);
+                claimed.add(order);
+                outcomes.add(OrderOutcome.success(order));
+            } catch (RuntimeException e) {
+                outcomes.add(OrderOutcome.failure(e));
+            }
+        }
+        if (journal != null && !claimed.isEmpty()) {
+            List<OrderEvent> events = new ArrayList<>(claimed.size());
+            for (OrderRecord order : claimed) {
+                events.add(new OrderEvent.Fulfilled(order.getId()));
+            }
+            try {
+                journal.writeAll(events);
+            } catch (RuntimeException e) {
+                // none of the batch counts as fulfilled, same as a single fulfil whose write fails
+                for (OrderRecord order : claimed) {
+                    order.transition(OrderStatus.FULFILLED, OrderStatus.PLACED);
+                }
+                for (int i = 0; i < outcomes.size(); i++) {
+                    if (outcomes.get(i).isSuccess()) {
+                        outcomes.set(i, OrderOutcome.failure(e));
+                    }
+                }
+                claimed.clear();
+            }
+        }
+        for (OrderRecord order : claimed) {
+            index.moved(order, OrderStatus.PLACED, OrderStatus.FULFILLED);
         }
+        PlanAccumulator accumulator = fulfilmentPool.invoke(new PlanAccumulator.Task(claimed));
+        updateAnalytics(accumulator);
+        updateWindows(accumulator);
+        return new BulkFulfillment(accumulator.toPlan(), outcomes);
+    }
 
-        Map<String, Map<String, Integer>> presetAggregation = new TreeMap<>();
-        Map<String, Integer> customAggregation = new TreeMap<>();
+    /**
+     * Finds placed orders whose card has expired since they were placed, by reading the card-expiry timing wheel
+     * up to the service clock. Costs O(expired cards + their orders) rather than a scan of every order. Each order
+     * is reported by at most one sweep, so with {@link ExpiredCardAction#FLAG} later sweeps do not repeat it.
+     * If a sweep fails part way, for example because the journal refuses a cancellation, the order it failed on
+     * and every one after it are swept again next time. Orders it had already dealt with are not reported again,
+     * so callers that must hear of every order should use an {@link ExpirySweeper}, whose listener is told of
+     * each one as it is dealt with.
+     * Meant to be called periodically, for example by an {@link ExpirySweeper}.
+     *
+     * @param action cancel the orders or only report them.
+     * @return the affected orders; with {@link ExpiredCardAction#CANCEL}, only those this call cancelled.
+     */
+    public List<CustomerOrder> sweepExpiredCards(ExpiredCardAction action) {
+        List<CustomerOrder> affected = new ArrayList<>();
+        sweepExpiredCards(action, affected::add);
+        return affected;
+    }
 
-        for (OrderLine line : order.getOrderLines()) {
-            ComputerModel model = line.getModel();
-            if (model instanceof PresetComputerModel preset) {
-                aggregatePreset(line.getQuantity(), preset, presetAggregation);
-            } else if (model instanceof CustomComputerModel) {
-                aggregateCustom(line.getQuantity(), model, customAggregation);
-            } else {
-                aggregateCustom(line.getQuantity(), model, customAggregation);
+    /**
+     * Sweeps as {@link #sweepExpiredCards(ExpiredCardAction)} does, handing each affected order to
+     * {@code affected} as soon as it has been dealt with.
+     */
+    void sweepExpiredCards(ExpiredCardAction action, Consumer<? super CustomerOrder> affected) {
+        Objects.requireNonNull(action, "action");
+        List<UUID> expired = index.expiredCards(clock.get().getTime());
+        int next = 0;
+        try {
+            while (next < expired.size()) {
+                OrderRecord order = orders.get(expired.get(next));
+                // the wheel never fires early, so only orders fulfilled or cancelled in the meantime are skipped
+                boolean hit = order != null && order.getStatus() == OrderStatus.PLACED
+                        && (action == ExpiredCardAction.FLAG || tryCancel(order));
+                next++;
+                if (hit) {
+                    affected.accept(order);
+                }
+            }
+        } finally {
+            if (next < expired.size()) {
+                index.requeueExpiredCards(expired.subList(next, expired.size()));
             }
         }
+    }
 
-        order.markFulfilled();
-        updateAnalytics(order, presetAggregation, customAggregation);
-        return new FulfillmentPlan(presetAggregation, customAggregation);
+    /**
+     * Moves fulfilled and cancelled orders placed more than the cold store's
+     * {@link ColdOrderStore#finishedAge() finished age} ago off the heap and into the cold tier. Placed orders
+     * always stay on the heap. Does nothing without a cold store. Meant to be called periodically.
+     *
+     * @return number of orders moved.
+     * @throws UncheckedIOException if a block cannot be written; orders not yet written stay on the heap.
+     */
+    public int evictFinishedOrders() {
+        if (coldStore == null) {
+            return 0;
+        }
+        synchronized (evictionLock) {
+            long cutoff = clock.get().getTime() - coldStore.finishedAge().toMillis();
+            List<OrderRecord> finished = new ArrayList<>();
+            orders.forEach(order -> {
+                // finished orders never change again, so the copy on disk cannot go stale
+                if (order.getStatus() != OrderStatus.PLACED && order.placedAtMillis() < cutoff) {
+                    finished.add(order);
+                }
+            });
+            try {
+                coldStore.writeAll(finished);
+            } catch (IOException e) {
+                throw new UncheckedIOException("failed to move orders to the cold tier", e);
+            }
+            // written first, removed second: a lookup in between still finds the order on the heap
+            for (OrderRecord order : finished) {
+                orders.remove(order.getId());
+            }
+            return finished.size();
+        }
     }
 
     /**
      * @return immutable view of analytics computed so far.
      */
     public OrderAnalytics analytics() {
-        Customer largestCustomer = findLargestCustomer();
-        PresetSelection presetSelection = findTopPresetModel();
-        String presetModel = presetSelection == null ? null : presetSelection.model();
-        String manufacturer = presetSelection == null ? null : presetSelection.manufacturer();
-        String customPart = findTopCustomPart();
-        return new OrderAnalytics(largestCustomer, presetModel, manufacturer, customPart);
-    }
-
-    private String findTopCustomPart() {
-        String winner = null;
-        int winnerCount = 0;
-        for (Map.Entry<String, Integer> entry : fulfilledCustomParts.entrySet()) {
-            String part = entry.getKey();
-            int count = entry.getValue();
-            if (winner == null
-                    || count > winnerCount
-                    || (count == winnerCount && part.compareTo(winner) < 0)) {
-                winner = part;
-                winnerCount = count;
-            }
+        long started = metrics.start();
+        AnalyticsComputedEvent event = new AnalyticsComputedEvent();
+        event.begin();
+        try {
+            OrderAnalytics analytics = leaders();
+            metrics.succeeded(OrderOperation.ANALYTICS, started);
+            event.end(null);
+            return analytics;
+        } catch (RuntimeException e) {
+            metrics.failed(OrderOperation.ANALYTICS, started, e);
+            throw e;
+        }
+    }
+
+    private OrderAnalytics leaders() {
+        synchronized (analyticsLock) {
+            refreshBoards();
+            Customer largestCustomer = customerBoard.leader();
+            PresetModelKey preset = presetBoard.leader();
+            String presetModel = preset == null ? null : preset.model();
+            String manufacturer = preset == null ? null : preset.manufacturer();
+            String customPart = customPartBoard.leader();
+            return new OrderAnalytics(largestCustomer, presetModel, manufacturer, customPart);
         }
-        return winner;
-    }
-
-    private PresetSelection findTopPresetModel() {
-        String winnerManufacturer = null;
-        String winnerModel = null;
-        int winnerCount = 0;
-        for (Map.Entry<String, Map<String, Integer>> manufacturerEntry : fulfilledPresetCounts.entrySet()) {
-            String manufacturer = manufacturerEntry.getKey();
-            for (Map.Entry<String, Integer> modelEntry : manufacturerEntry.getValue().entrySet()) {
-                String model = modelEntry.getKey();
-                int count = modelEntry.getValue();
-                if (winnerModel == null
-                        || count > winnerCount
-                        || (count == winnerCount && compareManufacturerModel(
-                        manufacturer, model, winnerManufacturer, winnerModel) < 0)) {
-                    winnerManufacturer = manufacturer;
-                    winnerModel = model;
-                    winnerCount = count;
+    }
+
+    /**
+     * Analytics over fulfilments in a trailing window, with the same tie-breaks as {@link #analytics()}. The window
+     * moves a bucket at a time, a minute for {@link AnalyticsWindow#LAST_HOUR} and an hour for the longer ones, so
+     * it always includes the whole current bucket and reaches back up to one bucket less than its length.
+     *
+     * @param window how far back to look.
+     * @return leaders among orders fulfilled inside the window.
+     */
+    public OrderAnalytics analytics(AnalyticsWindow window) {
+        long started = metrics.start();
+        AnalyticsComputedEvent event = new AnalyticsComputedEvent();
+        event.begin();
+        try {
+            long length = Objects.requireNonNull(window, "window").getLength().toMillis();
+            WindowedCounters counters = length <= minuteBuckets.widthMillis() * minuteBuckets.buckets()
+                    ? minuteBuckets : hourBuckets;
+            int buckets = (int) Math.ceil((double) length / counters.widthMillis());
+            OrderAnalytics analytics = counters.leaders(clock.get().getTime(), buckets,
+                    OrderService::compareCustomers, OrderService::compareManufacturerModel, PART_NAMES);
+            metrics.succeeded(OrderOperation.ANALYTICS, started);
+            event.end(window);
+            return analytics;
+        } catch (RuntimeException e) {
+            metrics.failed(OrderOperation.ANALYTICS, started, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Snapshot of the service's metrics: latency percentiles and success and failure counts for
+     * {@link OrderOperation each timed call}, and how many orders are in each status.
+     *
+     * @return metrics as of now.
+     */
+    public OrderServiceMetrics metrics() {
+        return new OrderServiceMetrics(metrics.isEnabled(), metrics.snapshot(), index.statusCounts());
+    }
+
+    /**
+     * @return a JMX view of {@link #metrics()}, ready to register with an MBean server.
+     */
+    public OrderServiceMXBean mxBean() {
+        return new MetricsMXBean();
+    }
+
+    /**
+     * @param limit maximum number of entries to return.
+     * @return customers ranked by fulfilled orders, ties broken alphabetically by display name then identifier.
+     */
+    public List<Ranked<Customer>> topCustomers(int limit) {
+        synchronized (analyticsLock) {
+            refreshBoards();
+            return customerBoard.top(limit);
+        }
+    }
+
+    /**
+     * @param limit maximum number of entries to return.
+     * @return preset models ranked by fulfilled quantity, ties broken by manufacturer then model name.
+     */
+    public List<Ranked<PresetModelKey>> topPresetModels(int limit) {
+        synchronized (analyticsLock) {
+            refreshBoards();
+            return presetBoard.top(limit);
+        }
+    }
+
+    /**
+     * @param manufacturer manufacturer whose models should be ranked.
+     * @param limit        maximum number of entries to return.
+     * @return that manufacturer's models ranked by fulfilled quantity, ties broken by model name.
+     */
+    public List<Ranked<String>> topPresetModels(String manufacturer, int limit) {
+        Objects.requireNonNull(manufacturer, "manufacturer");
+        synchronized (analyticsLock) {
+            refreshBoards();
+            Leaderboard<String> board = manufacturerBoards.get(manufacturer);
+            return board == null ? List.of() : board.top(limit);
+        }
+    }
+
+    /**
+     * @param limit maximum number of entries to return.
+     * @return custom parts ranked by fulfilled quantity, ties broken alphabetically.
+     */
+    public List<Ranked<String>> topCustomParts(int limit) {
+        synchronized (analyticsLock) {
+            refreshBoards();
+            return customPartBoard.top(limit);
+        }
+    }
+
+    /**
+     * Publishes fulfilled totals to the striped counters. Never blocks on readers or other fulfilments.
+     */
+    private void updateAnalytics(PlanAccumulator accumulator) {
+        accumulator.ordersByCustomer().forEach(customerCounts::add);
+        accumulator.presetCounts().forEach(presetCounts::add);
+        accumulator.customPartCounts().forEach(
+                (partId, count) -> customPartCounts.add(partId, count, PART_NAMES));
+    }
+
+    private void updateWindows(PlanAccumulator accumulator) {
+        long now = clock.get().getTime();
+        minuteBuckets.add(now, accumulator);
+        hourBuckets.add(now, accumulator);
+    }
+
+    /**
+     * Re-ranks only the keys whose counters moved since the last read. Caller holds the analytics lock.
+     */
+    private void refreshBoards() {
+        customerCounts.drain(customerBoard::update);
+        presetCounts.drain((key, total) -> {
+            presetBoard.update(key, total);
+            manufacturerBoards.computeIfAbsent(key.manufacturer(), name -> new Leaderboard<>(Comparator.naturalOrder()))
+                    .update(key.model(), total);
+        });
+        customPartCounts.drain(customPartBoard::update);
+    }
+
+    /**
+     * @return how the service rebuilt its state on startup.
+     */
+    public RecoveryStats recoveryStats() {
+        return recoveryStats;
+    }
+
+    /**
+     * Rebuilds orders and analytics from journal events in {@code (afterSequence, upToSequence]}. Fulfilled
+     * orders are added up in one accumulator and applied to the leaderboards once at the end.
+     *
+     * @return number of events replayed.
+     */
+    long replayJournal(OrderJournal source, long afterSequence, long upToSequence) {
+        PlanAccumulator fulfilled = new PlanAccumulator();
+        long[] replayed = {0};
+        source.replay(afterSequence, upToSequence, event -> {
+            replayed[0]++;
+            if (event instanceof OrderEvent.Placed placed) {
+                StandardOrder order = new StandardOrder(placed.orderId(), placed.customer(),
+                        placed.lines(), placed.card(), placed.placedAtDate());
+                index.add(order);
+                orders.put(order);
+            } else {
+                OrderRecord order = orders.get(event.orderId());
+                if (order == null) {
+                    throw new IllegalStateException("journal refers to unknown order: " + event.orderId());
+                }
+                if (event instanceof OrderEvent.Cancelled) {
+                    if (order.transition(OrderStatus.PLACED, OrderStatus.CANCELLED)) {
+                        index.moved(order, OrderStatus.PLACED, OrderStatus.CANCELLED);
+                    }
+                } else if (order.transition(OrderStatus.PLACED, OrderStatus.FULFILLED)) {
+                    index.moved(order, OrderStatus.PLACED, OrderStatus.FULFILLED);
+                    fulfilled.addOrder(order);
                 }
             }
-        }
-        return winnerModel == null ? null : new PresetSelection(winnerManufacturer, winnerModel, winnerCount);
+        });
+        updateAnalytics(fulfilled);
+        return replayed[0];
     }
 
-    private Customer findLargestCustomer() {
-        Customer winner = null;
-        int winnerCount = 0;
-        for (Map.Entry<Customer, Integer> entry : fulfilledByCustomer.entrySet()) {
-            Customer candidate = entry.getKey();
-            int count = entry.getValue();
-            if (winner == null
-                    || count > winnerCount
-                    || (count == winnerCount && compareCustomers(candidate, winner) < 0)) {
-                winner = candidate;
-                winnerCount = count;
+    /**
+     * Captures the orders and counters for a snapshot. Only safe on a service nobody else is writing to,
+     * which is how {@link OrderSnapshotter} uses it.
+     */
+    SnapshotCodec.Contents snapshotContents(long sequence) {
+        synchronized (analyticsLock) {
+            refreshBoards();
+            List<OrderRecord> all = new ArrayList<>(orders.size());
+            orders.forEach(all::add);
+            if (coldStore != null) {
+                try {
+                    coldStore.forEach(all::add);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("failed to read the cold tier", e);
+                }
             }
+            return new SnapshotCodec.Contents(sequence, all,
+                    toList(customerBoard.entries()), toList(presetBoard.entries()), toList(customPartBoard.entries()));
         }
-        return winner;
     }
 
-    private void updateAnalytics(StandardOrder order,
-                                 Map<String, Map<String, Integer>> presetAggregation,
-                                 Map<String, Integer> customAggregation) {
-        fulfilledByCustomer.merge(order.getCustomer(), 1, Integer::sum);
-        for (Map.Entry<String, Map<String, Integer>> manufacturerEntry : presetAggregation.entrySet()) {
-            Map<String, Integer> models = fulfilledPresetCounts.computeIfAbsent(
-                    manufacturerEntry.getKey(), key -> new TreeMap<>());
-            for (Map.Entry<String, Integer> modelEntry : manufacturerEntry.getValue().entrySet()) {
-                models.merge(modelEntry.getKey(), modelEntry.getValue(), Integer::sum);
-            }
+    private void restoreSnapshot(SnapshotCodec.Contents contents) {
+        for (OrderRecord order : contents.orders()) {
+            index.add(order);
+            orders.put(order);
         }
-        for (Map.Entry<String, Integer> part : customAggregation.entrySet()) {
-            fulfilledCustomParts.merge(part.getKey(), part.getValue(), Integer::sum);
+        for (Ranked<Customer> entry : contents.customers()) {
+            customerCounts.add(entry.item(), entry.count());
+        }
+        for (Ranked<PresetModelKey> entry : contents.presets()) {
+            presetCounts.add(entry.item(), entry.count());
+        }
+        for (Ranked<String> entry : contents.parts()) {
+            customPartCounts.add(entry.item(), entry.count());
         }
     }
 
-    private void aggregateCustom(int quantity, ComputerModel model, Map<String, Integer> customAggregation) {
-        for (String part : model.getParts()) {
-            customAggregation.merge(part, quantity, Integer::sum);
-        }
+    private static <T> List<Ranked<T>> toList(Iterable<Ranked<T>> entries) {
+        List<Ranked<T>> list = new ArrayList<>();
+        entries.forEach(list::add);
+        return list;
     }
 
-    private void aggregatePreset(int quantity,
-                                 PresetComputerModel preset,
-                                 Map<String, Map<String, Integer>> presetAggregation) {
-        Map<String, Integer> models = presetAggregation.computeIfAbsent(
-                preset.getManufacturer(), key -> new TreeMap<>());
-        models.merge(preset.getName(), quantity, Integer::sum);
+    private static OrderEvent.Placed placedEvent(OrderRecord order) {
+        return new OrderEvent.Placed(order.getId(), order.getCustomer(), order.getPaymentMethod(),
+                order.getOrderLines(), order.getPlacedAt().getTime());
     }
 
-    private StandardOrder requireOrder(UUID orderId) {
+    private StandardOrder newOrder(OrderRequest request, Date placedAt) {
+        return new StandardOrder(idGenerator.next(placedAt.getTime()), request.getCustomer(),
+                request.getOrderLines(), request.getPaymentMethod(), placedAt);
+    }
+
+    /**
+     * @return the order from the heap or the cold tier, or null if there is no such order.
+     */
+    private OrderRecord lookup(UUID orderId) {
+        OrderRecord order = orders.get(orderId);
+        if (order != null || coldStore == null) {
+            return order;
+        }
+        try {
+            return coldStore.find(orderId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to read cold order " + orderId, e);
+        }
+    }
+
+    private OrderRecord requireOrder(UUID orderId) {
         Objects.requireNonNull(orderId, "orderId");
-        StandardOrder order = orders.get(orderId);
+        OrderRecord order = lookup(orderId);
         if (order == null) {
             throw new IllegalArgumentException("order not found: " + orderId);
         }
         return order;
     }
 
-    private int compareManufacturerModel(String manufacturerA, String modelA, String manufacturerB, String modelB) {
-        int manufacturerComparison = manufacturerA.compareTo(manufacturerB);
+    /**
+     * Moves a placed order to FULFILLED, or throws as {@link #requirePlaced} does. An order found in PLACED
+     * after a lost CAS had its winner undone by a failed journal write, so the CAS is tried again.
+     */
+    private static void claimForFulfilment(OrderRecord order) {
+        while (!order.transition(OrderStatus.PLACED, OrderStatus.FULFILLED)) {
+            requirePlaced(order);
+        }
+    }
+
+    private static void requirePlaced(OrderRecord order) {
+        if (order.isCancelled()) {
+            throw new IllegalStateException("cannot fulfil a cancelled order");
+        }
+        if (order.isFulfilled()) {
+            throw new IllegalStateException("order already fulfilled");
+        }
+    }
+
+    private static int compareManufacturerModel(PresetModelKey left, PresetModelKey right) {
+        int manufacturerComparison = left.manufacturer().compareTo(right.manufacturer());
         if (manufacturerComparison != 0) {
             return manufacturerComparison;
         }
-        return modelA.compareTo(modelB);
+        return left.model().compareTo(right.model());
     }
 
-    private int compareCustomers(Customer left, Customer right) {
+    private static int compareCustomers(Customer left, Customer right) {
         int byName = left.getDisplayName().compareTo(right.getDisplayName());
         if (byName != 0) {
             return byName;
@@ -241,6 +789,41 @@ public final class OrderService {
         return left.getIdentifier().compareTo(right.getIdentifier());
     }
 
-    private record PresetSelection(String manufacturer, String model, int quantity) {
+    /**
+     * Reads a fresh snapshot for every attribute, so a JMX console always shows current numbers.
+     */
+    private final class MetricsMXBean implements OrderServiceMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return metrics.isEnabled();
+        }
+
+        @Override
+        public OperationStats getPlaceOrder() {
+            return metrics().getOperation(OrderOperation.PLACE_ORDER);
+        }
+
+        @Override
+        public OperationStats getCancelOrder() {
+            return metrics().getOperation(OrderOperation.CANCEL_ORDER);
+        }
+
+        @Override
+        public OperationStats getFulfillOrder() {
+            return metrics().getOperation(OrderOperation.FULFILL_ORDER);
+        }
+
+        @Override
+        public OperationStats getAnalytics() {
+            return metrics().getOperation(OrderOperation.ANALYTICS);
+        }
+
+        @Override
+        public Map<String, Long> getOrdersByStatus() {
+            Map<String, Long> byName = new TreeMap<>();
+            index.statusCounts().forEach((status, count) -> byName.put(status.name(), count));
+            return byName;
+        }
     }
 }
@@ -0,0 +1,135 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.order.journal.OrderJournal;
+
+import java.util.Date;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Immutable settings for an {@link OrderService}. Start from {@link #defaults()} and adjust with the
+ * {@code with...} methods, each of which returns a new instance.
+ */
+public final class OrderServiceConfig {
+
+    // everything optional lives here so the constructors dont multiply
+
+    private final Supplier<Date> clock;
+    private final OrderJournal journal;
+    private final SnapshotStore snapshots;
+    private final ColdOrderStore coldStore;
+    private final boolean offHeapOrders;
+    private final OrderIdGenerator idGenerator;
+    private final boolean metrics;
+
+    private OrderServiceConfig(Supplier<Date> clock, OrderJournal journal, SnapshotStore snapshots,
+                               ColdOrderStore coldStore, boolean offHeapOrders, OrderIdGenerator idGenerator,
+                               boolean metrics) {
+        this.clock = clock;
+        this.journal = journal;
+        this.snapshots = snapshots;
+        this.coldStore = coldStore;
+        this.offHeapOrders = offHeapOrders;
+        this.idGenerator = idGenerator;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return system clock, no persistence, orders on the heap, time-ordered order ids and metrics on.
+     */
+    public static OrderServiceConfig defaults() {
+        return new OrderServiceConfig(Date::new, null, null, null, false, OrderIdGenerator.timeOrdered(), true);
+    }
+
+    /**
+     * @param clock supplier used to obtain timestamps.
+     */
+    public OrderServiceConfig withClock(Supplier<Date> clock) {
+        return new OrderServiceConfig(Objects.requireNonNull(clock, "clock"), journal, snapshots, coldStore,
+                offHeapOrders, idGenerator, metrics);
+    }
+
+    /**
+     * @param journal journal that every place, cancel and fulfil is appended to, and that is replayed when
+     *                the service starts. The caller stays responsible for closing it.
+     */
+    public OrderServiceConfig withJournal(OrderJournal journal) {
+        return new OrderServiceConfig(clock, Objects.requireNonNull(journal, "journal"), snapshots, coldStore,
+                offHeapOrders, idGenerator, metrics);
+    }
+
+    /**
+     * @param snapshots store whose newest snapshot is loaded on startup; only journal events after it are
+     *                  replayed.
+     */
+    public OrderServiceConfig withSnapshots(SnapshotStore snapshots) {
+        return new OrderServiceConfig(clock, journal, Objects.requireNonNull(snapshots, "snapshots"), coldStore,
+                offHeapOrders, idGenerator, metrics);
+    }
+
+    /**
+     * @param coldStore cold tier that {@link OrderService#evictFinishedOrders()} moves old finished orders into.
+     *                  The caller stays responsible for closing it.
+     */
+    public OrderServiceConfig withColdStore(ColdOrderStore coldStore) {
+        return new OrderServiceConfig(clock, journal, snapshots, Objects.requireNonNull(coldStore, "coldStore"),
+                offHeapOrders, idGenerator, metrics);
+    }
+
+    /**
+     * @param offHeapOrders whether in-memory orders are packed into direct memory instead of living on the heap
+     *                      as objects. Customers, cards and models stay on the heap either way; only the per-order
+     *                      data moves. Saves a lot of heap and GC work for large order books at the cost of decoding
+     *                      orders when they are read. The service's indexes stay on the heap, so heap use per
+     *                      order drops by about a third rather than to nothing; see {@link OrderIndex}.
+     */
+    public OrderServiceConfig withOffHeapOrders(boolean offHeapOrders) {
+        return new OrderServiceConfig(clock, journal, snapshots, coldStore, offHeapOrders, idGenerator, metrics);
+    }
+
+    /**
+     * @param idGenerator source of ids for new orders, e.g. {@link OrderIdGenerator#random()} for the old
+     *                    fully random ids.
+     */
+    public OrderServiceConfig withIdGenerator(OrderIdGenerator idGenerator) {
+        return new OrderServiceConfig(clock, journal, snapshots, coldStore, offHeapOrders,
+                Objects.requireNonNull(idGenerator, "idGenerator"), metrics);
+    }
+
+    /**
+     * @param metrics whether {@link OrderService#metrics()} times and counts operations. Status gauges are kept
+     *                either way.
+     */
+    public OrderServiceConfig withMetrics(boolean metrics) {
+        return new OrderServiceConfig(clock, journal, snapshots, coldStore, offHeapOrders, idGenerator, metrics);
+    }
+
+    public Supplier<Date> getClock() {
+        return clock;
+    }
+
+    public Optional<OrderJournal> getJournal() {
+        return Optional.ofNullable(journal);
+    }
+
+    public Optional<SnapshotStore> getSnapshots() {
+        return Optional.ofNullable(snapshots);
+    }
+
+    public Optional<ColdOrderStore> getColdStore() {
+        return Optional.ofNullable(coldStore);
+    }
+
+    public boolean isOffHeapOrders() {
+        return offHeapOrders;
+    }
+
+    public OrderIdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    public boolean isMetrics() {
+        return metrics;
+    }
+}
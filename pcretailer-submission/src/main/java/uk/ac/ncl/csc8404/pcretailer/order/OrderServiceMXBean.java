@@ -0,0 +1,25 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link OrderService#metrics()}. Get one from {@link OrderService#mxBean()} and register it with
+ * whichever MBean server and name suits the application. Every attribute read takes a fresh snapshot.
+ */
+public interface OrderServiceMXBean {
+
+    boolean isEnabled();
+
+    OperationStats getPlaceOrder();
+
+    OperationStats getCancelOrder();
+
+    OperationStats getFulfillOrder();
+
+    OperationStats getAnalytics();
+
+    /**
+     * @return number of orders in each status, keyed by status name.
+     */
+    Map<String, Long> getOrdersByStatus();
+}
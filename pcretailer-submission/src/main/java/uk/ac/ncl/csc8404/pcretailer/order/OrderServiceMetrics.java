@@ -0,0 +1,53 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Point-in-time copy of an {@link OrderService}'s metrics. Operation stats are empty when the service was
+ * built with metrics switched off; the status gauges are always filled in.
+ */
+public final class OrderServiceMetrics {
+
+    // a snapshot, so callers can diff two of them without racing the service
+
+    private final boolean enabled;
+    private final Map<OrderOperation, OperationStats> operations;
+    private final Map<OrderStatus, Long> ordersByStatus;
+
+    OrderServiceMetrics(boolean enabled, Map<OrderOperation, OperationStats> operations,
+                        Map<OrderStatus, Long> ordersByStatus) {
+        this.enabled = enabled;
+        this.operations = Collections.unmodifiableMap(new EnumMap<>(operations));
+        this.ordersByStatus = Collections.unmodifiableMap(new EnumMap<>(ordersByStatus));
+    }
+
+    /**
+     * @return whether operations were being timed and counted.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public OperationStats getOperation(OrderOperation operation) {
+        return operations.get(Objects.requireNonNull(operation, "operation"));
+    }
+
+    /**
+     * @return number of orders in each status, including orders moved to the cold tier.
+     */
+    public Map<OrderStatus, Long> getOrdersByStatus() {
+        return ordersByStatus;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderServiceMetrics{" +
+                "enabled=" + enabled +
+                ", operations=" + operations +
+                ", ordersByStatus=" + ordersByStatus +
+                '}';
+    }
+}
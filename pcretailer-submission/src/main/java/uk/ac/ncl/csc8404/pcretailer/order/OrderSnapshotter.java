@@ -0,0 +1,123 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.order.journal.OrderJournal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes point-in-time snapshots of the order book without touching the live {@link OrderService}.
+ * <p>
+ * Each snapshot is built off to the side: the newest existing snapshot is loaded into a private service,
+ * the journal events written since are replayed into it up to the journal's current end, and the result is
+ * saved as a snapshot for that sequence number. Live writers never wait for it; the price is holding a
+ * second copy of the state while a snapshot is being built.
+ */
+public final class OrderSnapshotter implements Closeable {
+
+    // build the copy on the side so nobody has to stop for it
+
+    private final OrderJournal journal;
+    private final SnapshotStore store;
+    private final boolean pruneJournal;
+    private ScheduledExecutorService scheduler;
+    private volatile Exception lastFailure;
+
+    /**
+     * @param journal journal the live service writes to.
+     * @param store   where snapshots are saved.
+     */
+    public OrderSnapshotter(OrderJournal journal, SnapshotStore store) {
+        this(journal, store, false);
+    }
+
+    /**
+     * @param journal      journal the live service writes to.
+     * @param store        where snapshots are saved.
+     * @param pruneJournal whether journal segments fully covered by every kept snapshot are deleted.
+     */
+    public OrderSnapshotter(OrderJournal journal, SnapshotStore store, boolean pruneJournal) {
+        this.journal = Objects.requireNonNull(journal, "journal");
+        this.store = Objects.requireNonNull(store, "store");
+        this.pruneJournal = pruneJournal;
+    }
+
+    /**
+     * Writes a snapshot covering every event journaled so far, unless the newest snapshot already does.
+     * Events still queued for the journal writer are flushed first.
+     *
+     * @return journal sequence number covered by the newest snapshot.
+     * @throws IOException           if the snapshot could not be read or written.
+     * @throws IllegalStateException if the journal has failed or is closed.
+     */
+    public synchronized long snapshot() throws IOException {
+        journal.flush();
+        long upTo = journal.lastSequence();
+        OptionalLong latest = store.latestSequence();
+        if (latest.isPresent() && latest.getAsLong() >= upTo) {
+            return latest.getAsLong();
+        }
+        OrderService shadow = new OrderService(OrderServiceConfig.defaults().withSnapshots(store));
+        shadow.replayJournal(journal, shadow.recoveryStats().snapshotSequence(), upTo);
+        store.write(shadow.snapshotContents(upTo));
+        if (pruneJournal) {
+            // only what every kept snapshot covers, so falling back to the older one loses nothing
+            journal.deleteSegmentsUpTo(store.oldestSequence().orElse(0));
+        }
+        return upTo;
+    }
+
+    /**
+     * Takes a snapshot every {@code period} on a background thread until {@link #close()} is called.
+     *
+     * @param period time between snapshots.
+     */
+    public synchronized void start(Duration period) {
+        Objects.requireNonNull(period, "period");
+        if (period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        if (scheduler != null) {
+            throw new IllegalStateException("snapshotter already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "order-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = period.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (IOException | RuntimeException e) {
+                // try again next round, the previous snapshot is still good
+                lastFailure = e;
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the error from the most recent failed background snapshot, if any.
+     */
+    public Optional<Exception> lastFailure() {
+        return Optional.ofNullable(lastFailure);
+    }
+
+    /**
+     * Stops periodic snapshots. A snapshot already running is allowed to finish.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Where an {@link OrderService} keeps the orders that live in memory. Implementations must be safe for
+ * concurrent use; iteration is weakly consistent, like a concurrent map's.
+ */
+interface OrderStore {
+
+    /**
+     * Stores a new order, or one restored from a snapshot.
+     *
+     * @return the record to hand out from now on; it reflects later status changes.
+     */
+    OrderRecord put(OrderRecord order);
+
+    /**
+     * @return the order with this id, or {@code null}.
+     */
+    OrderRecord get(UUID orderId);
+
+    void remove(UUID orderId);
+
+    void forEach(Consumer<OrderRecord> action);
+
+    int size();
+}
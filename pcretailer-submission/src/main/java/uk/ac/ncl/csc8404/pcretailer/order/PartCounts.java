@@ -0,0 +1,106 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.model.PartDictionary;
+
+import java.util.Arrays;
+
+/**
+ * Part quantities keyed by {@link PartDictionary} id. Ids and counts sit in parallel arrays in the order the
+ * parts were first added, found through a small open-addressed table, so memory, iterating and merging all
+ * cost O(parts counted) however large the dictionary grows. Not thread-safe.
+ */
+final class PartCounts {
+
+    // parallel int arrays plus a probe table, way cheaper than boxing into a map
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int size;
+    // position in ids + 1, 0 for a free slot; a power of two, kept at most half full
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * @param partId   dictionary id of the part.
+     * @param quantity positive quantity to add.
+     */
+    void add(int partId, int quantity) {
+        int slot = slot(partId);
+        int position = slots[slot] - 1;
+        if (position < 0) {
+            position = append(partId, slot);
+        }
+        counts[position] += quantity;
+    }
+
+    void addAll(PartCounts other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.ids[i], other.counts[i]);
+        }
+    }
+
+    /**
+     * @return count for the part, or 0 if it was never added.
+     */
+    int get(int partId) {
+        int position = slots[slot(partId)] - 1;
+        return position < 0 ? 0 : counts[position];
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < size; i++) {
+            visitor.visit(ids[i], counts[i]);
+        }
+    }
+
+    /**
+     * @return number of distinct parts counted.
+     */
+    int size() {
+        return size;
+    }
+
+    private int append(int partId, int slot) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+        }
+        int position = size++;
+        ids[position] = partId;
+        slots[slot] = position + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return position;
+    }
+
+    private int slot(int partId) {
+        int mask = slots.length - 1;
+        int slot = mix(partId) & mask;
+        while (slots[slot] != 0 && ids[slots[slot] - 1] != partId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        for (int i = 0; i < size; i++) {
+            slots[slot(ids[i])] = i + 1;
+        }
+    }
+
+    private static int mix(int partId) {
+        // dictionary ids are dense and sequential, spread them before masking
+        int h = partId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Receives one part id and its count.
+     */
+    interface Visitor {
+        void visit(int partId, int count);
+    }
+}
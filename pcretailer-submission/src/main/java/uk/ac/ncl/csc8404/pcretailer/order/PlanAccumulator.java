@@ -0,0 +1,111 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.model.ComputerModel;
+import uk.ac.ncl.csc8404.pcretailer.model.PresetComputerModel;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Mutable running totals for one or more orders being fulfilled. Partial accumulators built on
+ * different threads are combined with {@link #merge(PlanAccumulator)}. Not thread-safe on its own.
+ */
+final class PlanAccumulator {
+
+    // counts go in here first, the plan and analytics get built from it after
+
+    private final Map<PresetModelKey, Integer> presetCounts = new HashMap<>();
+    private final PartCounts customPartCounts = new PartCounts();
+    private final Map<Customer, Integer> ordersByCustomer = new HashMap<>();
+
+    /**
+     * Adds every line of the order and counts one fulfilled order for its customer.
+     */
+    void addOrder(CustomerOrder order) {
+        for (OrderLine line : order.getOrderLines()) {
+            addLine(line);
+        }
+        ordersByCustomer.merge(order.getCustomer(), 1, Integer::sum);
+    }
+
+    void addLine(OrderLine line) {
+        ComputerModel model = line.getModel();
+        int quantity = line.getQuantity();
+        if (model instanceof PresetComputerModel preset) {
+            presetCounts.merge(PresetModelKey.of(preset), quantity, Integer::sum);
+        } else {
+            // custom models and anything else without a manufacturer are picked part by part
+            model.forEachPartId(partId -> customPartCounts.add(partId, quantity));
+        }
+    }
+
+    /**
+     * Folds the totals of {@code other} into this accumulator.
+     *
+     * @return this accumulator.
+     */
+    PlanAccumulator merge(PlanAccumulator other) {
+        other.presetCounts.forEach((preset, count) -> presetCounts.merge(preset, count, Integer::sum));
+        customPartCounts.addAll(other.customPartCounts);
+        other.ordersByCustomer.forEach((customer, count) -> ordersByCustomer.merge(customer, count, Integer::sum));
+        return this;
+    }
+
+    Map<PresetModelKey, Integer> presetCounts() {
+        return presetCounts;
+    }
+
+    PartCounts customPartCounts() {
+        return customPartCounts;
+    }
+
+    Map<Customer, Integer> ordersByCustomer() {
+        return ordersByCustomer;
+    }
+
+    FulfillmentPlan toPlan() {
+        return FulfillmentPlan.of(presetCounts, customPartCounts);
+    }
+
+    /**
+     * Splits a list of orders in halves until the slices are small, accumulates each slice and merges on the way up.
+     */
+    @SuppressWarnings("serial") // never serialized, only forked
+    static final class Task extends RecursiveTask<PlanAccumulator> {
+
+        private static final int SEQUENTIAL_THRESHOLD = 64;
+
+        private final List<? extends CustomerOrder> orders;
+        private final int from;
+        private final int to;
+
+        Task(List<? extends CustomerOrder> orders) {
+            this(orders, 0, orders.size());
+        }
+
+        private Task(List<? extends CustomerOrder> orders, int from, int to) {
+            this.orders = orders;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PlanAccumulator compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                PlanAccumulator accumulator = new PlanAccumulator();
+                for (int i = from; i < to; i++) {
+                    accumulator.addOrder(orders.get(i));
+                }
+                return accumulator;
+            }
+            int middle = (from + to) >>> 1;
+            Task left = new Task(orders, from, middle);
+            left.fork();
+            PlanAccumulator right = new Task(orders, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
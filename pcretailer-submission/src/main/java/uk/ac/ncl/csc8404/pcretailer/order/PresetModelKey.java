@@ -0,0 +1,38 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.model.PresetComputerModel;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Identifies a preset model by manufacturer and model name inside rankings.
+ *
+ * @param manufacturer manufacturer of the preset.
+ * @param model        model name.
+ */
+public record PresetModelKey(String manufacturer, String model) {
+
+    // same model name from two makers is two different things
+
+    private static final ConcurrentMap<PresetComputerModel, PresetModelKey> BY_MODEL = new ConcurrentHashMap<>();
+
+    public PresetModelKey {
+        Objects.requireNonNull(manufacturer, "manufacturer");
+        Objects.requireNonNull(model, "model");
+    }
+
+    /**
+     * Returns the key of a preset, created the first time the preset is seen and shared after that, so counting
+     * fulfilled lines does not allocate a key per line. Looked up by the preset's own hash, which
+     * {@link uk.ac.ncl.csc8404.pcretailer.model.PresetModel} caches.
+     */
+    static PresetModelKey of(PresetComputerModel preset) {
+        PresetModelKey key = BY_MODEL.get(preset);
+        if (key == null) {
+            key = BY_MODEL.computeIfAbsent(preset, p -> new PresetModelKey(p.getManufacturer(), p.getName()));
+        }
+        return key;
+    }
+}
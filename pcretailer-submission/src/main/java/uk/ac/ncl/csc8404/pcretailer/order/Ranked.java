@@ -0,0 +1,19 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.Objects;
+
+/**
+ * One row of a ranking produced by {@link OrderService}: the ranked item and its fulfilled count.
+ *
+ * @param item  the ranked item.
+ * @param count fulfilled quantity (or number of orders for customers).
+ * @param <T>   type of the ranked item.
+ */
+public record Ranked<T>(T item, long count) {
+
+    // tiny pair, nothing fancy
+
+    public Ranked {
+        Objects.requireNonNull(item, "item");
+    }
+}
@@ -0,0 +1,30 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.time.Duration;
+
+/**
+ * How an {@link OrderService} rebuilt its state on startup.
+ *
+ * @param snapshotSequence journal sequence covered by the snapshot that was loaded, or {@code 0} if none was.
+ * @param ordersRestored   number of orders read from the snapshot.
+ * @param eventsReplayed   number of journal events replayed after the snapshot.
+ * @param snapshotLoad     time spent reading the snapshot.
+ * @param journalReplay    time spent replaying the journal.
+ */
+public record RecoveryStats(long snapshotSequence,
+                            int ordersRestored,
+                            long eventsReplayed,
+                            Duration snapshotLoad,
+                            Duration journalReplay) {
+
+    // so we can actually see how long a restart took
+
+    static final RecoveryStats NONE = new RecoveryStats(0, 0, 0, Duration.ZERO, Duration.ZERO);
+
+    /**
+     * @return total startup time spent on recovery.
+     */
+    public Duration total() {
+        return snapshotLoad.plus(journalReplay);
+    }
+}
@@ -0,0 +1,80 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timers and counters behind {@link OrderService#metrics()}. A successful call costs two {@link System#nanoTime()}
+ * reads, one histogram increment and one adder increment, and allocates nothing. When switched off every method
+ * returns straight away.
+ */
+final class ServiceMetrics {
+
+    // cheap enough to leave on, and a no-op when it is not
+
+    private static final OrderOperation[] OPERATIONS = OrderOperation.values();
+
+    private final boolean enabled;
+    private final Probe[] probes = new Probe[OPERATIONS.length];
+
+    ServiceMetrics(boolean enabled) {
+        this.enabled = enabled;
+        // the histograms are a few hundred kilobytes, so a switched-off service does not create them
+        for (int i = 0; enabled && i < probes.length; i++) {
+            probes[i] = new Probe();
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the start time to pass back to {@link #succeeded} or {@link #failed}.
+     */
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    void succeeded(OrderOperation operation, long started) {
+        if (enabled) {
+            Probe probe = probes[operation.ordinal()];
+            probe.latency.record(System.nanoTime() - started);
+            probe.successes.increment();
+        }
+    }
+
+    void failed(OrderOperation operation, long started, Throwable failure) {
+        if (enabled) {
+            Probe probe = probes[operation.ordinal()];
+            probe.latency.record(System.nanoTime() - started);
+            probe.failures.computeIfAbsent(failure.getClass(), type -> new LongAdder()).increment();
+        }
+    }
+
+    Map<OrderOperation, OperationStats> snapshot() {
+        Map<OrderOperation, OperationStats> stats = new EnumMap<>(OrderOperation.class);
+        for (OrderOperation operation : OPERATIONS) {
+            Probe probe = probes[operation.ordinal()];
+            if (probe == null) {
+                stats.put(operation, new OperationStats(0, Map.of(), 0, 0, 0, 0));
+                continue;
+            }
+            Map<String, Long> failures = new TreeMap<>();
+            probe.failures.forEach((type, count) -> failures.put(type.getName(), count.sum()));
+            LatencyHistogram.Snapshot latency = probe.latency.snapshot();
+            stats.put(operation, new OperationStats(probe.successes.sum(), failures,
+                    latency.valueAt(0.5), latency.valueAt(0.99), latency.valueAt(0.999), latency.max()));
+        }
+        return stats;
+    }
+
+    private static final class Probe {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder successes = new LongAdder();
+        private final Map<Class<?>, LongAdder> failures = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,216 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.model.ComputerModel;
+import uk.ac.ncl.csc8404.pcretailer.model.CustomModel;
+import uk.ac.ncl.csc8404.pcretailer.model.PresetCatalog;
+import uk.ac.ncl.csc8404.pcretailer.model.PresetComputerModel;
+import uk.ac.ncl.csc8404.pcretailer.model.PresetModel;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Binary layout of an order book snapshot. Customers, cards and models are written once into tables and
+ * orders refer to them by index, which keeps the file small when millions of lines share a few models.
+ * <pre>
+ * magic, version, sequence
+ * customers: count, (id, name)*
+ * cards:     count, (number, expiry, holder)*
+ * models:    count, (kind, [manufacturer], name, partCount, part*)*
+ * orders:    count, (msb, lsb, customer, card, placedAt, status, lineCount, (model, quantity)*)*
+ * counters:  customers (customer, count)*, presets (manufacturer, model, count)*, parts (part, count)*
+ * </pre>
+ */
+final class SnapshotCodec {
+
+    // tables first so the orders themselves are mostly ints
+
+    private static final int MAGIC = 0x50435253;
+    private static final short VERSION = 1;
+    private static final byte PRESET = 1;
+    private static final byte CUSTOM = 2;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private SnapshotCodec() {
+    }
+
+    static void write(DataOutput out, Contents contents) throws IOException {
+        Map<Customer, Integer> customers = new HashMap<>();
+        Map<CreditCard, Integer> cards = new HashMap<>();
+        Map<ComputerModel, Integer> models = new HashMap<>();
+        List<Customer> customerTable = new ArrayList<>();
+        List<CreditCard> cardTable = new ArrayList<>();
+        List<ComputerModel> modelTable = new ArrayList<>();
+        for (OrderRecord order : contents.orders()) {
+            index(customers, customerTable, order.getCustomer());
+            index(cards, cardTable, order.getPaymentMethod());
+            for (OrderLine line : order.getOrderLines()) {
+                index(models, modelTable, line.getModel());
+            }
+        }
+        for (Ranked<Customer> entry : contents.customers()) {
+            index(customers, customerTable, entry.item());
+        }
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(contents.sequence());
+        out.writeInt(customerTable.size());
+        for (Customer customer : customerTable) {
+            out.writeUTF(customer.getIdentifier());
+            out.writeUTF(customer.getDisplayName());
+        }
+        out.writeInt(cardTable.size());
+        for (CreditCard card : cardTable) {
+            out.writeInt(Integer.parseInt(card.getNumber()));
+            out.writeLong(card.getExpiry().getTime());
+            out.writeUTF(card.getHolderName());
+        }
+        out.writeInt(modelTable.size());
+        for (ComputerModel model : modelTable) {
+            writeModel(out, model);
+        }
+        out.writeInt(contents.orders().size());
+        for (OrderRecord order : contents.orders()) {
+            out.writeLong(order.getId().getMostSignificantBits());
+            out.writeLong(order.getId().getLeastSignificantBits());
+            out.writeInt(customers.get(order.getCustomer()));
+            out.writeInt(cards.get(order.getPaymentMethod()));
+            out.writeLong(order.placedAtMillis());
+            out.writeByte(order.getStatus().ordinal());
+            out.writeInt(order.getOrderLines().size());
+            for (OrderLine line : order.getOrderLines()) {
+                out.writeInt(models.get(line.getModel()));
+                out.writeInt(line.getQuantity());
+            }
+        }
+        out.writeInt(contents.customers().size());
+        for (Ranked<Customer> entry : contents.customers()) {
+            out.writeInt(customers.get(entry.item()));
+            out.writeLong(entry.count());
+        }
+        out.writeInt(contents.presets().size());
+        for (Ranked<PresetModelKey> entry : contents.presets()) {
+            out.writeUTF(entry.item().manufacturer());
+            out.writeUTF(entry.item().model());
+            out.writeLong(entry.count());
+        }
+        out.writeInt(contents.parts().size());
+        for (Ranked<String> entry : contents.parts()) {
+            out.writeUTF(entry.item());
+            out.writeLong(entry.count());
+        }
+    }
+
+    static Contents read(DataInput in, CreditCardFactory cardFactory) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not an order snapshot");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("unsupported snapshot version " + version);
+        }
+        long sequence = in.readLong();
+        Customer[] customers = new Customer[in.readInt()];
+        for (int i = 0; i < customers.length; i++) {
+            customers[i] = Customer.of(in.readUTF(), in.readUTF());
+        }
+        CreditCard[] cards = new CreditCard[in.readInt()];
+        for (int i = 0; i < cards.length; i++) {
+            String number = String.format("%08d", in.readInt());
+            Date expiry = new Date(in.readLong());
+            cards[i] = cardFactory.restore(number, expiry, in.readUTF());
+        }
+        ComputerModel[] models = new ComputerModel[in.readInt()];
+        for (int i = 0; i < models.length; i++) {
+            models[i] = readModel(in);
+        }
+        int orderCount = in.readInt();
+        List<StandardOrder> orders = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            UUID id = new UUID(in.readLong(), in.readLong());
+            Customer customer = customers[in.readInt()];
+            CreditCard card = cards[in.readInt()];
+            Date placedAt = new Date(in.readLong());
+            OrderStatus status = STATUSES[in.readByte()];
+            OrderLine[] lines = new OrderLine[in.readInt()];
+            for (int j = 0; j < lines.length; j++) {
+                lines[j] = OrderLine.of(models[in.readInt()], in.readInt());
+            }
+            StandardOrder order = new StandardOrder(id, customer, List.of(lines), card, placedAt);
+            order.transition(OrderStatus.PLACED, status);
+            orders.add(order);
+        }
+        List<Ranked<Customer>> customerCounts = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            customerCounts.add(new Ranked<>(customers[in.readInt()], in.readLong()));
+        }
+        List<Ranked<PresetModelKey>> presetCounts = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            presetCounts.add(new Ranked<>(new PresetModelKey(in.readUTF(), in.readUTF()), in.readLong()));
+        }
+        List<Ranked<String>> partCounts = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            partCounts.add(new Ranked<>(in.readUTF(), in.readLong()));
+        }
+        return new Contents(sequence, orders, customerCounts, presetCounts, partCounts);
+    }
+
+    static void writeModel(DataOutput out, ComputerModel model) throws IOException {
+        if (model instanceof PresetComputerModel preset) {
+            out.writeByte(PRESET);
+            out.writeUTF(preset.getManufacturer());
+        } else {
+            out.writeByte(CUSTOM);
+        }
+        out.writeUTF(model.getName());
+        Set<String> parts = model.getParts();
+        out.writeInt(parts.size());
+        for (String part : parts) {
+            out.writeUTF(part);
+        }
+    }
+
+    static ComputerModel readModel(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        String manufacturer = kind == PRESET ? in.readUTF() : null;
+        String name = in.readUTF();
+        List<String> parts = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            parts.add(in.readUTF());
+        }
+        if (kind == PRESET) {
+            return PresetCatalog.shared().canonical(PresetModel.of(manufacturer, name, parts));
+        }
+        return CustomModel.of(name, parts);
+    }
+
+    private static <T> void index(Map<T, Integer> indexes, List<T> table, T value) {
+        if (!indexes.containsKey(value)) {
+            indexes.put(value, table.size());
+            table.add(value);
+        }
+    }
+
+    /**
+     * Everything a snapshot holds: the journal position it covers, every order and the analytics counters.
+     */
+    record Contents(long sequence,
+                    Collection<? extends OrderRecord> orders,
+                    List<Ranked<Customer>> customers,
+                    List<Ranked<PresetModelKey>> presets,
+                    List<Ranked<String>> parts) {
+    }
+}
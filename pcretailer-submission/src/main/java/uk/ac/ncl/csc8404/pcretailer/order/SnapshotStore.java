@@ -0,0 +1,165 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Directory of binary order book snapshots, each named after the journal sequence number it covers.
+ * Files are written to a temporary name, forced and then renamed, and end with a CRC32C so a damaged
+ * newest snapshot falls back to the one before it. The two newest snapshots are kept, so the journal must
+ * keep every event after the older of them; see {@link #oldestSequence()}.
+ */
+public final class SnapshotStore {
+
+    // newest good file wins, older ones get binned
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int RETAINED = 2;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final Path directory;
+    private final CreditCardFactory cardFactory;
+
+    /**
+     * @param directory directory holding snapshot files; created on first write.
+     */
+    public SnapshotStore(Path directory) {
+        this(directory, new CreditCardFactory());
+    }
+
+    /**
+     * @param directory   directory holding snapshot files; created on first write.
+     * @param cardFactory factory that card numbers found in snapshots are restored into.
+     */
+    public SnapshotStore(Path directory, CreditCardFactory cardFactory) {
+        this.directory = Objects.requireNonNull(directory, "directory");
+        this.cardFactory = Objects.requireNonNull(cardFactory, "cardFactory");
+    }
+
+    /**
+     * @return journal sequence number covered by the newest snapshot file, if any.
+     * @throws IOException if the directory cannot be listed.
+     */
+    public OptionalLong latestSequence() throws IOException {
+        TreeMap<Long, Path> snapshots = list();
+        return snapshots.isEmpty() ? OptionalLong.empty() : OptionalLong.of(snapshots.lastKey());
+    }
+
+    /**
+     * @return journal sequence number covered by the oldest snapshot kept, the one {@link #readLatest()}
+     * falls back to last; journal events after it are still needed.
+     */
+    OptionalLong oldestSequence() throws IOException {
+        TreeMap<Long, Path> snapshots = list();
+        return snapshots.isEmpty() ? OptionalLong.empty() : OptionalLong.of(snapshots.firstKey());
+    }
+
+    void write(SnapshotCodec.Contents contents) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, contents.sequence(), SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            SnapshotCodec.write(out, contents);
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        prune();
+    }
+
+    /**
+     * Reads the newest snapshot that passes its checksum. A file is checked in full before any of it is
+     * decoded, so a damaged one restores no cards into the factory.
+     */
+    Optional<SnapshotCodec.Contents> readLatest() throws IOException {
+        IOException lastFailure = null;
+        for (Path file : list().descendingMap().values()) {
+            try {
+                return Optional.of(read(file));
+            } catch (IOException e) {
+                lastFailure = e;
+            }
+        }
+        if (lastFailure != null) {
+            throw lastFailure;
+        }
+        return Optional.empty();
+    }
+
+    private SnapshotCodec.Contents read(Path file) throws IOException {
+        verify(file);
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES)) {
+            return SnapshotCodec.read(new DataInputStream(raw), cardFactory);
+        }
+    }
+
+    private static void verify(Path file) throws IOException {
+        try (InputStream raw = Files.newInputStream(file)) {
+            long remaining = Files.size(file) - Long.BYTES;
+            CRC32C crc = new CRC32C();
+            byte[] buffer = new byte[BUFFER_BYTES];
+            while (remaining > 0) {
+                int read = raw.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new IOException("snapshot truncated: " + file);
+                }
+                crc.update(buffer, 0, read);
+                remaining -= read;
+            }
+            if (remaining < 0 || new DataInputStream(raw).readLong() != crc.getValue()) {
+                throw new IOException("snapshot checksum mismatch: " + file);
+            }
+        }
+    }
+
+    private void prune() throws IOException {
+        TreeMap<Long, Path> snapshots = list();
+        while (snapshots.size() > RETAINED) {
+            Files.deleteIfExists(snapshots.pollFirstEntry().getValue());
+        }
+    }
+
+    private TreeMap<Long, Path> list() throws IOException {
+        TreeMap<Long, Path> snapshots = new TreeMap<>();
+        if (!Files.isDirectory(directory)) {
+            return snapshots;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    snapshots.put(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())), file);
+                } catch (NumberFormatException ignored) {
+                    // not one of ours
+                }
+            }
+        }
+        return snapshots;
+    }
+}
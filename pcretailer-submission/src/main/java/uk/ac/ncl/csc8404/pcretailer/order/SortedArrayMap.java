@@ -0,0 +1,84 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Read-only map view over a sorted slice of a {@code String[]}. Lookups binary-search the keys and
+ * iteration walks them in order; the value for key slot {@code i} comes from {@code valueAt.apply(i)}.
+ * Nothing is copied, so the arrays must not change afterwards.
+ *
+ * @param <V> value type.
+ */
+final class SortedArrayMap<V> extends AbstractMap<String, V> {
+
+    // a TreeMap without the tree
+
+    private final String[] keys;
+    private final int from;
+    private final int to;
+    private final IntFunction<V> valueAt;
+
+    SortedArrayMap(String[] keys, int from, int to, IntFunction<V> valueAt) {
+        this.keys = keys;
+        this.from = from;
+        this.to = to;
+        this.valueAt = valueAt;
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : valueAt.apply(index);
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, V>> iterator() {
+                return new Iterator<>() {
+                    private int next = from;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < to;
+                    }
+
+                    @Override
+                    public Entry<String, V> next() {
+                        if (next >= to) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next++;
+                        return new SimpleImmutableEntry<>(keys[index], valueAt.apply(index));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        return key instanceof String text ? Arrays.binarySearch(keys, from, to, text) : -1;
+    }
+}
@@ -3,8 +3,8 @@ package uk.ac.ncl.csc8404.pcretailer.order;
 import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
 import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
@@ -13,21 +13,32 @@ import java.util.UUID;
 /**
  * Default immutable order implementation with controlled state transitions.
  */
-final class StandardOrder implements CustomerOrder {
+final class StandardOrder implements OrderRecord {
 
     // keep order state under control or bugs get wild
 
+    private static final VarHandle STATUS;
+
+    static {
+        try {
+            STATUS = MethodHandles.lookup().findVarHandle(StandardOrder.class, "status", OrderStatus.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final UUID id;
     private final Customer customer;
     private final List<OrderLine> orderLines;
     private final CreditCard paymentMethod;
     private final Date placedAt;
-    private OrderStatus status;
+    private volatile OrderStatus status;
 
     StandardOrder(UUID id, Customer customer, List<OrderLine> lines, CreditCard paymentMethod, Date placedAt) {
         this.id = Objects.requireNonNull(id, "id");
         this.customer = Objects.requireNonNull(customer, "customer");
-        this.orderLines = Collections.unmodifiableList(new ArrayList<>(Objects.requireNonNull(lines, "lines")));
+        // List.copyOf hands back the same list when it is already immutable, so requests are not copied twice
+        this.orderLines = List.copyOf(Objects.requireNonNull(lines, "lines"));
         this.paymentMethod = Objects.requireNonNull(paymentMethod, "paymentMethod");
         this.placedAt = new Date(Objects.requireNonNull(placedAt, "placedAt").getTime());
         if (orderLines.isEmpty()) {
@@ -62,24 +73,18 @@ final class StandardOrder implements CustomerOrder {
     }
 
     @Override
-    public OrderStatus getStatus() {
-        return status;
-    }
-
-    void markCancelled() {
-        status = OrderStatus.CANCELLED;
-    }
-
-    void markFulfilled() {
-        status = OrderStatus.FULFILLED;
+    public long placedAtMillis() {
+        return placedAt.getTime();
     }
 
-    boolean isCancelled() {
-        return status == OrderStatus.CANCELLED;
+    @Override
+    public OrderStatus getStatus() {
+        return status;
     }
 
-    boolean isFulfilled() {
-        return status == OrderStatus.FULFILLED;
+    @Override
+    public boolean transition(OrderStatus expected, OrderStatus next) {
+        return STATUS.compareAndSet(this, expected, next);
     }
 
     @Override
@@ -87,10 +92,11 @@ final class StandardOrder implements CustomerOrder {
         if (this == o) {
             return true;
         }
-        if (!(o instanceof StandardOrder that)) {
+        // views of the same order in another store are equal to it
+        if (!(o instanceof OrderRecord that)) {
             return false;
         }
-        return id.equals(that.id);
+        return id.equals(that.getId());
     }
 
     @Override
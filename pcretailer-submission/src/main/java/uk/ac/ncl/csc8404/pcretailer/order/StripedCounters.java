@@ -0,0 +1,108 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Per-key counters that many threads can bump without a shared lock. Each key has a {@link LongAdder}
+ * cell, and the first bump after a read marks the cell dirty and queues it once. Readers
+ * {@link #drain(Sink) drain} the queue to learn which totals moved, which lets a {@link Leaderboard}
+ * re-rank only the keys that changed.
+ * <p>
+ * Keys with a dense int form, such as part ids, can also be reached through {@link #add(int, long, IntFunction)},
+ * which finds the cell by array index instead of hashing.
+ *
+ * @param <K> counter key.
+ */
+final class StripedCounters<K> {
+
+    // lots of threads bump, one reader tidies up after them
+
+    private final Map<K, Cell<K>> cells = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Cell<K>> dirty = new ConcurrentLinkedQueue<>();
+    private volatile Cell<K>[] byIndex = newArray(0);
+
+    void add(K key, long delta) {
+        Cell<K> cell = cells.get(key);
+        if (cell == null) {
+            cell = cells.computeIfAbsent(key, Cell::new);
+        }
+        bump(cell, delta);
+    }
+
+    /**
+     * Adds to the counter whose key has dense index {@code index}.
+     *
+     * @param keyForIndex resolves the key the first time an index is seen.
+     */
+    void add(int index, long delta, IntFunction<K> keyForIndex) {
+        Cell<K>[] table = byIndex;
+        Cell<K> cell = index < table.length ? table[index] : null;
+        if (cell == null) {
+            cell = indexCell(index, keyForIndex);
+        }
+        bump(cell, delta);
+    }
+
+    /**
+     * Hands every key bumped since the previous drain to {@code sink} with its current total.
+     * Only one thread should drain at a time.
+     */
+    void drain(Sink<K> sink) {
+        Cell<K> cell;
+        while ((cell = dirty.poll()) != null) {
+            // clear before reading so a bump racing with us queues the cell again
+            cell.dirty.set(false);
+            sink.accept(cell.key, cell.count.sum());
+        }
+    }
+
+    private void bump(Cell<K> cell, long delta) {
+        cell.count.add(delta);
+        if (!cell.dirty.get() && cell.dirty.compareAndSet(false, true)) {
+            dirty.add(cell);
+        }
+    }
+
+    private synchronized Cell<K> indexCell(int index, IntFunction<K> keyForIndex) {
+        Cell<K>[] table = byIndex;
+        if (index >= table.length) {
+            table = Arrays.copyOf(table, Math.max(index + 1, Math.max(16, table.length * 2)));
+        }
+        Cell<K> cell = table[index];
+        if (cell == null) {
+            cell = cells.computeIfAbsent(keyForIndex.apply(index), Cell::new);
+            table[index] = cell;
+        }
+        byIndex = table;
+        return cell;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> Cell<K>[] newArray(int size) {
+        return (Cell<K>[]) new Cell<?>[size];
+    }
+
+    /**
+     * Receives a key and its current total.
+     */
+    interface Sink<K> {
+        void accept(K key, long total);
+    }
+
+    private static final class Cell<K> {
+
+        private final K key;
+        private final LongAdder count = new LongAdder();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        private Cell(K key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.lang.ref.Cleaner;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time-ordered ids in the UUID version 7 layout:
+ * <pre>
+ * msb: 48 bits placement millis | 4 bits version (7) | 12 bits sequence, high part
+ * lsb:  2 bits variant (10)     | 16 bits shard      | 14 bits sequence, low part | 32 random bits
+ * </pre>
+ * Every thread gets its own shard with a 26-bit sequence that restarts each millisecond. The shard bits keep
+ * threads apart and the sequence keeps one thread's ids apart, so nothing is shared between threads once a
+ * shard exists. The random bits guard against another process, or a restart, reusing the same shard in the
+ * same millisecond.
+ * <p>
+ * There are only 65,536 shards, so a shard goes back to a free list once its thread has died and been
+ * collected, and the next new thread carries on from its millisecond and sequence, never repeating an id.
+ * If that many threads hold shards at once, {@link #next} throws rather than let two of them share one.
+ * <p>
+ * Ids from one thread are strictly increasing even if the clock steps back; across threads they sort by
+ * placement millisecond.
+ */
+final class TimeOrderedIdGenerator implements OrderIdGenerator {
+
+    // no SecureRandom, no CAS on the hot path, just a thread-local counter
+
+    private static final long VERSION = 7L << 12;
+    private static final long VARIANT = 2L << 62;
+    private static final int SEQUENCE_BITS = 26;
+    private static final int SEQUENCE_LOW_BITS = 14;
+    private static final long MAX_MILLIS = (1L << 48) - 1;
+    private static final int MAX_SHARDS = 1 << 16;
+    // notices dead threads so their shards can be handed on
+    private static final Cleaner THREAD_EXITS = Cleaner.create();
+
+    private final int maxShards;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final Queue<Shard> freeShards = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Shard> shards = ThreadLocal.withInitial(this::claimShard);
+
+    TimeOrderedIdGenerator() {
+        this(MAX_SHARDS);
+    }
+
+    /**
+     * @param maxShards shards available, at most 65,536; fewer only to make running out testable.
+     */
+    TimeOrderedIdGenerator(int maxShards) {
+        if (maxShards <= 0 || maxShards > MAX_SHARDS) {
+            throw new IllegalArgumentException("maxShards must be between 1 and " + MAX_SHARDS);
+        }
+        this.maxShards = maxShards;
+    }
+
+    @Override
+    public UUID next(long placedAtMillis) {
+        if (placedAtMillis < 0 || placedAtMillis > MAX_MILLIS) {
+            throw new IllegalArgumentException("placement time does not fit a time-ordered id: " + placedAtMillis);
+        }
+        Shard shard = shards.get();
+        long sequence = shard.advance(placedAtMillis);
+        long msb = shard.millis << 16 | VERSION | sequence >>> SEQUENCE_LOW_BITS;
+        long lsb = VARIANT
+                | (long) (shard.id & 0xFFFF) << 46
+                | (sequence & ((1L << SEQUENCE_LOW_BITS) - 1)) << 32
+                | ThreadLocalRandom.current().nextInt() & 0xFFFFFFFFL;
+        return new UUID(msb, lsb);
+    }
+
+    private Shard claimShard() {
+        Shard shard = freeShards.poll();
+        if (shard == null) {
+            int id = nextShard.getAndUpdate(next -> Math.min(next + 1, maxShards));
+            if (id == maxShards) {
+                throw new IllegalStateException("all " + maxShards + " id shards are held by live threads");
+            }
+            shard = new Shard(id);
+        }
+        Shard claimed = shard;
+        // the action must not reach the thread, or it would never become unreachable
+        THREAD_EXITS.register(Thread.currentThread(), () -> freeShards.offer(claimed));
+        return shard;
+    }
+
+    /**
+     * One thread's position: the millisecond it last issued in and how many ids it issued there.
+     */
+    private static final class Shard {
+        private final int id;
+        private long millis = -1;
+        private long sequence;
+
+        Shard(int id) {
+            this.id = id;
+        }
+
+        /**
+         * Moves to {@code now}, or stays on the last millisecond if the clock went back, and returns the next
+         * sequence number there. A full millisecond spills into the next one, so ids stay unique and ordered.
+         */
+        long advance(long now) {
+            if (now > millis) {
+                millis = now;
+                sequence = 0;
+            } else if (++sequence == 1L << SEQUENCE_BITS) {
+                millis++;
+                sequence = 0;
+            }
+            return sequence;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: items scheduled for a deadline come out of {@link #advance} once the clock has
+ * reached it. Level {@code L} has 64 slots each {@code 64^L} ticks wide, and an item sits at the lowest level
+ * whose slot still separates its deadline from the current tick. When the clock reaches a slot, its items
+ * fire or drop to a lower level.
+ * <p>
+ * Each level keeps a bitmask of occupied slots, so advancing skips empty stretches in O(levels) however far
+ * the clock jumps. The total cost is proportional to the items fired plus the slots cascaded, not to the
+ * number of ticks passed. Items never fire early and fire at most one tick late. Not thread-safe.
+ *
+ * @param <T> scheduled item.
+ */
+final class TimingWheel<T> {
+
+    // a clock face per level, like hours and minutes but in 64s
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    // enough levels for every long tick value
+    private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+    private final long tickMillis;
+    private final List<Entry<T>>[] slots;
+    private final long[] occupied = new long[LEVELS];
+    private final List<Entry<T>> overdue = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis resolution of the wheel.
+     * @param nowMillis  time the wheel starts at.
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = (List<Entry<T>>[]) new List<?>[LEVELS * SLOTS];
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+    }
+
+    /**
+     * @param deadlineMillis time from which the item is due; if that has passed, the next advance fires it.
+     */
+    void schedule(long deadlineMillis, T item) {
+        // round up so an item never fires before its deadline
+        Entry<T> entry = new Entry<>(-Math.floorDiv(-deadlineMillis, tickMillis), item);
+        size++;
+        if (entry.deadline <= currentTick) {
+            overdue.add(entry);
+        } else {
+            place(entry);
+        }
+    }
+
+    /**
+     * Moves the clock to {@code nowMillis} and hands every item now due to {@code due}. The clock never moves
+     * backwards.
+     */
+    void advance(long nowMillis, Consumer<? super T> due) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        for (Entry<T> entry : overdue) {
+            size--;
+            due.accept(entry.item);
+        }
+        overdue.clear();
+        while (true) {
+            // lower levels always come before higher ones, so the first occupied future slot found is the earliest
+            int level = 0;
+            long future = 0;
+            for (; level < LEVELS; level++) {
+                future = occupied[level] & (-2L << slotOf(currentTick, level));
+                if (future != 0) {
+                    break;
+                }
+            }
+            if (level == LEVELS) {
+                break;
+            }
+            int slot = Long.numberOfTrailingZeros(future);
+            long start = blockStart(currentTick, level) | ((long) slot << (SLOT_BITS * level));
+            if (start > target) {
+                break;
+            }
+            currentTick = start;
+            List<Entry<T>> entries = slots[level * SLOTS + slot];
+            slots[level * SLOTS + slot] = null;
+            occupied[level] &= ~(1L << slot);
+            for (Entry<T> entry : entries) {
+                if (entry.deadline <= currentTick) {
+                    size--;
+                    due.accept(entry.item);
+                } else {
+                    place(entry);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, target);
+    }
+
+    /**
+     * @return items scheduled and not yet fired.
+     */
+    int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        int level = (Long.SIZE - 1 - Long.numberOfLeadingZeros(entry.deadline ^ currentTick)) / SLOT_BITS;
+        int slot = slotOf(entry.deadline, level);
+        int index = level * SLOTS + slot;
+        if (slots[index] == null) {
+            slots[index] = new ArrayList<>(4);
+        }
+        slots[index].add(entry);
+        occupied[level] |= 1L << slot;
+    }
+
+    private static int slotOf(long tick, int level) {
+        return (int) (tick >>> (SLOT_BITS * level)) & (SLOTS - 1);
+    }
+
+    /**
+     * @return {@code tick} with the bits that pick a slot at {@code level} and below cleared.
+     */
+    private static long blockStart(long tick, int level) {
+        int bits = SLOT_BITS * (level + 1);
+        return bits >= Long.SIZE ? 0 : tick & -(1L << bits);
+    }
+
+    private record Entry<T>(long deadline, T item) {
+    }
+}
@@ -0,0 +1,177 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Running pick totals for a warehouse wave. Plans are folded in as their orders are fulfilled, from any number
+ * of threads, for example with {@code pipeline.submit(id).thenAccept(wave::add)}. Each model and part keeps one
+ * counter, so {@link #pickList()} and {@link #closeWave()} cost O(distinct models and parts) no matter how
+ * many plans went in, and partial totals can be read while the wave is still filling.
+ * <p>
+ * A plan holds {@code int} counts, so no total in a wave may pass {@link Integer#MAX_VALUE}; a plan that would
+ * take one past it is refused whole and the wave must be closed first. Not wired into {@link OrderService};
+ * callers feed it the plans they want picked together.
+ */
+public final class WaveConsolidator {
+
+    // one big pick list instead of hundreds of little ones
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Wave wave = new Wave();
+
+    /**
+     * Adds a plan to the current wave.
+     *
+     * @param plan plan of one or more fulfilled orders.
+     * @throws IllegalStateException if a total of the wave would pass {@link Integer#MAX_VALUE}; none of the plan
+     *                               is added.
+     */
+    public void add(FulfillmentPlan plan) {
+        Objects.requireNonNull(plan, "plan");
+        // shared mode: adds run side by side and only closeWave waits for them
+        long stamp = lock.readLock();
+        try {
+            wave.add(plan);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return number of plans added to the current wave.
+     */
+    public long planCount() {
+        return wave.plans.sum();
+    }
+
+    /**
+     * @return quantity of a preset model picked so far in the current wave.
+     */
+    public long presetTotal(String manufacturer, String model) {
+        Map<String, AtomicLong> models = wave.presets.get(manufacturer);
+        AtomicLong count = models == null ? null : models.get(model);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * @return quantity of a custom model part picked so far in the current wave.
+     */
+    public long partTotal(String part) {
+        AtomicLong count = wave.parts.get(part);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Totals of the current wave so far. Plans being added at the same time may be partly included.
+     *
+     * @return consolidated pick list; the wave keeps filling.
+     */
+    public FulfillmentPlan pickList() {
+        return wave.toPlan();
+    }
+
+    /**
+     * Ends the current wave and starts an empty one. Every plan added before this call is in exactly one of the
+     * two waves.
+     *
+     * @return consolidated pick list of the wave that ended.
+     */
+    public FulfillmentPlan closeWave() {
+        long stamp = lock.writeLock();
+        try {
+            // built before the swap, so if it fails the wave is still there
+            FulfillmentPlan closed = wave.toPlan();
+            wave = new Wave();
+            return closed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static final class Wave {
+        private final Map<String, Map<String, AtomicLong>> presets = new ConcurrentHashMap<>();
+        private final Map<String, AtomicLong> parts = new ConcurrentHashMap<>();
+        private final LongAdder plans = new LongAdder();
+
+        void add(FulfillmentPlan plan) {
+            List<AtomicLong> counters = new ArrayList<>();
+            List<Integer> counts = new ArrayList<>();
+            plan.getPresetModelCounts().forEach((manufacturer, models) -> {
+                Map<String, AtomicLong> byModel = presets.computeIfAbsent(manufacturer,
+                        key -> new ConcurrentHashMap<>());
+                models.forEach((model, count) -> {
+                    counters.add(counter(byModel, model));
+                    counts.add(count);
+                });
+            });
+            plan.getCustomPartCounts().forEach((part, count) -> {
+                counters.add(counter(parts, part));
+                counts.add(count);
+            });
+            for (int i = 0; i < counters.size(); i++) {
+                if (!addCapped(counters.get(i), counts.get(i))) {
+                    // take back what this plan already added, so it is refused whole
+                    for (int j = 0; j < i; j++) {
+                        counters.get(j).addAndGet(-counts.get(j));
+                    }
+                    throw new IllegalStateException("wave total would exceed " + Integer.MAX_VALUE
+                            + "; close the wave first");
+                }
+            }
+            plans.increment();
+        }
+
+        FulfillmentPlan toPlan() {
+            Map<String, Map<String, Integer>> presetCounts = new HashMap<>();
+            presets.forEach((manufacturer, models) -> {
+                Map<String, Integer> counts = new HashMap<>();
+                models.forEach((model, count) -> putCount(counts, model, count));
+                if (!counts.isEmpty()) {
+                    presetCounts.put(manufacturer, counts);
+                }
+            });
+            Map<String, Integer> partCounts = new HashMap<>();
+            parts.forEach((part, count) -> putCount(partCounts, part, count));
+            return FulfillmentPlan.of(presetCounts, partCounts);
+        }
+
+        /**
+         * Adds {@code count} unless that would take the counter past {@link Integer#MAX_VALUE}, so no counter ever
+         * holds more than a plan can, whatever adds race with this one.
+         *
+         * @return {@code false} if nothing was added.
+         */
+        private static boolean addCapped(AtomicLong counter, int count) {
+            long current;
+            do {
+                current = counter.get();
+                if (current + count > Integer.MAX_VALUE) {
+                    return false;
+                }
+            } while (!counter.compareAndSet(current, current + count));
+            return true;
+        }
+
+        private static void putCount(Map<String, Integer> counts, String key, AtomicLong count) {
+            // a counter made for a plan that was then refused stays at zero
+            int value = (int) count.get();
+            if (value > 0) {
+                counts.put(key, value);
+            }
+        }
+
+        private static AtomicLong counter(Map<String, AtomicLong> counters, String key) {
+            // plain get first, computeIfAbsent locks the bin even when the key is there
+            AtomicLong counter = counters.get(key);
+            return counter != null ? counter : counters.computeIfAbsent(key, k -> new AtomicLong());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Fulfilment counts split into fixed-width time buckets kept in a ring. A bucket is stamped with the
+ * interval it counts ({@code time / width}); the first writer to reach a slot holding an older stamp swaps
+ * in a fresh bucket, so rotation is one compare-and-set no matter how much was counted. Memory is bounded
+ * by the ring size, whatever the length of the history.
+ * <p>
+ * Writers never lock, apart from the first time a bucket sees a part id beyond those it has room for. A writer
+ * stalled for a whole ring's worth of time can lose its counts into a bucket that was already recycled, which
+ * is fine for trend reporting. Part counts are kept by dictionary id, so a bucket costs O(dictionary) once
+ * rather than a boxed key per part per fulfilment.
+ */
+final class WindowedCounters {
+
+    // old buckets fall off the back of the ring, nobody has to clean up
+
+    private final long widthMillis;
+    private final AtomicReferenceArray<Bucket> ring;
+
+    WindowedCounters(long widthMillis, int buckets) {
+        this.widthMillis = widthMillis;
+        this.ring = new AtomicReferenceArray<>(buckets);
+    }
+
+    long widthMillis() {
+        return widthMillis;
+    }
+
+    int buckets() {
+        return ring.length();
+    }
+
+    /**
+     * Counts the fulfilled totals of {@code accumulator} in the bucket covering {@code timeMillis}.
+     */
+    void add(long timeMillis, PlanAccumulator accumulator) {
+        Bucket bucket = bucketFor(Math.floorDiv(timeMillis, widthMillis));
+        if (bucket == null) {
+            return;
+        }
+        accumulator.ordersByCustomer().forEach((customer, count) -> bump(bucket.customers, customer, count));
+        accumulator.presetCounts().forEach((preset, count) -> bump(bucket.presets, preset, count));
+        accumulator.customPartCounts().forEach(bucket.parts::add);
+    }
+
+    /**
+     * Merges the newest {@code count} buckets up to the one covering {@code nowMillis} and picks the leaders.
+     */
+    OrderAnalytics leaders(long nowMillis, int count, Comparator<Customer> customerOrder,
+                           Comparator<PresetModelKey> presetOrder, IntFunction<String> partNames) {
+        long newest = Math.floorDiv(nowMillis, widthMillis);
+        long oldest = newest - Math.min(count, ring.length()) + 1;
+        Map<Customer, Long> customers = new HashMap<>();
+        Map<PresetModelKey, Long> presets = new HashMap<>();
+        long[] parts = new long[0];
+        for (int slot = 0; slot < ring.length(); slot++) {
+            Bucket bucket = ring.get(slot);
+            if (bucket != null && bucket.epoch >= oldest && bucket.epoch <= newest) {
+                merge(bucket.customers, customers);
+                merge(bucket.presets, presets);
+                parts = bucket.parts.addTo(parts);
+            }
+        }
+        PresetModelKey preset = leader(presets, presetOrder);
+        int part = leader(parts, partNames);
+        return new OrderAnalytics(leader(customers, customerOrder),
+                preset == null ? null : preset.model(),
+                preset == null ? null : preset.manufacturer(),
+                part < 0 ? null : partNames.apply(part));
+    }
+
+    private Bucket bucketFor(long epoch) {
+        int slot = (int) Math.floorMod(epoch, (long) ring.length());
+        while (true) {
+            Bucket current = ring.get(slot);
+            if (current != null && current.epoch == epoch) {
+                return current;
+            }
+            if (current != null && current.epoch > epoch) {
+                // the slot has already moved on; this interval is older than the whole ring
+                return null;
+            }
+            Bucket fresh = new Bucket(epoch);
+            if (ring.compareAndSet(slot, current, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private static <K> void bump(Map<K, LongAdder> counts, K key, long delta) {
+        LongAdder adder = counts.get(key);
+        if (adder == null) {
+            adder = counts.computeIfAbsent(key, k -> new LongAdder());
+        }
+        adder.add(delta);
+    }
+
+    private static <K> void merge(Map<K, LongAdder> from, Map<K, Long> into) {
+        from.forEach((key, adder) -> into.merge(key, adder.sum(), Long::sum));
+    }
+
+    /**
+     * @return key with the highest count, ties going to the key that sorts first; null if there are none.
+     */
+    private static <K> K leader(Map<K, Long> counts, Comparator<? super K> tieBreak) {
+        K best = null;
+        long bestCount = 0;
+        for (Map.Entry<K, Long> entry : counts.entrySet()) {
+            long count = entry.getValue();
+            if (best == null || count > bestCount || (count == bestCount && tieBreak.compare(entry.getKey(), best) < 0)) {
+                best = entry.getKey();
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return part id with the highest count, ties going to the part whose name sorts first; -1 if there are none.
+     */
+    private static int leader(long[] counts, IntFunction<String> partNames) {
+        int best = -1;
+        for (int partId = 0; partId < counts.length; partId++) {
+            long count = counts[partId];
+            if (count > 0 && (best < 0 || count > counts[best]
+                    || (count == counts[best] && partNames.apply(partId).compareTo(partNames.apply(best)) < 0))) {
+                best = partId;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * One adder per part id, in an array indexed by dictionary id that is copied to a larger one, under the lock,
+     * when a bigger id turns up.
+     */
+    private static final class PartAdders {
+        private volatile LongAdder[] adders = new LongAdder[0];
+
+        void add(int partId, long delta) {
+            LongAdder[] table = adders;
+            LongAdder adder = partId < table.length ? table[partId] : null;
+            if (adder == null) {
+                adder = adder(partId);
+            }
+            adder.add(delta);
+        }
+
+        /**
+         * @return {@code into}, or a larger copy of it, with this bucket's counts added at each part id.
+         */
+        long[] addTo(long[] into) {
+            LongAdder[] table = adders;
+            long[] sums = into.length < table.length ? Arrays.copyOf(into, table.length) : into;
+            for (int partId = 0; partId < table.length; partId++) {
+                LongAdder adder = table[partId];
+                if (adder != null) {
+                    sums[partId] += adder.sum();
+                }
+            }
+            return sums;
+        }
+
+        private synchronized LongAdder adder(int partId) {
+            LongAdder[] table = adders;
+            if (partId >= table.length) {
+                table = Arrays.copyOf(table, Math.max(partId + 1, Math.max(16, table.length * 2)));
+            }
+            LongAdder adder = table[partId];
+            if (adder == null) {
+                adder = new LongAdder();
+                table[partId] = adder;
+            }
+            // republished even when not copied, so lock-free readers see the new slot
+            adders = table;
+            return adder;
+        }
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final Map<Customer, LongAdder> customers = new ConcurrentHashMap<>();
+        private final Map<PresetModelKey, LongAdder> presets = new ConcurrentHashMap<>();
+        private final PartAdders parts = new PartAdders();
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package uk.ac.ncl.csc8404.pcretailer.order.journal;
+
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.model.ComputerModel;
+import uk.ac.ncl.csc8404.pcretailer.model.CustomModel;
+import uk.ac.ncl.csc8404.pcretailer.model.PresetCatalog;
+import uk.ac.ncl.csc8404.pcretailer.model.PresetComputerModel;
+import uk.ac.ncl.csc8404.pcretailer.model.PresetModel;
+import uk.ac.ncl.csc8404.pcretailer.order.OrderLine;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Binary encoding of {@link OrderEvent}s. Strings use modified UTF-8 with a two byte length, card numbers
+ * are stored as an int and models are written in full so they can be rebuilt without a catalogue.
+ * One decoder instance caches customers and cards, so replay hands back one instance per number.
+ */
+final class EventCodec {
+
+    // bytes in, bytes out, dont change the tags once files exist
+
+    private static final byte PLACED = 1;
+    private static final byte CANCELLED = 2;
+    private static final byte FULFILLED = 3;
+
+    private static final byte PRESET_LINE = 1;
+    private static final byte CUSTOM_LINE = 2;
+
+    private final CreditCardFactory cardFactory;
+    private final Map<String, CreditCard> cards = new HashMap<>();
+    private final Map<String, Customer> customers = new HashMap<>();
+
+    EventCodec(CreditCardFactory cardFactory) {
+        this.cardFactory = cardFactory;
+    }
+
+    static byte[] encode(OrderEvent event) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (event instanceof OrderEvent.Placed placed) {
+                out.writeByte(PLACED);
+                writeId(out, placed.orderId());
+                writePlacedBody(out, placed);
+            } else if (event instanceof OrderEvent.Cancelled) {
+                out.writeByte(CANCELLED);
+                writeId(out, event.orderId());
+            } else {
+                out.writeByte(FULFILLED);
+                writeId(out, event.orderId());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    OrderEvent decode(DataInput in) throws IOException {
+        byte type = in.readByte();
+        UUID id = readId(in);
+        switch (type) {
+            case PLACED:
+                return readPlacedBody(in, id);
+            case CANCELLED:
+                return new OrderEvent.Cancelled(id);
+            case FULFILLED:
+                return new OrderEvent.Fulfilled(id);
+            default:
+                throw new IOException("unknown event type " + type);
+        }
+    }
+
+    private static void writePlacedBody(DataOutput out, OrderEvent.Placed placed) throws IOException {
+        out.writeUTF(placed.customer().getIdentifier());
+        out.writeUTF(placed.customer().getDisplayName());
+        CreditCard card = placed.card();
+        out.writeInt(Integer.parseInt(card.getNumber()));
+        out.writeLong(card.getExpiry().getTime());
+        out.writeUTF(card.getHolderName());
+        out.writeLong(placed.placedAt());
+        out.writeInt(placed.lines().size());
+        for (OrderLine line : placed.lines()) {
+            writeLine(out, line);
+        }
+    }
+
+    private static void writeLine(DataOutput out, OrderLine line) throws IOException {
+        ComputerModel model = line.getModel();
+        if (model instanceof PresetComputerModel preset) {
+            out.writeByte(PRESET_LINE);
+            out.writeUTF(preset.getManufacturer());
+        } else {
+            // anything without a manufacturer is fulfilled part by part, so it comes back as a custom model
+            out.writeByte(CUSTOM_LINE);
+        }
+        out.writeInt(line.getQuantity());
+        out.writeUTF(model.getName());
+        Set<String> parts = model.getParts();
+        out.writeInt(parts.size());
+        for (String part : parts) {
+            out.writeUTF(part);
+        }
+    }
+
+    private OrderEvent.Placed readPlacedBody(DataInput in, UUID id) throws IOException {
+        String customerId = in.readUTF();
+        String customerName = in.readUTF();
+        Customer customer = customers.get(customerId);
+        if (customer == null || !customer.getDisplayName().equals(customerName)) {
+            customer = Customer.of(customerId, customerName);
+            customers.put(customerId, customer);
+        }
+        String number = String.format("%08d", in.readInt());
+        long expiry = in.readLong();
+        String holder = in.readUTF();
+        CreditCard card = cards.get(number);
+        if (card == null) {
+            card = cardFactory.restore(number, new Date(expiry), holder);
+            cards.put(number, card);
+        }
+        long placedAt = in.readLong();
+        int lineCount = in.readInt();
+        List<OrderLine> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            lines.add(readLine(in));
+        }
+        return new OrderEvent.Placed(id, customer, card, lines, placedAt);
+    }
+
+    private static OrderLine readLine(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        String manufacturer = kind == PRESET_LINE ? in.readUTF() : null;
+        int quantity = in.readInt();
+        String name = in.readUTF();
+        int partCount = in.readInt();
+        List<String> parts = new ArrayList<>(partCount);
+        for (int i = 0; i < partCount; i++) {
+            parts.add(in.readUTF());
+        }
+        ComputerModel model = kind == PRESET_LINE
+                ? PresetCatalog.shared().canonical(PresetModel.of(manufacturer, name, parts))
+                : CustomModel.of(name, parts);
+        return OrderLine.of(model, quantity);
+    }
+
+    private static void writeId(DataOutput out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readId(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
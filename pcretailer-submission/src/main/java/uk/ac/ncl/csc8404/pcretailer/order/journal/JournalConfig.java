@@ -0,0 +1,145 @@
+package uk.ac.ncl.csc8404.pcretailer.order.journal;
+
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Immutable settings for an {@link OrderJournal}. Start from {@link #defaults()} and adjust with the
+ * {@code with...} methods, each of which returns a new instance.
+ */
+public final class JournalConfig {
+
+    // knobs for how hard we push the disk
+
+    /**
+     * When an append is acknowledged to the caller.
+     */
+    public enum Durability {
+        /**
+         * Acknowledge once the event is written into the mapped segment, and let {@link OrderJournal#write}
+         * return as soon as the event is queued. A process crash can lose events still in the queue and an
+         * operating system crash everything since the last group commit.
+         */
+        WRITTEN,
+        /**
+         * Acknowledge only after the group commit that forced the event to disk.
+         */
+        SYNCED
+    }
+
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int DEFAULT_QUEUE_CAPACITY = 64 * 1024;
+    private static final int DEFAULT_MAX_BATCH = 1024;
+
+    private final int segmentSize;
+    private final Duration syncInterval;
+    private final Durability durability;
+    private final int queueCapacity;
+    private final int maxBatch;
+    private final CreditCardFactory cardFactory;
+
+    private JournalConfig(int segmentSize,
+                          Duration syncInterval,
+                          Durability durability,
+                          int queueCapacity,
+                          int maxBatch,
+                          CreditCardFactory cardFactory) {
+        this.segmentSize = segmentSize;
+        this.syncInterval = syncInterval;
+        this.durability = durability;
+        this.queueCapacity = queueCapacity;
+        this.maxBatch = maxBatch;
+        this.cardFactory = cardFactory;
+    }
+
+    /**
+     * @return 64 MiB segments, a group commit every 10 ms and acknowledgement once written.
+     */
+    public static JournalConfig defaults() {
+        return new JournalConfig(DEFAULT_SEGMENT_SIZE, Duration.ofMillis(10), Durability.WRITTEN,
+                DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH, null);
+    }
+
+    /**
+     * @param bytes size of each mapped segment file; every event must fit in one segment.
+     */
+    public JournalConfig withSegmentSize(int bytes) {
+        if (bytes < 4096) {
+            throw new IllegalArgumentException("segment size must be at least 4096 bytes");
+        }
+        return new JournalConfig(bytes, syncInterval, durability, queueCapacity, maxBatch, cardFactory);
+    }
+
+    /**
+     * @param interval longest time written events wait for the group commit fsync; zero forces after every batch.
+     */
+    public JournalConfig withSyncInterval(Duration interval) {
+        Objects.requireNonNull(interval, "interval");
+        if (interval.isNegative()) {
+            throw new IllegalArgumentException("sync interval must not be negative");
+        }
+        return new JournalConfig(segmentSize, interval, durability, queueCapacity, maxBatch, cardFactory);
+    }
+
+    /**
+     * @param mode when appends are acknowledged.
+     */
+    public JournalConfig withDurability(Durability mode) {
+        return new JournalConfig(segmentSize, syncInterval, Objects.requireNonNull(mode, "mode"),
+                queueCapacity, maxBatch, cardFactory);
+    }
+
+    /**
+     * @param capacity number of encoded events that may wait for the writer before appenders block.
+     */
+    public JournalConfig withQueueCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("queue capacity must be positive");
+        }
+        return new JournalConfig(segmentSize, syncInterval, durability, capacity, maxBatch, cardFactory);
+    }
+
+    /**
+     * @param events most events the writer takes from the queue in one batch.
+     */
+    public JournalConfig withMaxBatch(int events) {
+        if (events <= 0) {
+            throw new IllegalArgumentException("max batch must be positive");
+        }
+        return new JournalConfig(segmentSize, syncInterval, durability, queueCapacity, events, cardFactory);
+    }
+
+    /**
+     * @param factory factory that replayed card numbers are restored into, so they stay reserved after a restart.
+     */
+    public JournalConfig withCardFactory(CreditCardFactory factory) {
+        return new JournalConfig(segmentSize, syncInterval, durability, queueCapacity, maxBatch,
+                Objects.requireNonNull(factory, "factory"));
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public Duration getSyncInterval() {
+        return syncInterval;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getMaxBatch() {
+        return maxBatch;
+    }
+
+    CreditCardFactory cardFactoryOrNew() {
+        return cardFactory == null ? new CreditCardFactory() : cardFactory;
+    }
+}
@@ -0,0 +1,156 @@
+package uk.ac.ncl.csc8404.pcretailer.order.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * One fixed-size, memory-mapped journal file. Records are laid out back to back as
+ * {@code [int length][int crc][long sequence][payload]} and a zero length marks the end of the data.
+ * The CRC covers the sequence and the payload, so a torn write at the tail is detected on recovery.
+ */
+final class JournalSegment implements Closeable {
+
+    // one file, one mapping, written front to back and never rewritten
+
+    static final int HEADER_BYTES = 16;
+
+    private final Path path;
+    private final long firstSequence;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private long lastSequence;
+
+    private JournalSegment(Path path, long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.firstSequence = firstSequence;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.lastSequence = firstSequence - 1;
+    }
+
+    /**
+     * Maps a segment for writing, creating the file at {@code size} bytes if it does not exist yet,
+     * and positions it after the last intact record.
+     */
+    static JournalSegment openForWrite(Path path, long firstSequence, int size) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long length = Math.max(channel.size(), size);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            JournalSegment segment = new JournalSegment(path, firstSequence, channel, buffer);
+            segment.recoverTail();
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps an existing segment read-only for replay.
+     */
+    static ByteBuffer mapForRead(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Visits intact records in {@code data} from the start, stopping at the end marker, a bad CRC or a gap
+     * in the sequence numbers.
+     *
+     * @return position just after the last intact record.
+     */
+    static int scan(ByteBuffer data, long firstSequence, RecordVisitor visitor) throws IOException {
+        long expected = firstSequence;
+        int position = 0;
+        while (position + HEADER_BYTES <= data.limit()) {
+            int length = data.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > data.limit()) {
+                break;
+            }
+            long sequence = data.getLong(position + 8);
+            if (sequence != expected || data.getInt(position + 4) != checksum(data, position + 8, length + 8)) {
+                break;
+            }
+            visitor.visit(sequence, data.slice(position + HEADER_BYTES, length));
+            position += HEADER_BYTES + length;
+            expected++;
+        }
+        return position;
+    }
+
+    boolean hasRoom(int payloadLength) {
+        return buffer.remaining() >= HEADER_BYTES + payloadLength;
+    }
+
+    /**
+     * Writes one record at the current position followed by an end marker when there is room for one.
+     */
+    void append(long sequence, byte[] payload) {
+        int start = buffer.position();
+        buffer.putInt(start, payload.length);
+        buffer.putLong(start + 8, sequence);
+        buffer.put(start + HEADER_BYTES, payload);
+        buffer.putInt(start + 4, checksum(buffer, start + 8, payload.length + 8));
+        int end = start + HEADER_BYTES + payload.length;
+        if (end + 4 <= buffer.limit()) {
+            // stale bytes past a recovered tail must never look like the next record
+            buffer.putInt(end, 0);
+        }
+        buffer.position(end);
+        lastSequence = sequence;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    long firstSequence() {
+        return firstSequence;
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void recoverTail() throws IOException {
+        long[] last = {firstSequence - 1};
+        int end = scan(buffer, firstSequence, (sequence, payload) -> last[0] = sequence);
+        lastSequence = last[0];
+        buffer.position(end);
+        if (end + 4 <= buffer.limit()) {
+            buffer.putInt(end, 0);
+        }
+    }
+
+    private static int checksum(ByteBuffer data, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(data.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Receives each intact record found by {@link #scan}.
+     */
+    interface RecordVisitor {
+        void visit(long sequence, ByteBuffer payload) throws IOException;
+    }
+}
@@ -0,0 +1,74 @@
+package uk.ac.ncl.csc8404.pcretailer.order.journal;
+
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.order.OrderLine;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A single change to the order book, as written to and replayed from an {@link OrderJournal}.
+ */
+public sealed interface OrderEvent {
+
+    // only three things ever happen to an order, so only three events
+
+    /**
+     * @return identifier of the order the event belongs to.
+     */
+    UUID orderId();
+
+    /**
+     * An order was accepted.
+     *
+     * @param orderId  identifier of the new order.
+     * @param customer customer placing the order.
+     * @param card     card used for payment.
+     * @param lines    immutable order lines.
+     * @param placedAt placement time in epoch milliseconds.
+     */
+    record Placed(UUID orderId, Customer customer, CreditCard card, List<OrderLine> lines, long placedAt)
+            implements OrderEvent {
+
+        public Placed {
+            Objects.requireNonNull(orderId, "orderId");
+            Objects.requireNonNull(customer, "customer");
+            Objects.requireNonNull(card, "card");
+            lines = List.copyOf(lines);
+        }
+
+        /**
+         * @return placement time as a new {@link Date}.
+         */
+        public Date placedAtDate() {
+            return new Date(placedAt);
+        }
+    }
+
+    /**
+     * A placed order was cancelled.
+     *
+     * @param orderId identifier of the order.
+     */
+    record Cancelled(UUID orderId) implements OrderEvent {
+
+        public Cancelled {
+            Objects.requireNonNull(orderId, "orderId");
+        }
+    }
+
+    /**
+     * A placed order was fulfilled.
+     *
+     * @param orderId identifier of the order.
+     */
+    record Fulfilled(UUID orderId) implements OrderEvent {
+
+        public Fulfilled {
+            Objects.requireNonNull(orderId, "orderId");
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package uk.ac.ncl.csc8404.pcretailer.order.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Append-only journal of {@link OrderEvent}s stored in segmented, memory-mapped files.
+ * <p>
+ * Callers encode events on their own thread and hand them to a single writer thread, which assigns
+ * sequence numbers, copies batches into the active segment and forces the segment to disk at most once per
+ * {@link JournalConfig#getSyncInterval() sync interval} (group commit). With
+ * {@link JournalConfig.Durability#SYNCED} an append is acknowledged only after the group commit that
+ * covers it; otherwise it is acknowledged once written to the mapping, and {@link #write} does not wait
+ * for that at all.
+ * <p>
+ * The first write or force that fails stops the journal: every write queued after it fails too, so the file
+ * never has a hole, and later appends are refused.
+ * <p>
+ * Segment files are named after the first sequence number they hold, so they replay in name order.
+ */
+public final class OrderJournal implements Closeable {
+
+    // write ahead, flush in bunches, read it all back on boot
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final PendingWrite CLOSE = new PendingWrite(new byte[0]);
+    private static final byte[] FLUSH = new byte[0];
+
+    private final Path directory;
+    private final JournalConfig config;
+    private final boolean synced;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Thread writer;
+    private JournalSegment active;
+    private volatile long lastSequence;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    private OrderJournal(Path directory, JournalConfig config, JournalSegment active) {
+        this.directory = directory;
+        this.config = config;
+        this.synced = config.getDurability() == JournalConfig.Durability.SYNCED;
+        this.active = active;
+        this.lastSequence = active.lastSequence();
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.writer = new Thread(this::runWriter, "order-journal-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Opens (or creates) the journal in {@code directory}, recovering the write position after the last
+     * intact record, and starts the writer thread.
+     *
+     * @param directory directory holding the segment files; created if missing.
+     * @param config    journal settings.
+     * @return open journal.
+     * @throws IOException if the directory or the active segment cannot be opened.
+     */
+    public static OrderJournal open(Path directory, JournalConfig config) throws IOException {
+        Objects.requireNonNull(directory, "directory");
+        Objects.requireNonNull(config, "config");
+        Files.createDirectories(directory);
+        TreeMap<Long, Path> segments = listSegments(directory);
+        long first = segments.isEmpty() ? 1 : segments.lastKey();
+        Path path = segments.isEmpty() ? segmentPath(directory, first) : segments.lastEntry().getValue();
+        OrderJournal journal = new OrderJournal(directory, config,
+                JournalSegment.openForWrite(path, first, config.getSegmentSize()));
+        journal.writer.start();
+        return journal;
+    }
+
+    /**
+     * Queues an event for the writer thread without waiting.
+     *
+     * @param event event to append.
+     * @return future completed with the sequence number of the event once it is acknowledged.
+     */
+    public CompletableFuture<Long> append(OrderEvent event) {
+        Objects.requireNonNull(event, "event");
+        PendingWrite write = new PendingWrite(EventCodec.encode(event));
+        if (write.payload.length + JournalSegment.HEADER_BYTES > config.getSegmentSize()) {
+            write.future.completeExceptionally(new IllegalArgumentException("event does not fit in a segment"));
+            return write.future;
+        }
+        return enqueue(write);
+    }
+
+    /**
+     * Appends an event. In {@link JournalConfig.Durability#SYNCED} mode this waits until the event is on
+     * disk; otherwise it returns once the event is queued, and a failure to write it makes every later call
+     * throw.
+     *
+     * @param event event to append.
+     * @throws UncheckedIOException  if the journal could not write the event.
+     * @throws IllegalStateException if the journal is closed or an earlier write failed.
+     */
+    public void write(OrderEvent event) {
+        CompletableFuture<Long> future = append(event);
+        if (synced || future.isDone()) {
+            await(future);
+        }
+    }
+
+    /**
+     * Appends events in order, waiting in {@link JournalConfig.Durability#SYNCED} mode until the last of them
+     * is on disk. Once one write fails the writer fails every write after it, so the last being on disk
+     * means all of them are.
+     *
+     * @param events events to append.
+     * @throws UncheckedIOException  if the journal could not write the events.
+     * @throws IllegalStateException if the journal is closed or an earlier write failed.
+     */
+    public void writeAll(Collection<? extends OrderEvent> events) {
+        CompletableFuture<Long> last = null;
+        for (OrderEvent event : events) {
+            last = append(event);
+            if (last.isDone() && last.isCompletedExceptionally()) {
+                break;
+            }
+        }
+        if (last != null && (synced || last.isDone())) {
+            await(last);
+        }
+    }
+
+    /**
+     * Waits until every event appended before this call is written and, in
+     * {@link JournalConfig.Durability#SYNCED} mode, forced to disk.
+     *
+     * @throws UncheckedIOException  if one of those events could not be written.
+     * @throws IllegalStateException if the journal is closed or an earlier write failed.
+     */
+    public void flush() {
+        ensureWritable();
+        await(enqueue(new PendingWrite(FLUSH)));
+    }
+
+    /**
+     * Decodes every intact event in sequence order. Events appended while replay runs are not included.
+     *
+     * @param consumer receives each event.
+     * @return sequence number of the last event replayed, or {@code 0} for an empty journal.
+     */
+    public long replay(Consumer<? super OrderEvent> consumer) {
+        return replay(0, lastSequence, consumer);
+    }
+
+    /**
+     * Decodes the intact events with sequence numbers in {@code (afterSequence, upToSequence]}, in order.
+     * Segments that end before {@code afterSequence} are not read at all.
+     *
+     * @param afterSequence last sequence number already applied elsewhere, e.g. by a snapshot.
+     * @param upToSequence  last sequence number to replay.
+     * @param consumer      receives each event.
+     * @return sequence number of the last event replayed, or {@code afterSequence} if there was none.
+     */
+    public long replay(long afterSequence, long upToSequence, Consumer<? super OrderEvent> consumer) {
+        Objects.requireNonNull(consumer, "consumer");
+        EventCodec codec = new EventCodec(config.cardFactoryOrNew());
+        long[] replayed = {afterSequence};
+        try {
+            TreeMap<Long, Path> segments = listSegments(directory);
+            // start from the segment that holds afterSequence + 1
+            Long start = segments.floorKey(afterSequence + 1);
+            for (var segment : (start == null ? segments : segments.tailMap(start, true)).entrySet()) {
+                if (segment.getKey() > upToSequence) {
+                    break;
+                }
+                ByteBuffer data = JournalSegment.mapForRead(segment.getValue());
+                JournalSegment.scan(data, segment.getKey(), (sequence, payload) -> {
+                    if (sequence > afterSequence && sequence <= upToSequence) {
+                        consumer.accept(codec.decode(new DataInputStream(new ByteArrayInputStream(toArray(payload)))));
+                        replayed[0] = sequence;
+                    }
+                });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to replay order journal in " + directory, e);
+        }
+        return replayed[0];
+    }
+
+    /**
+     * Deletes segment files whose events all have sequence numbers up to {@code sequence}, typically after a
+     * snapshot covering them was written. The active segment is never deleted.
+     *
+     * @param sequence highest sequence number that no longer needs to be replayed.
+     * @return number of segment files deleted.
+     * @throws IOException if a file cannot be deleted.
+     */
+    public int deleteSegmentsUpTo(long sequence) throws IOException {
+        TreeMap<Long, Path> segments = listSegments(directory);
+        int deleted = 0;
+        for (var segment : segments.entrySet()) {
+            Long next = segments.higherKey(segment.getKey());
+            // a segment is done with when the one after it starts at or before sequence + 1
+            if (next == null || next > sequence + 1) {
+                break;
+            }
+            Files.deleteIfExists(segment.getValue());
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * @return sequence number of the last event written, or {@code 0} for an empty journal.
+     */
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * @return the settings this journal was opened with.
+     */
+    public JournalConfig config() {
+        return config;
+    }
+
+    /**
+     * Writes and forces everything queued so far, then stops the writer thread.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.offer(CLOSE);
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                // offer can fail on a full queue, keep nudging until the writer has room to see the marker
+                queue.offer(CLOSE, 10, TimeUnit.MILLISECONDS);
+                writer.join(10);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        failPending();
+        active.close();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Long> enqueue(PendingWrite write) {
+        ensureWritable();
+        try {
+            queue.put(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write.future.completeExceptionally(e);
+        }
+        if (closed) {
+            // close may have drained the queue just before our put landed
+            failPending();
+        }
+        return write.future;
+    }
+
+    private void runWriter() {
+        List<PendingWrite> batch = new ArrayList<>(config.getMaxBatch());
+        List<PendingWrite> awaitingSync = new ArrayList<>();
+        long syncNanos = config.getSyncInterval().toNanos();
+        long lastSync = System.nanoTime();
+        boolean dirty = false;
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                long wait = dirty ? Math.max(0, syncNanos - (System.nanoTime() - lastSync)) : IDLE_POLL_NANOS;
+                PendingWrite first = queue.poll(wait, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, config.getMaxBatch() - 1);
+                }
+            } catch (InterruptedException e) {
+                stopping = true;
+            }
+            for (PendingWrite write : batch) {
+                if (write == CLOSE) {
+                    stopping = true;
+                    continue;
+                }
+                Throwable cause = failure;
+                if (cause != null) {
+                    // nothing may land after a failed record, or replay would step over the hole
+                    write.future.completeExceptionally(cause);
+                    continue;
+                }
+                if (write.payload == FLUSH) {
+                    write.sequence = lastSequence;
+                    if (synced && dirty) {
+                        awaitingSync.add(write);
+                    } else {
+                        write.future.complete(write.sequence);
+                    }
+                    continue;
+                }
+                try {
+                    long sequence = writeRecord(write.payload);
+                    dirty = true;
+                    if (synced) {
+                        write.sequence = sequence;
+                        awaitingSync.add(write);
+                    } else {
+                        write.future.complete(sequence);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    fail(e);
+                    write.future.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+            if (dirty && (stopping || System.nanoTime() - lastSync >= syncNanos)) {
+                try {
+                    active.force();
+                    for (PendingWrite write : awaitingSync) {
+                        write.future.complete(write.sequence);
+                    }
+                } catch (RuntimeException e) {
+                    // MappedByteBuffer.force reports I/O errors unchecked
+                    fail(e);
+                    for (PendingWrite write : awaitingSync) {
+                        write.future.completeExceptionally(e);
+                    }
+                }
+                awaitingSync.clear();
+                lastSync = System.nanoTime();
+                dirty = false;
+            }
+        }
+    }
+
+    private long writeRecord(byte[] payload) throws IOException {
+        long sequence = lastSequence + 1;
+        if (!active.hasRoom(payload.length)) {
+            JournalSegment next = JournalSegment.openForWrite(
+                    segmentPath(directory, sequence), sequence, config.getSegmentSize());
+            active.close();
+            active = next;
+        }
+        active.append(sequence, payload);
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    private void fail(Throwable cause) {
+        if (failure == null) {
+            failure = cause;
+        }
+    }
+
+    private void ensureWritable() {
+        if (closed) {
+            throw new IllegalStateException("journal is closed");
+        }
+        Throwable cause = failure;
+        if (cause != null) {
+            throw new IllegalStateException("journal writer failed", cause);
+        }
+    }
+
+    private void failPending() {
+        PendingWrite write;
+        while ((write = queue.poll()) != null) {
+            if (write == CLOSE) {
+                continue;
+            }
+            write.future.completeExceptionally(new IllegalStateException("journal is closed"));
+        }
+    }
+
+    private static void await(CompletableFuture<Long> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw new UncheckedIOException("failed to write order journal", io);
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("failed to write order journal", cause);
+        }
+    }
+
+    private static TreeMap<Long, Path> listSegments(Path directory) throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String digits = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+                try {
+                    segments.put(Long.parseLong(digits), file);
+                } catch (NumberFormatException ignored) {
+                    // not one of ours
+                }
+            }
+        }
+        return segments;
+    }
+
+    private static Path segmentPath(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private static byte[] toArray(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Encoded event waiting for the writer thread.
+     */
+    private static final class PendingWrite {
+
+        private final byte[] payload;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+        private long sequence;
+
+        private PendingWrite(byte[] payload) {
+            this.payload = payload;
+        }
+    }
+}
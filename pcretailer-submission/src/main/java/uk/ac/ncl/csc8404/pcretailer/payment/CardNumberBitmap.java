@@ -0,0 +1,97 @@
+package uk.ac.ncl.csc8404.pcretailer.payment;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * One bit per eight digit card number, 10^8 bits (about 12 MiB) when every page is in use. Claims and
+ * releases are single atomic {@code OR}/{@code AND} operations on a {@code long}, so no lock is taken.
+ * Pages of 64Ki numbers are allocated on first claim, so a factory that only ever sees a few thousand cards
+ * costs a few pages rather than the whole range.
+ */
+final class CardNumberBitmap {
+
+    // a TreeSet of strings for a fixed range of numbers was always overkill
+
+    static final int NUMBERS = 100_000_000;
+
+    private static final int PAGE_SHIFT = 16;
+    private static final int WORDS_PER_PAGE = (1 << PAGE_SHIFT) / Long.SIZE;
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final AtomicReferenceArray<long[]> pages =
+            new AtomicReferenceArray<>((NUMBERS + (1 << PAGE_SHIFT) - 1) >>> PAGE_SHIFT);
+
+    /**
+     * @return {@code true} if the number was free and is now claimed.
+     */
+    boolean claim(int number) {
+        long bit = 1L << number;
+        long previous = (long) WORDS.getAndBitwiseOr(page(number), word(number), bit);
+        return (previous & bit) == 0;
+    }
+
+    void release(int number) {
+        long[] page = pages.get(number >>> PAGE_SHIFT);
+        if (page != null) {
+            WORDS.getAndBitwiseAnd(page, word(number), ~(1L << number));
+        }
+    }
+
+    boolean isClaimed(int number) {
+        long[] page = pages.get(number >>> PAGE_SHIFT);
+        return page != null && ((long) WORDS.getVolatile(page, word(number)) & (1L << number)) != 0;
+    }
+
+    /**
+     * @return numbers currently claimed; not a snapshot while claims are racing.
+     */
+    long claimedCount() {
+        long count = 0;
+        for (int i = 0; i < pages.length(); i++) {
+            long[] page = pages.get(i);
+            if (page != null) {
+                for (int w = 0; w < WORDS_PER_PAGE; w++) {
+                    count += Long.bitCount((long) WORDS.getVolatile(page, w));
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Parses exactly eight ASCII digits without a regex or any allocation.
+     *
+     * @return the number, or -1 if {@code text} is not eight digits.
+     */
+    static int parse(String text) {
+        if (text.length() != 8) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < 8; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private long[] page(int number) {
+        int index = number >>> PAGE_SHIFT;
+        long[] page = pages.get(index);
+        if (page == null) {
+            // losers of the race drop their array and use the winner's
+            pages.compareAndSet(index, null, new long[WORDS_PER_PAGE]);
+            page = pages.get(index);
+        }
+        return page;
+    }
+
+    private static int word(int number) {
+        return (number & ((1 << PAGE_SHIFT) - 1)) >>> 6;
+    }
+}
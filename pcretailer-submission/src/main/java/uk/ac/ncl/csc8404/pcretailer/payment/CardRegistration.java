@@ -0,0 +1,56 @@
+package uk.ac.ncl.csc8404.pcretailer.payment;
+
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Details of one card to register, used by {@link CreditCardFactory#registerAll(java.util.List)}. Only
+ * checked for nulls here; the number and holder are validated when the batch is registered.
+ */
+public final class CardRegistration {
+
+    // one row of a card import file
+
+    private final String number;
+    private final Date expiryDate;
+    private final String holderName;
+
+    private CardRegistration(String number, Date expiryDate, String holderName) {
+        this.number = number;
+        this.expiryDate = expiryDate;
+        this.holderName = holderName;
+    }
+
+    /**
+     * @param number     eight digit number.
+     * @param expiryDate expiry date; copied defensively.
+     * @param holderName holder name.
+     * @return immutable registration.
+     */
+    public static CardRegistration of(String number, Date expiryDate, String holderName) {
+        Objects.requireNonNull(number, "number");
+        Objects.requireNonNull(expiryDate, "expiryDate");
+        Objects.requireNonNull(holderName, "holderName");
+        return new CardRegistration(number, new Date(expiryDate.getTime()), holderName);
+    }
+
+    public String getNumber() {
+        return number;
+    }
+
+    public Date getExpiryDate() {
+        return new Date(expiryDate.getTime());
+    }
+
+    public String getHolderName() {
+        return holderName;
+    }
+
+    @Override
+    public String toString() {
+        return "CardRegistration{" +
+                "number='" + number + '\'' +
+                ", holderName='" + holderName + '\'' +
+                '}';
+    }
+}
@@ -1,18 +1,20 @@
 package uk.ac.ncl.csc8404.pcretailer.payment;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Objects;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
- * Factory that guarantees unique credit card numbers within its scope.
+ * Factory that guarantees unique credit card numbers within its scope. Safe for concurrent use: allocated
+ * numbers are bits in a lock-free {@link CardNumberBitmap}.
  */
 public final class CreditCardFactory {
 
     // same card number twice is bad idea so we block it
 
-    private final Set<String> allocatedNumbers = new TreeSet<>();
+    private final CardNumberBitmap allocatedNumbers = new CardNumberBitmap();
 
     /**
      * Registers a credit card with the supplied data.
@@ -27,12 +29,58 @@ public final class CreditCardFactory {
         String safeNumber = validateNumber(number);
         Objects.requireNonNull(expiryDate, "expiryDate");
         String safeHolder = requireText("holderName", holderName);
-        if (!allocatedNumbers.add(safeNumber)) {
+        if (!allocatedNumbers.claim(CardNumberBitmap.parse(safeNumber))) {
             throw new IllegalStateException("credit card number already allocated: " + safeNumber);
         }
         return new CreditCard(safeNumber, new Date(expiryDate.getTime()), safeHolder);
     }
 
+    /**
+     * Registers a batch of cards, validating and claiming the numbers in parallel on the common fork/join
+     * pool. Either every card is registered or none is: if any registration is invalid or its number is taken,
+     * including by another entry of the same batch, the numbers already claimed for the batch are released
+     * and the first failure in list order is thrown. A concurrent {@link #register} of one of those numbers
+     * may be refused while the claim is briefly held.
+     *
+     * @param registrations cards to register.
+     * @return the cards, in the order of {@code registrations}.
+     * @throws IllegalArgumentException if a registration fails validation.
+     * @throws IllegalStateException    if a number has already been allocated.
+     */
+    public List<CreditCard> registerAll(List<CardRegistration> registrations) {
+        Objects.requireNonNull(registrations, "registrations");
+        CardRegistration[] batch = registrations.toArray(new CardRegistration[0]);
+        CreditCard[] cards = new CreditCard[batch.length];
+        RuntimeException[] failures = new RuntimeException[batch.length];
+        ForkJoinPool.commonPool().invoke(new RegisterTask(batch, cards, failures, 0, batch.length));
+        for (RuntimeException failure : failures) {
+            if (failure != null) {
+                for (CreditCard card : cards) {
+                    release(card);
+                }
+                throw failure;
+            }
+        }
+        return List.of(cards);
+    }
+
+    /**
+     * Recreates a card that was issued earlier, for example when replaying persisted orders. The number is
+     * marked as allocated, but unlike {@link #register} it is not an error if it already is.
+     *
+     * @param number     eight digit number of the existing card.
+     * @param expiryDate expiry date; copied defensively.
+     * @param holderName holder name; must be non-blank.
+     * @return immutable {@link CreditCard}.
+     */
+    public CreditCard restore(String number, Date expiryDate, String holderName) {
+        String safeNumber = validateNumber(number);
+        Objects.requireNonNull(expiryDate, "expiryDate");
+        String safeHolder = requireText("holderName", holderName);
+        allocatedNumbers.claim(CardNumberBitmap.parse(safeNumber));
+        return new CreditCard(safeNumber, new Date(expiryDate.getTime()), safeHolder);
+    }
+
     /**
      * Releases a card number making it available for future use.
      *
@@ -40,16 +88,32 @@ public final class CreditCardFactory {
      */
     public void release(CreditCard card) {
         if (card != null) {
-            allocatedNumbers.remove(card.getNumber());
+            allocatedNumbers.release(CardNumberBitmap.parse(card.getNumber()));
         }
     }
 
+    /**
+     * @param number card number, surrounding whitespace ignored.
+     * @return {@code true} if the number is currently allocated by this factory.
+     */
+    public boolean isAllocated(String number) {
+        int parsed = number == null ? -1 : CardNumberBitmap.parse(number.trim());
+        return parsed >= 0 && allocatedNumbers.isClaimed(parsed);
+    }
+
+    /**
+     * @return numbers currently allocated.
+     */
+    long allocatedCount() {
+        return allocatedNumbers.claimedCount();
+    }
+
     private static String validateNumber(String number) {
         if (number == null) {
             throw new IllegalArgumentException("number is required");
         }
         String trimmed = number.trim();
-        if (!trimmed.matches("\\d{8}")) {
+        if (CardNumberBitmap.parse(trimmed) < 0) {
             throw new IllegalArgumentException("number must be exactly 8 digits");
         }
         return trimmed;
@@ -61,4 +125,47 @@ public final class CreditCardFactory {
         }
         return value.trim();
     }
+
+    /**
+     * Splits the batch in halves until the slices are small, then registers each slice in order.
+     */
+    @SuppressWarnings("serial") // never serialized, only forked
+    private final class RegisterTask extends RecursiveAction {
+
+        private static final int SEQUENTIAL_THRESHOLD = 1024;
+
+        private final CardRegistration[] batch;
+        private final CreditCard[] cards;
+        private final RuntimeException[] failures;
+        private final int from;
+        private final int to;
+
+        private RegisterTask(CardRegistration[] batch, CreditCard[] cards, RuntimeException[] failures,
+                             int from, int to) {
+            this.batch = batch;
+            this.cards = cards;
+            this.failures = failures;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    try {
+                        CardRegistration registration = Objects.requireNonNull(batch[i], "registration");
+                        cards[i] = register(registration.getNumber(), registration.getExpiryDate(),
+                                registration.getHolderName());
+                    } catch (RuntimeException e) {
+                        failures[i] = e;
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RegisterTask(batch, cards, failures, from, middle),
+                    new RegisterTask(batch, cards, failures, middle, to));
+        }
+    }
 }
@@ -3,7 +3,11 @@ package uk.ac.ncl.csc8404.pcretailer.model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,4 +45,37 @@ class CustomModelFactoryTest {
         CustomModel model = factory.create("Laptop", List.of("CPU"));
         assertThrows(IllegalStateException.class, () -> model.withoutPart("CPU"));
     }
+
+    @Test
+    void longEditChainsMatchASortedSet() {
+        Random random = new Random(7);
+        TreeSet<String> expected = new TreeSet<>(List.of("Part-0"));
+        CustomComputerModel model = factory.create("Workstation", expected);
+        List<CustomComputerModel> history = new ArrayList<>();
+        List<List<String>> snapshots = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            String part = "Part-" + random.nextInt(300);
+            if (random.nextBoolean() || expected.size() == 1) {
+                expected.add(part);
+                model = model.withPart(part);
+            } else if (expected.remove(part)) {
+                model = model.withoutPart(part);
+            }
+            history.add(model);
+            snapshots.add(List.copyOf(expected));
+        }
+        SortedSet<String> parts = ((CustomModel) model).getParts();
+        assertEquals(List.copyOf(expected), List.copyOf(parts));
+        assertEquals(expected.first(), parts.first());
+        assertEquals(expected.last(), parts.last());
+        assertEquals(List.copyOf(expected.subSet("Part-1", "Part-2")), List.copyOf(parts.subSet("Part-1", "Part-2")));
+        assertEquals(List.copyOf(expected.tailSet("Part-5")), List.copyOf(parts.tailSet("Part-5")));
+        assertEquals(expected.headSet("Part-150").size(), parts.headSet("Part-150").size());
+        for (int i = 0; i < history.size(); i += 97) {
+            // earlier versions are untouched by later edits
+            assertEquals(snapshots.get(i), List.copyOf(history.get(i).getParts()));
+        }
+        assertEquals(CustomModel.of("Workstation", expected), model);
+        assertEquals(CustomModel.of("Workstation", expected).hashCode(), model.hashCode());
+    }
 }
@@ -0,0 +1,168 @@
+package uk.ac.ncl.csc8404.pcretailer.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameRegistryTest {
+
+    // the old TreeSet comparator is the spec, the rest is plumbing
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void foldingAgreesWithTheCaseInsensitiveComparator() {
+        String alphabet = "aAzZ09 -_ßẞıIİiſsSσςΣǅǄǆΩωΩKkK𐐀𐐨";
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            String a = randomName(random, alphabet);
+            String b = randomName(random, alphabet);
+            boolean equal = String.CASE_INSENSITIVE_ORDER.compare(a, b) == 0;
+            assertEquals(equal, NameRegistry.fold(a).equals(NameRegistry.fold(b)), a + " vs " + b);
+        }
+        String plain = "already-folded 42";
+        assertSame(plain, NameRegistry.fold(plain));
+    }
+
+    @Test
+    void exactlyOneThreadWinsEachName() throws Exception {
+        NameRegistry registry = NameRegistry.inMemory(1_000);
+        AtomicInteger wins = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                boolean upper = t % 2 == 0;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        String name = "Rig-" + i;
+                        if (registry.reserve(upper ? name.toUpperCase() : name)) {
+                            wins.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1_000, wins.get());
+        assertEquals(1_000, registry.size());
+        assertTrue(registry.isReserved("rig-999"));
+        assertFalse(registry.isReserved("rig-1000"));
+    }
+
+    @Test
+    void bloomFilterNeverHidesAReservedName() {
+        NameRegistry registry = NameRegistry.inMemory(100);
+        for (int i = 0; i < 5_000; i++) {
+            // well past the size it was built for
+            assertTrue(registry.reserve("Build " + i));
+        }
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(registry.isReserved("build " + i));
+        }
+        assertTrue(registry.release("BUILD 7"));
+        assertFalse(registry.isReserved("Build 7"));
+        assertTrue(registry.reserve("build 7"));
+    }
+
+    @Test
+    void fileBackedNamesSurviveReopenAndTornTails() throws Exception {
+        Path file = directory.resolve("names").resolve("custom-models.log");
+        try (NameRegistry registry = NameRegistry.open(file, 64)) {
+            assertTrue(registry.reserve("Gaming Rig"));
+            assertTrue(registry.reserve("Office Box"));
+            assertTrue(registry.release("office box"));
+            assertTrue(registry.reserve("Render Farm"));
+        }
+        long intact = Files.size(file);
+        Files.write(file, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        try (NameRegistry registry = NameRegistry.open(file)) {
+            assertEquals(2, registry.size());
+            assertFalse(registry.reserve("GAMING RIG"));
+            assertTrue(registry.isReserved("render farm"));
+            assertFalse(registry.isReserved("Office Box"));
+            assertEquals(intact, Files.size(file), "torn tail cut off");
+            assertTrue(registry.reserve("Office Box"));
+        }
+        try (NameRegistry registry = NameRegistry.open(file, 64)) {
+            assertEquals(3, registry.size());
+            assertTrue(registry.isReserved("office box"));
+        }
+    }
+
+    @Test
+    void churnIsCompactedOnOpen() throws Exception {
+        Path file = directory.resolve("churn.log");
+        try (NameRegistry registry = NameRegistry.open(file)) {
+            registry.reserve("Keeper");
+            for (int i = 0; i < 5_000; i++) {
+                registry.reserve("Temp " + i);
+                registry.release("Temp " + i);
+            }
+        }
+        long churned = Files.size(file);
+        try (NameRegistry registry = NameRegistry.open(file)) {
+            assertEquals(1, registry.size());
+            assertTrue(Files.size(file) < churned / 100);
+            assertTrue(registry.reserve("Temp 1"));
+        }
+        try (NameRegistry registry = NameRegistry.open(file)) {
+            assertEquals(2, registry.size());
+            assertTrue(registry.isReserved("keeper"));
+            assertTrue(registry.isReserved("TEMP 1"));
+        }
+    }
+
+    @Test
+    void sharedRegistryMakesFactoriesAgree() {
+        NameRegistry registry = NameRegistry.inMemory();
+        CustomModelFactory first = new CustomModelFactory(registry);
+        CustomModelFactory second = new CustomModelFactory(registry);
+        first.create("Twin", List.of("CPU"));
+        assertFalse(second.isAvailable(" twin "));
+        assertThrows(IllegalStateException.class, () -> second.create("TWIN", List.of("RAM")));
+        assertThrows(IllegalArgumentException.class, () -> second.create("Broken", List.of()));
+        assertTrue(first.isAvailable("Broken"), "a rejected create leaves the name free");
+        assertThrows(IllegalArgumentException.class, () -> second.create("Twin", List.of(" ")),
+                "parts are checked before the name is claimed");
+    }
+
+    @Test
+    void rejectedCreatesLeaveTheFileAlone() throws Exception {
+        Path file = directory.resolve("rejected.log");
+        try (NameRegistry registry = NameRegistry.open(file)) {
+            CustomModelFactory factory = new CustomModelFactory(registry);
+            assertThrows(IllegalArgumentException.class, () -> factory.create("Broken", List.of()));
+            assertEquals(0, Files.size(file));
+            factory.create("Fixed", List.of("CPU"));
+            assertTrue(Files.size(file) > 0);
+        }
+    }
+
+    private static String randomName(Random random, String alphabet) {
+        int[] codePoints = alphabet.codePoints().toArray();
+        StringBuilder name = new StringBuilder();
+        for (int i = 1 + random.nextInt(3); i > 0; i--) {
+            name.appendCodePoint(codePoints[random.nextInt(codePoints.length)]);
+        }
+        return name.toString();
+    }
+}
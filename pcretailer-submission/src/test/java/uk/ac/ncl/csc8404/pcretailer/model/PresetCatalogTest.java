@@ -0,0 +1,87 @@
+package uk.ac.ncl.csc8404.pcretailer.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresetCatalogTest {
+
+    // same key should always hand back the very same object
+
+    @Test
+    void internReturnsOneInstancePerKey() {
+        PresetCatalog catalog = new PresetCatalog();
+        PresetModel first = catalog.intern("ACME", "Bolt", List.of("RAM", "CPU"));
+        PresetModel again = catalog.intern(" ACME ", "Bolt", List.of("CPU", "RAM", "CPU"));
+        assertSame(first, again);
+        assertSame(first, catalog.intern(PresetModel.of("ACME", "Bolt", List.of("CPU", "RAM"))));
+        assertSame(first, catalog.find("ACME", " Bolt").orElseThrow());
+        assertTrue(catalog.find("ACME", "Nut").isEmpty());
+        assertTrue(catalog.find("Zeta", "Bolt").isEmpty());
+        assertEquals(1, catalog.size());
+
+        assertSame(first, catalog.intern("ACME", "Bolt", List.of(" RAM", "CPU ")));
+        assertThrows(IllegalStateException.class, () -> catalog.intern("ACME", "Bolt", List.of("GPU")));
+        assertThrows(IllegalStateException.class, () -> catalog.intern("ACME", "Bolt", List.of("CPU")));
+        assertThrows(IllegalStateException.class, () -> catalog.intern("ACME", "Bolt", List.of("CPU", "RAM", "GPU")));
+        assertThrows(IllegalArgumentException.class, () -> catalog.intern("ACME", "Bolt", List.of("CPU", "RAM", " ")));
+        PresetModel changed = PresetModel.of("ACME", "Bolt", List.of("GPU"));
+        assertSame(changed, catalog.canonical(changed), "a clashing preset is passed through, not swapped");
+        assertSame(first, catalog.canonical(PresetModel.of("ACME", "Bolt", List.of("CPU", "RAM"))));
+        assertThrows(IllegalArgumentException.class, () -> catalog.intern(" ", "Bolt", List.of("CPU")));
+        assertEquals(1, catalog.size());
+    }
+
+    @Test
+    void cachedHashMatchesEquality() {
+        PresetModel model = PresetModel.of("ACME", "Bolt", List.of("CPU", "RAM"));
+        PresetModel twin = PresetModel.of("ACME", "Bolt", List.of("RAM", "CPU"));
+        assertEquals(model, twin);
+        assertEquals(model.hashCode(), twin.hashCode());
+        assertNotEquals(model, PresetModel.of("ACME", "Bolt", List.of("CPU")));
+        assertNotEquals(model, PresetModel.of("ACME", "Nut", List.of("CPU", "RAM")));
+    }
+
+    @Test
+    void racingThreadsAgreeOnTheCanonicalInstance() throws Exception {
+        PresetCatalog catalog = new PresetCatalog();
+        Set<PresetModel> seen = ConcurrentHashMap.newKeySet();
+        List<PresetModel> winners = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<PresetModel>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    PresetModel canonical = null;
+                    for (int i = 0; i < 1_000; i++) {
+                        canonical = catalog.intern("ACME", "Model " + (i % 50), List.of("CPU", "RAM"));
+                        seen.add(canonical);
+                    }
+                    return canonical;
+                }));
+            }
+            start.countDown();
+            for (Future<PresetModel> task : tasks) {
+                winners.add(task.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(50, catalog.size());
+        assertEquals(50, seen.size());
+        for (PresetModel winner : winners) {
+            assertSame(winners.get(0), winner);
+        }
+    }
+}
@@ -2,8 +2,10 @@ package uk.ac.ncl.csc8404.pcretailer.model;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.SortedSet;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,6 +23,29 @@ class PresetModelTest {
         assertTrue(model.toString().contains("ACME"));
     }
 
+    @Test
+    void partsAreSharedIdsWithSortedView() {
+        PresetModel model = PresetModel.of("ACME", "Workstation", List.of("SSD", " CPU ", "RAM", "CPU"));
+        CustomModel custom = CustomModel.of("Rig", List.of("RAM", "GPU"));
+        assertEquals(List.of("CPU", "RAM", "SSD"), new ArrayList<>(model.getParts()));
+        assertTrue(model.getParts().contains("RAM"));
+        assertFalse(model.getParts().contains("GPU"));
+
+        PartDictionary dictionary = PartDictionary.shared();
+        List<Integer> ids = new ArrayList<>();
+        model.forEachPartId(ids::add);
+        assertEquals(List.of(dictionary.idOf("CPU"), dictionary.idOf("RAM"), dictionary.idOf("SSD")), ids);
+        List<Integer> customIds = new ArrayList<>();
+        custom.forEachPartId(customIds::add);
+        assertEquals(dictionary.idOf("RAM"), customIds.get(1));
+
+        SortedSet<String> sorted = ((CustomModel) custom.withPart("CPU")).getParts();
+        assertEquals("CPU", sorted.first());
+        assertEquals(Set.of("GPU", "RAM"), sorted.tailSet("D"));
+        assertEquals(Set.of("CPU"), sorted.headSet("GPU"));
+        assertEquals(PresetModel.of("ACME", "Workstation", List.of("RAM", "SSD", "CPU")), model);
+    }
+
     @Test
     void rejectsBlankFields() {
         assertThrows(IllegalArgumentException.class,
@@ -0,0 +1,115 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.model.CustomModel;
+import uk.ac.ncl.csc8404.pcretailer.model.PresetModel;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColdOrderStoreTest {
+
+    // old orders go to disk and should still come back when asked
+
+    @TempDir
+    Path directory;
+
+    private final Customer alice = Customer.of("C-1", "Adill");
+    private final Customer bob = Customer.of("C-2", "nawaz");
+    private final PresetModel bolt = PresetModel.of("ACME", "Bolt", List.of("CPU", "RAM"));
+    private final CustomModel rig = CustomModel.of("Rig", List.of("CPU", "GPU"));
+    private final List<UUID> ids = new ArrayList<>();
+    private CreditCard card;
+    private Date start;
+    private Date now;
+    private ColdOrderStore cold;
+    private OrderService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        card = new CreditCardFactory().register("12345670", buildDate(2099, Calendar.JANUARY, 1), "nawaz");
+        start = buildDate(2025, Calendar.JANUARY, 1);
+        cold = ColdOrderStore.open(directory, Duration.ofDays(1), 2, new CreditCardFactory());
+        service = new OrderService(OrderServiceConfig.defaults()
+                .withClock(() -> new Date(now.getTime()))
+                .withColdStore(cold));
+        for (int i = 0; i < 3_000; i++) {
+            now = new Date(start.getTime() + i * 1_000L);
+            Customer customer = i % 3 == 0 ? alice : bob;
+            ids.add(service.placeOrder(customer, card, List.of(OrderLine.of(bolt, 1 + i % 4), OrderLine.of(rig, 1))).getId());
+        }
+        service.fulfillOrders(ids.subList(0, 2_500));
+        service.cancelOrder(ids.get(2_500));
+        now = new Date(start.getTime() + TimeUnit.DAYS.toMillis(2));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        cold.close();
+    }
+
+    @Test
+    void finishedOrdersMoveToDisk() {
+        assertEquals(2_501, service.evictFinishedOrders());
+        assertEquals(2_501, cold.orderCount());
+        assertEquals(3, cold.blockCount());
+    }
+
+    @Test
+    void coldOrdersAreNotWrittenAgain() {
+        service.evictFinishedOrders();
+        assertEquals(0, service.evictFinishedOrders());
+        assertEquals(2_501, cold.orderCount());
+        assertEquals(3, cold.blockCount());
+    }
+
+    @Test
+    void coldOrdersReadBackWholeAndStayFinished() {
+        service.evictFinishedOrders();
+
+        CustomerOrder coldOrder = service.findOrder(ids.get(7)).orElseThrow();
+        assertEquals(OrderStatus.FULFILLED, coldOrder.getStatus());
+        assertEquals(bob, coldOrder.getCustomer());
+        assertEquals(List.of(OrderLine.of(bolt, 4), OrderLine.of(rig, 1)), coldOrder.getOrderLines());
+        assertEquals(new Date(start.getTime() + 7_000L), coldOrder.getPlacedAt());
+        assertEquals(card, coldOrder.getPaymentMethod());
+        assertEquals(OrderStatus.CANCELLED, service.findOrder(ids.get(2_500)).orElseThrow().getStatus());
+        assertThrows(IllegalStateException.class, () -> service.cancelOrder(ids.get(7)));
+        assertThrows(IllegalStateException.class, () -> service.fulfillOrder(ids.get(2_500)));
+    }
+
+    @Test
+    void placedOrdersStayOnTheHeapAndQueriesSeeBoth() {
+        service.evictFinishedOrders();
+
+        service.fulfillOrder(ids.get(2_999));
+        assertEquals(ids.subList(2_501, 2_999), service.findOrders(OrderQuery.all().withStatus(OrderStatus.PLACED))
+                .map(CustomerOrder::getId).toList());
+        assertEquals(1_000, service.findOrders(OrderQuery.all().withCustomer(alice)).count());
+        assertEquals(ids.subList(0, 10), service.findOrders(OrderQuery.all()
+                .withPlacedBetween(start, new Date(start.getTime() + 10_000L))).map(CustomerOrder::getId).toList());
+        assertEquals(3_000, service.snapshotContents(0).orders().size());
+    }
+
+    private static Date buildDate(int year, int month, int dayOfMonth) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, dayOfMonth, 0, 0, 0);
+        return calendar.getTime();
+    }
+}
@@ -0,0 +1,136 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.model.PresetModel;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FulfillmentPipelineTest {
+
+    // a clock that hangs on worker threads is the easiest way to keep workers busy
+
+    private final Date now = buildDate(2025, Calendar.JANUARY, 1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final Semaphore workersStuck = new Semaphore(0);
+    private volatile boolean hang;
+    private volatile Error clockFailure;
+    private final OrderService service = new OrderService(() -> {
+        if (clockFailure != null && Thread.currentThread().getName().startsWith("order-fulfilment-")) {
+            throw clockFailure;
+        }
+        if (hang && Thread.currentThread().getName().startsWith("order-fulfilment-")) {
+            workersStuck.release();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return new Date(now.getTime());
+    });
+    private final Customer customer = Customer.of("C-1", "Adill");
+    private final CreditCard card = new CreditCardFactory().register("12345670", buildDate(2099, Calendar.JANUARY, 1), "Adill");
+    private final PresetModel bolt = PresetModel.of("ACME", "Bolt", List.of("CPU", "RAM"));
+
+    @Test
+    void futuresCompleteWithPlansAndFailures() throws Exception {
+        List<UUID> ids = place(50);
+        service.cancelOrder(ids.get(0));
+        List<CompletableFuture<FulfillmentPlan>> futures = new ArrayList<>();
+        try (FulfillmentPipeline pipeline = FulfillmentPipeline.start(service, 4, 8, Backpressure.BLOCK)) {
+            for (UUID id : ids) {
+                futures.add(pipeline.submit(id));
+            }
+            for (int i = 1; i < futures.size(); i++) {
+                FulfillmentPlan plan = futures.get(i).get(5, TimeUnit.SECONDS);
+                assertEquals(1 + i % 3, plan.getPresetModelCounts().get("ACME").get("Bolt"));
+            }
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> futures.get(0).get());
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+
+            FulfillmentPipelineStats stats = pipeline.stats();
+            assertEquals(50, stats.getSubmitted());
+            assertEquals(49, stats.getCompleted());
+            assertEquals(1, stats.getFailed());
+            assertEquals(0, stats.getRejected());
+            assertEquals(50, stats.getProcessing().getCount());
+            assertEquals(50, stats.getQueueWait().getCount());
+        }
+        assertEquals(customer, service.analytics().largestCustomer().orElseThrow());
+    }
+
+    @Test
+    void anErrorStillFailsTheFuture() throws Exception {
+        List<UUID> ids = place(1);
+        clockFailure = new AssertionError("clock broke");
+        try (FulfillmentPipeline pipeline = FulfillmentPipeline.start(service, 1, 8, Backpressure.BLOCK)) {
+            CompletableFuture<FulfillmentPlan> future = pipeline.submit(ids.get(0));
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> future.get(5, TimeUnit.SECONDS));
+            assertSame(clockFailure, failure.getCause());
+            assertEquals(1, pipeline.stats().getFailed());
+        }
+    }
+
+    @Test
+    void fullQueueRejectsOrRunsOnCaller() throws Exception {
+        List<UUID> ids = place(7);
+        hang = true;
+        FulfillmentPipeline rejecting = FulfillmentPipeline.start(service, 1, 1, Backpressure.REJECT);
+        FulfillmentPipeline callerRuns = FulfillmentPipeline.start(service, 1, 1, Backpressure.CALLER_RUNS);
+        List<CompletableFuture<FulfillmentPlan>> accepted = new ArrayList<>();
+        accepted.add(rejecting.submit(ids.get(0)));
+        accepted.add(callerRuns.submit(ids.get(1)));
+        assertTrue(workersStuck.tryAcquire(2, 5, TimeUnit.SECONDS));
+        accepted.add(rejecting.submit(ids.get(2)));
+        accepted.add(callerRuns.submit(ids.get(3)));
+
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> rejecting.submit(ids.get(4)).get());
+        assertInstanceOf(RejectedExecutionException.class, rejected.getCause());
+        assertEquals(1, rejecting.stats().getRejected());
+        assertEquals(1, rejecting.stats().getQueued());
+        assertTrue(callerRuns.submit(ids.get(5)).isDone(), "a full queue makes the caller fulfil the order itself");
+        assertEquals(OrderStatus.FULFILLED, service.findOrder(ids.get(5)).orElseThrow().getStatus());
+
+        hang = false;
+        release.countDown();
+        for (CompletableFuture<FulfillmentPlan> future : accepted) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        rejecting.close();
+        callerRuns.close();
+        assertThrows(ExecutionException.class, () -> rejecting.submit(ids.get(6)).get());
+        assertThrows(ExecutionException.class, () -> callerRuns.submit(ids.get(6)).get());
+        assertEquals(OrderStatus.PLACED, service.findOrder(ids.get(6)).orElseThrow().getStatus());
+    }
+
+    private List<UUID> place(int count) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(service.placeOrder(customer, card, List.of(OrderLine.of(bolt, 1 + i % 3))).getId());
+        }
+        return ids;
+    }
+
+    private static Date buildDate(int year, int month, int dayOfMonth) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, dayOfMonth, 0, 0, 0);
+        return calendar.getTime();
+    }
+}
@@ -0,0 +1,103 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.model.CustomModel;
+import uk.ac.ncl.csc8404.pcretailer.model.PresetModel;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapOrderStoreTest {
+
+    // same behaviour as the heap store, just packed into direct memory
+
+    private final Date now = buildDate(2025, Calendar.JANUARY, 1);
+    private final Customer alice = Customer.of("C-1", "Adill");
+    private final Customer bob = Customer.of("C-2", "nawaz");
+    private final CreditCard card = new CreditCardFactory().register("12345670", buildDate(2099, Calendar.JANUARY, 1), "nawaz");
+    private final PresetModel bolt = PresetModel.of("ACME", "Bolt", List.of("CPU", "RAM"));
+    private final CustomModel rig = CustomModel.of("Rig", List.of("CPU", "GPU"));
+
+    @Test
+    void serviceRunsOnOffHeapOrders() {
+        OrderService service = new OrderService(OrderServiceConfig.defaults()
+                .withClock(() -> new Date(now.getTime()))
+                .withOffHeapOrders(true));
+        CustomerOrder first = service.placeOrder(alice, card, List.of(OrderLine.of(bolt, 2), OrderLine.of(rig, 1)));
+        CustomerOrder second = service.placeOrder(bob, card, List.of(OrderLine.of(bolt, 1)));
+
+        assertEquals(alice, first.getCustomer());
+        assertEquals(card, first.getPaymentMethod());
+        assertEquals(now, first.getPlacedAt());
+        assertEquals(List.of(OrderLine.of(bolt, 2), OrderLine.of(rig, 1)), first.getOrderLines());
+        assertEquals(OrderStatus.PLACED, first.getStatus());
+
+        FulfillmentPlan plan = service.fulfillOrder(first.getId());
+        service.cancelOrder(second.getId());
+        assertEquals(OrderStatus.FULFILLED, first.getStatus(), "views see status changes made in place");
+        assertEquals(OrderStatus.CANCELLED, second.getStatus());
+        assertEquals(2, plan.getPresetModelCounts().get("ACME").get("Bolt"));
+        assertEquals(1, plan.getCustomPartCounts().get("GPU"));
+        assertThrows(IllegalStateException.class, () -> service.cancelOrder(first.getId()));
+
+        assertEquals(first, service.findOrder(first.getId()).orElseThrow());
+        assertEquals(alice, service.analytics().largestCustomer().orElseThrow());
+        assertEquals(List.of(second.getId()), service.findOrders(OrderQuery.all().withStatus(OrderStatus.CANCELLED))
+                .map(CustomerOrder::getId).toList());
+    }
+
+    @Test
+    void storeSurvivesGrowthRemovalAndReplacement() {
+        OffHeapOrderStore store = new OffHeapOrderStore();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            StandardOrder order = new StandardOrder(UUID.randomUUID(), i % 2 == 0 ? alice : bob,
+                    List.of(OrderLine.of(bolt, 1 + i % 7)), card, new Date(now.getTime() + i));
+            ids.add(order.getId());
+            assertEquals(order, store.put(order));
+        }
+        assertEquals(5_000, store.size());
+
+        OrderRecord kept = store.get(ids.get(10));
+        for (int i = 0; i < 5_000; i += 2) {
+            store.remove(ids.get(i));
+        }
+        assertEquals(2_500, store.size());
+        assertNull(store.get(ids.get(10)));
+        assertEquals(now.getTime() + 10, kept.placedAtMillis(), "views stay readable after removal");
+
+        OrderRecord found = store.get(ids.get(11));
+        assertEquals(bob, found.getCustomer());
+        assertEquals(List.of(OrderLine.of(bolt, 5)), found.getOrderLines());
+        assertTrue(found.transition(OrderStatus.PLACED, OrderStatus.FULFILLED));
+        assertFalse(store.get(ids.get(11)).transition(OrderStatus.PLACED, OrderStatus.CANCELLED));
+
+        StandardOrder replacement = new StandardOrder(ids.get(13), alice, List.of(OrderLine.of(rig, 3)), card, now);
+        store.put(replacement);
+        assertEquals(2_500, store.size());
+        assertEquals(List.of(OrderLine.of(rig, 3)), store.get(ids.get(13)).getOrderLines());
+
+        Set<UUID> seen = new HashSet<>();
+        store.forEach(order -> seen.add(order.getId()));
+        assertEquals(2_500, seen.size());
+        assertTrue(seen.contains(ids.get(4_999)));
+        assertFalse(seen.contains(ids.get(4_998)));
+    }
+
+    private static Date buildDate(int year, int month, int dayOfMonth) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, dayOfMonth, 0, 0, 0);
+        return calendar.getTime();
+    }
+}
@@ -0,0 +1,116 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderIdGeneratorTest {
+
+    // ids have to be unique first and sorted second
+
+    @Test
+    void timeOrderedIdsSortByPlacementAndNeverGoBack() {
+        OrderIdGenerator generator = OrderIdGenerator.timeOrdered();
+        UUID early = generator.next(1_000);
+        UUID late = generator.next(2_000);
+        assertTrue(early.compareTo(late) < 0);
+        assertEquals(7, late.version());
+        assertEquals(2, late.variant());
+        assertEquals(2_000, late.getMostSignificantBits() >>> 16);
+
+        UUID previous = late;
+        for (long millis : new long[]{2_000, 2_000, 1_500, 2_001}) {
+            UUID next = generator.next(millis);
+            assertTrue(previous.compareTo(next) < 0, "a thread's ids keep rising even when the clock steps back");
+            previous = next;
+        }
+        assertThrows(IllegalArgumentException.class, () -> generator.next(-1));
+    }
+
+    @Test
+    void threadsSharingOneMillisecondGetDistinctIds() throws Exception {
+        OrderIdGenerator generator = OrderIdGenerator.timeOrdered();
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        ids.add(generator.next(42));
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(160_000, ids.size());
+    }
+
+    @Test
+    void shardsOfDeadThreadsAreReusedAndRunningOutFails() throws Exception {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(2);
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch holding = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> holders = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            Thread holder = new Thread(() -> {
+                ids.add(generator.next(42));
+                holding.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            holder.start();
+            holders.add(holder);
+        }
+        holding.await();
+        assertInstanceOf(IllegalStateException.class, runOnNewThread(() -> ids.add(generator.next(42))));
+
+        release.countDown();
+        for (Thread holder : holders) {
+            holder.join();
+        }
+        holders.clear();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        Throwable failure;
+        do {
+            // the shards come back once the dead threads are collected
+            System.gc();
+            failure = runOnNewThread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    ids.add(generator.next(42));
+                }
+            });
+        } while (failure != null && System.nanoTime() < deadline);
+        assertNull(failure);
+        assertEquals(1_002, ids.size());
+    }
+
+    private static Throwable runOnNewThread(Runnable task) throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(task);
+        thread.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+        thread.start();
+        thread.join();
+        return failure.get();
+    }
+}
@@ -1,5 +1,8 @@
 package uk.ac.ncl.csc8404.pcretailer.order;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
@@ -9,10 +12,26 @@ import uk.ac.ncl.csc8404.pcretailer.model.PresetModel;
 import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
 import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
 
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -80,6 +99,33 @@ class OrderServiceTest {
         assertEquals("CPU", analytics.mostOrderedCustomPart().orElseThrow());
     }
 
+    @Test
+    void planMapsAreSortedReadOnlyViews() {
+        Customer customer = Customer.of("C-1", "nawaz");
+        CreditCard card = cardFactory.register("12345670", buildDate(2030, Calendar.JANUARY, 1), "nawaz");
+        CustomerOrder order = service.placeOrder(customer, card, List.of(
+                OrderLine.of(PresetModel.of("Zeta", "Nut", List.of("SSD")), 1),
+                OrderLine.of(PresetModel.of("ACME", "Crate", List.of("CPU")), 4),
+                OrderLine.of(PresetModel.of("ACME", "Bolt", List.of("CPU")), 2),
+                OrderLine.of(customFactory.create("Rig", List.of("RAM", "GPU", "CPU")), 3)
+        ));
+
+        FulfillmentPlan plan = service.fulfillOrder(order.getId());
+
+        Map<String, Map<String, Integer>> presets = plan.getPresetModelCounts();
+        assertEquals(Map.of("ACME", Map.of("Bolt", 2, "Crate", 4), "Zeta", Map.of("Nut", 1)), presets);
+        assertEquals(List.of("ACME", "Zeta"), new ArrayList<>(presets.keySet()));
+        assertEquals(List.of("Bolt", "Crate"), new ArrayList<>(presets.get("ACME").keySet()));
+        assertEquals(List.of("CPU", "GPU", "RAM"), new ArrayList<>(plan.getCustomPartCounts().keySet()));
+        assertEquals(3, plan.getCustomPartCounts().get("RAM"));
+        assertNull(presets.get("TechCorp"));
+        assertNull(plan.getCustomPartCounts().get(42));
+        assertSame(presets, plan.getPresetModelCounts());
+        assertThrows(UnsupportedOperationException.class, () -> presets.put("TechCorp", Map.of()));
+        assertThrows(UnsupportedOperationException.class, () -> presets.get("ACME").remove("Bolt"));
+        assertThrows(UnsupportedOperationException.class, () -> plan.getCustomPartCounts().clear());
+    }
+
     @Test
     void analyticsResolveAlphabeticalTies() {
         Customer alice = Customer.of("C-1", "Adill");
@@ -110,6 +156,130 @@ class OrderServiceTest {
         assertEquals("CPU", analytics.mostOrderedCustomPart().orElseThrow());
     }
 
+    @Test
+    void leaderboardsRankTopEntries() {
+        Customer alice = Customer.of("C-1", "Adill");
+        Customer bob = Customer.of("C-2", "nawaz");
+        CreditCard aliceCard = cardFactory.register("23456781", buildDate(2031, Calendar.FEBRUARY, 1), "Alice");
+        CreditCard bobCard = cardFactory.register("34567812", buildDate(2031, Calendar.MARCH, 1), "nawaz");
+
+        PresetModel acmeAlpha = PresetModel.of("Acme", "Alpha", List.of("CPU"));
+        PresetModel acmeBeta = PresetModel.of("Acme", "Beta", List.of("CPU"));
+        PresetModel zetaGamma = PresetModel.of("Zeta", "Gamma", List.of("CPU"));
+        CustomModel custom = customFactory.create("Custom", List.of("CPU", "GPU"));
+
+        service.fulfillOrder(service.placeOrder(bob, bobCard, List.of(
+                OrderLine.of(acmeBeta, 3),
+                OrderLine.of(zetaGamma, 5))).getId());
+        service.fulfillOrder(service.placeOrder(bob, bobCard, List.of(
+                OrderLine.of(acmeAlpha, 1),
+                OrderLine.of(custom.withPart("SSD"), 2))).getId());
+        service.fulfillOrder(service.placeOrder(alice, aliceCard, List.of(
+                OrderLine.of(acmeAlpha, 2),
+                OrderLine.of(custom, 1))).getId());
+
+        assertEquals(List.of(new Ranked<>(bob, 2), new Ranked<>(alice, 1)), service.topCustomers(5));
+        assertEquals(List.of(
+                new Ranked<>(new PresetModelKey("Zeta", "Gamma"), 5),
+                new Ranked<>(new PresetModelKey("Acme", "Alpha"), 3),
+                new Ranked<>(new PresetModelKey("Acme", "Beta"), 3)), service.topPresetModels(3));
+        assertEquals(List.of(new Ranked<>("Alpha", 3)), service.topPresetModels("Acme", 1));
+        assertTrue(service.topPresetModels("Nobody", 3).isEmpty());
+        assertEquals(List.of(new Ranked<>("CPU", 3), new Ranked<>("GPU", 3), new Ranked<>("SSD", 2)),
+                service.topCustomParts(10));
+        assertEquals("Gamma", service.analytics().mostOrderedPresetModel().orElseThrow());
+    }
+
+    @Test
+    void concurrentFulfilmentKeepsExactTotals() throws Exception {
+        Customer customer = Customer.of("C-7", "fathima");
+        CreditCard card = cardFactory.register("87123456", buildDate(2032, Calendar.JANUARY, 1), "fathima");
+        PresetModel preset = PresetModel.of("ACME", "Starter", List.of("CPU"));
+        CustomModel rig = customFactory.create("Rig", List.of("CPU", "GPU"));
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            ids.add(service.placeOrder(customer, card, List.of(OrderLine.of(preset, 1), OrderLine.of(rig, 2))).getId());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int shard = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = shard; i < ids.size(); i += 8) {
+                        service.fulfillOrder(ids.get(i));
+                        if (i % 100 == 0) {
+                            service.analytics();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(List.of(new Ranked<>(customer, 2000)), service.topCustomers(5));
+        assertEquals(List.of(new Ranked<>("Starter", 2000)), service.topPresetModels("ACME", 5));
+        assertEquals(List.of(new Ranked<>("CPU", 4000), new Ranked<>("GPU", 4000)), service.topCustomParts(5));
+    }
+
+    @Test
+    void placeOrdersReportsPerOrderOutcomes() {
+        Customer customer = Customer.of("C-6", "jai");
+        CreditCard card = cardFactory.register("78123456", buildDate(2032, Calendar.JANUARY, 1), "jai");
+        CreditCard expired = cardFactory.register("81234567", buildDate(2020, Calendar.JANUARY, 1), "jai");
+        PresetModel preset = PresetModel.of("ACME", "Starter", List.of("CPU"));
+        List<OrderLine> lines = List.of(OrderLine.of(preset, 1));
+
+        List<OrderOutcome<CustomerOrder>> outcomes = service.placeOrders(List.of(
+                OrderRequest.of(customer, card, lines),
+                OrderRequest.of(customer, expired, lines),
+                OrderRequest.of(customer, card, lines)));
+
+        assertEquals(3, outcomes.size());
+        assertTrue(outcomes.get(0).isSuccess());
+        assertInstanceOf(IllegalArgumentException.class, outcomes.get(1).error().orElseThrow());
+        assertThrows(IllegalArgumentException.class, () -> outcomes.get(1).orElseThrow());
+        CustomerOrder second = outcomes.get(2).orElseThrow();
+        assertEquals(now, second.getPlacedAt());
+        assertSame(lines, second.getOrderLines());
+        assertEquals(OrderStatus.FULFILLED, fulfilAndGet(second));
+        assertThrows(IllegalArgumentException.class, () -> OrderRequest.of(customer, card, List.of()));
+    }
+
+    @Test
+    void fulfillOrdersMergesPlansAndReportsFailures() {
+        Customer alice = Customer.of("C-1", "Adill");
+        Customer bob = Customer.of("C-2", "nawaz");
+        CreditCard card = cardFactory.register("12345670", buildDate(2030, Calendar.JANUARY, 1), "nawaz");
+        PresetModel acmeBolt = PresetModel.of("ACME", "Bolt", List.of("CPU", "RAM"));
+        CustomModel rig = customFactory.create("Rig", List.of("CPU", "GPU"));
+
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Customer customer = i % 3 == 0 ? alice : bob;
+            ids.add(service.placeOrder(customer, card, List.of(OrderLine.of(acmeBolt, 1), OrderLine.of(rig, 2))).getId());
+        }
+        service.cancelOrder(ids.get(0));
+        ids.add(ids.get(1));
+        ids.add(UUID.randomUUID());
+
+        BulkFulfillment result = service.fulfillOrders(ids);
+
+        assertEquals(302, result.getOutcomes().size());
+        assertEquals(299, result.fulfilledCount());
+        assertFalse(result.getOutcomes().get(0).isSuccess());
+        assertInstanceOf(IllegalStateException.class, result.getOutcomes().get(300).error().orElseThrow());
+        assertInstanceOf(IllegalArgumentException.class, result.getOutcomes().get(301).error().orElseThrow());
+        assertEquals(299, result.getPlan().getPresetModelCounts().get("ACME").get("Bolt"));
+        assertEquals(598, result.getPlan().getCustomPartCounts().get("GPU"));
+        assertEquals(List.of(new Ranked<>(bob, 200), new Ranked<>(alice, 99)), service.topCustomers(2));
+    }
+
     @Test
     void cannotFulfilCancelledOrder() {
         Customer customer = Customer.of("C-3", "fathima");
@@ -124,6 +294,315 @@ class OrderServiceTest {
         assertThrows(IllegalStateException.class, () -> service.fulfillOrder(id));
     }
 
+    @Test
+    void racingCancelAndFulfilHaveExactlyOneWinner() throws Exception {
+        Customer customer = Customer.of("C-4", "khwaja");
+        CreditCard card = cardFactory.register("56781234", buildDate(2032, Calendar.JANUARY, 1), "khwaja");
+        PresetModel preset = PresetModel.of("ACME", "Starter", List.of("CPU"));
+
+        int orderCount = 200;
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < orderCount; i++) {
+            ids.add(service.placeOrder(customer, card, List.of(OrderLine.of(preset, 1))).getId());
+        }
+
+        AtomicInteger cancelled = new AtomicInteger();
+        AtomicInteger fulfilled = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (UUID id : ids) {
+                    try {
+                        service.cancelOrder(id);
+                        cancelled.incrementAndGet();
+                    } catch (IllegalStateException lost) {
+                        // fulfil got there first
+                    }
+                }
+                return null;
+            }));
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (UUID id : ids) {
+                    try {
+                        service.fulfillOrder(id);
+                        fulfilled.incrementAndGet();
+                    } catch (IllegalStateException lost) {
+                        // cancel got there first
+                    }
+                }
+                return null;
+            }));
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(orderCount, cancelled.get() + fulfilled.get());
+        if (fulfilled.get() > 0) {
+            assertEquals(customer, service.analytics().largestCustomer().orElseThrow());
+        }
+    }
+
+    @Test
+    void placesOrdersFromManyThreads() throws Exception {
+        Customer customer = Customer.of("C-5", "naseema");
+        CreditCard card = cardFactory.register("67812345", buildDate(2032, Calendar.JANUARY, 1), "naseema");
+        PresetModel preset = PresetModel.of("ACME", "Starter", List.of("CPU"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<CustomerOrder>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 500; i++) {
+                futures.add(pool.submit(() -> service.placeOrder(customer, card, List.of(OrderLine.of(preset, 1)))));
+            }
+            for (Future<CustomerOrder> future : futures) {
+                service.fulfillOrder(future.get(30, TimeUnit.SECONDS).getId());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(customer, service.analytics().largestCustomer().orElseThrow());
+    }
+
+    @Test
+    void findOrdersUsesCustomerStatusAndTimeIndexes() {
+        Customer alice = Customer.of("C-1", "nawaz");
+        Customer bob = Customer.of("C-2", "khwaja");
+        CreditCard aliceCard = cardFactory.register("11112222", buildDate(2032, Calendar.JANUARY, 1), "nawaz");
+        CreditCard bobCard = cardFactory.register("33334444", buildDate(2032, Calendar.JANUARY, 1), "khwaja");
+        PresetModel preset = PresetModel.of("ACME", "Starter", List.of("CPU"));
+        List<OrderLine> lines = List.of(OrderLine.of(preset, 1));
+
+        List<CustomerOrder> aliceOrders = new ArrayList<>();
+        List<CustomerOrder> bobOrders = new ArrayList<>();
+        Date start = now;
+        for (int hour = 0; hour < 6; hour++) {
+            now = new Date(start.getTime() + TimeUnit.HOURS.toMillis(hour));
+            aliceOrders.add(service.placeOrder(alice, aliceCard, lines));
+            bobOrders.add(service.placeOrder(bob, bobCard, lines));
+        }
+        service.fulfillOrder(aliceOrders.get(0).getId());
+        service.cancelOrder(aliceOrders.get(1).getId());
+        service.fulfillOrders(List.of(bobOrders.get(2).getId()));
+
+        assertEquals(aliceOrders, service.findOrders(OrderQuery.all().withCustomer(alice)).toList());
+        assertEquals(aliceOrders.subList(2, 6),
+                service.findOrders(OrderQuery.all().withCustomer(alice).withStatus(OrderStatus.PLACED)).toList());
+        assertEquals(List.of(aliceOrders.get(0), bobOrders.get(2)),
+                service.findOrders(OrderQuery.all().withStatus(OrderStatus.FULFILLED)).toList());
+        assertEquals(List.of(aliceOrders.get(1)),
+                service.findOrders(OrderQuery.all().withStatus(OrderStatus.CANCELLED)).toList());
+
+        Date from = new Date(start.getTime() + TimeUnit.HOURS.toMillis(2));
+        Date to = new Date(start.getTime() + TimeUnit.HOURS.toMillis(4));
+        assertEquals(4, service.findOrders(OrderQuery.all().withPlacedBetween(from, to)).count());
+        assertEquals(List.of(bobOrders.get(3)), service.findOrders(OrderQuery.all()
+                .withCustomer(bob).withStatus(OrderStatus.PLACED).withPlacedBetween(from, to)).toList());
+        assertEquals(0, service.findOrders(OrderQuery.all().withCustomer(Customer.of("C-9", "nobody"))).count());
+        assertThrows(IllegalArgumentException.class, () -> OrderQuery.all().withPlacedBetween(to, from));
+    }
+
+    @Test
+    void sweepsFindOrdersWhoseCardExpiredWhilePlaced() throws Exception {
+        Customer customer = Customer.of("C-1", "jai");
+        CreditCard february = cardFactory.register("11111111", buildDate(2025, Calendar.FEBRUARY, 1), "jai");
+        CreditCard march = cardFactory.register("22222222", buildDate(2025, Calendar.MARCH, 1), "jai");
+        CreditCard later = cardFactory.register("33333333", buildDate(2030, Calendar.JANUARY, 1), "jai");
+        PresetModel bolt = PresetModel.of("ACME", "Bolt", List.of("CPU"));
+        UUID lapsed = service.placeOrder(customer, february, List.of(OrderLine.of(bolt, 1))).getId();
+        UUID shipped = service.placeOrder(customer, february, List.of(OrderLine.of(bolt, 1))).getId();
+        UUID flagged = service.placeOrder(customer, march, List.of(OrderLine.of(bolt, 1))).getId();
+        UUID good = service.placeOrder(customer, later, List.of(OrderLine.of(bolt, 1))).getId();
+        service.fulfillOrder(shipped);
+
+        now = buildDate(2025, Calendar.FEBRUARY, 1);
+        assertTrue(service.sweepExpiredCards(ExpiredCardAction.CANCEL).isEmpty(), "valid on its expiry date");
+        now = buildDate(2025, Calendar.FEBRUARY, 2);
+        List<CustomerOrder> cancelled = service.sweepExpiredCards(ExpiredCardAction.CANCEL);
+        assertEquals(List.of(lapsed), cancelled.stream().map(CustomerOrder::getId).toList());
+        assertEquals(OrderStatus.CANCELLED, service.findOrder(lapsed).orElseThrow().getStatus());
+        assertEquals(OrderStatus.FULFILLED, service.findOrder(shipped).orElseThrow().getStatus());
+
+        now = buildDate(2025, Calendar.MARCH, 2);
+        assertEquals(flagged, service.sweepExpiredCards(ExpiredCardAction.FLAG).get(0).getId());
+        assertEquals(OrderStatus.PLACED, service.findOrder(flagged).orElseThrow().getStatus());
+        assertTrue(service.sweepExpiredCards(ExpiredCardAction.FLAG).isEmpty(), "each order is reported once");
+
+        List<CustomerOrder> heard = new ArrayList<>();
+        CountDownLatch swept = new CountDownLatch(1);
+        try (ExpirySweeper sweeper = new ExpirySweeper(service, ExpiredCardAction.CANCEL, order -> {
+            heard.add(order);
+            swept.countDown();
+        })) {
+            now = buildDate(2030, Calendar.JANUARY, 2);
+            assertThrows(IllegalArgumentException.class, () -> sweeper.start(Duration.ofMillis(10)));
+            sweeper.start(Duration.ofSeconds(1));
+            assertTrue(swept.await(5, TimeUnit.SECONDS));
+            assertEquals(good, heard.get(0).getId());
+            assertEquals(1, sweeper.affectedCount());
+            assertTrue(sweeper.lastFailure().isEmpty());
+        }
+        assertEquals(OrderStatus.CANCELLED, service.findOrder(good).orElseThrow().getStatus());
+    }
+
+    @Test
+    void windowedAnalyticsForgetOldFulfilments() {
+        Customer alice = Customer.of("C-1", "nawaz");
+        Customer bob = Customer.of("C-2", "khwaja");
+        CreditCard aliceCard = cardFactory.register("11112222", buildDate(2032, Calendar.JANUARY, 1), "nawaz");
+        CreditCard bobCard = cardFactory.register("33334444", buildDate(2032, Calendar.JANUARY, 1), "khwaja");
+        PresetModel bolt = PresetModel.of("ACME", "Bolt", List.of("CPU"));
+        PresetModel nano = PresetModel.of("TechCorp", "Nano", List.of("CPU"));
+        CustomModel rig = customFactory.create("Rig", List.of("GPU"));
+        CustomModel box = customFactory.create("Box", List.of("SSD"));
+
+        Date start = now;
+        for (int i = 0; i < 3; i++) {
+            service.fulfillOrder(service.placeOrder(alice, aliceCard,
+                    List.of(OrderLine.of(bolt, 5), OrderLine.of(rig, 5))).getId());
+        }
+        now = new Date(start.getTime() + TimeUnit.HOURS.toMillis(2));
+        service.fulfillOrder(service.placeOrder(bob, bobCard,
+                List.of(OrderLine.of(nano, 1), OrderLine.of(box, 1))).getId());
+
+        OrderAnalytics lastHour = service.analytics(AnalyticsWindow.LAST_HOUR);
+        assertEquals(bob, lastHour.largestCustomer().orElseThrow());
+        assertEquals("Nano", lastHour.mostOrderedPresetModel().orElseThrow());
+        assertEquals("TechCorp", lastHour.presetManufacturer().orElseThrow());
+        assertEquals("SSD", lastHour.mostOrderedCustomPart().orElseThrow());
+
+        OrderAnalytics lastDay = service.analytics(AnalyticsWindow.LAST_DAY);
+        assertEquals(alice, lastDay.largestCustomer().orElseThrow());
+        assertEquals("Bolt", lastDay.mostOrderedPresetModel().orElseThrow());
+        assertEquals("GPU", lastDay.mostOrderedCustomPart().orElseThrow());
+
+        now = new Date(start.getTime() + TimeUnit.DAYS.toMillis(8));
+        assertTrue(service.analytics(AnalyticsWindow.LAST_WEEK).largestCustomer().isEmpty());
+        assertEquals(alice, service.analytics().largestCustomer().orElseThrow());
+    }
+
+    @Test
+    void metricsCountOutcomesAndPublishThroughJmx() throws Exception {
+        Customer customer = Customer.of("C-1", "naseema");
+        CreditCard card = cardFactory.register("24681357", buildDate(2030, Calendar.JANUARY, 1), "naseema");
+        PresetModel preset = PresetModel.of("ACME", "Starter", List.of("CPU"));
+        CustomerOrder first = service.placeOrder(customer, card, List.of(OrderLine.of(preset, 1)));
+        CustomerOrder second = service.placeOrder(customer, card, List.of(OrderLine.of(preset, 2)));
+        service.placeOrder(customer, card, List.of(OrderLine.of(preset, 3)));
+        service.fulfillOrder(first.getId());
+        service.cancelOrder(second.getId());
+        assertThrows(IllegalStateException.class, () -> service.fulfillOrder(second.getId()));
+        assertThrows(IllegalArgumentException.class, () -> service.fulfillOrder(UUID.randomUUID()));
+        service.analytics();
+
+        OrderServiceMetrics metrics = service.metrics();
+        assertTrue(metrics.isEnabled());
+        assertEquals(3, metrics.getOperation(OrderOperation.PLACE_ORDER).getSuccesses());
+        assertEquals(1, metrics.getOperation(OrderOperation.CANCEL_ORDER).getSuccesses());
+        assertEquals(1, metrics.getOperation(OrderOperation.ANALYTICS).getSuccesses());
+        OperationStats fulfil = metrics.getOperation(OrderOperation.FULFILL_ORDER);
+        assertEquals(1, fulfil.getSuccesses());
+        assertEquals(2, fulfil.getFailures());
+        assertEquals(Map.of(IllegalStateException.class.getName(), 1L, IllegalArgumentException.class.getName(), 1L),
+                fulfil.getFailuresByType());
+        assertTrue(fulfil.getP50Nanos() > 0);
+        assertTrue(fulfil.getP50Nanos() <= fulfil.getP99Nanos() && fulfil.getP99Nanos() <= fulfil.getP999Nanos());
+        assertTrue(fulfil.getP999Nanos() <= fulfil.getMaxNanos());
+        assertEquals(Map.of(OrderStatus.PLACED, 1L, OrderStatus.CANCELLED, 1L, OrderStatus.FULFILLED, 1L),
+                metrics.getOrdersByStatus());
+
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        ObjectName name = new ObjectName("uk.ac.ncl.csc8404.pcretailer:type=OrderService");
+        server.registerMBean(service.mxBean(), name);
+        CompositeData place = (CompositeData) server.getAttribute(name, "PlaceOrder");
+        assertEquals(3L, place.get("successes"));
+        assertNotNull(server.getAttribute(name, "OrdersByStatus"));
+
+        OrderService quiet = new OrderService(OrderServiceConfig.defaults().withMetrics(false));
+        quiet.placeOrder(customer, card, List.of(OrderLine.of(preset, 1)));
+        assertFalse(quiet.metrics().isEnabled());
+        assertEquals(0, quiet.metrics().getOperation(OrderOperation.PLACE_ORDER).getSuccesses());
+        assertEquals(1L, quiet.metrics().getOrdersByStatus().get(OrderStatus.PLACED));
+    }
+
+    @Test
+    void analyticsFailuresAreCounted() {
+        service.analytics(AnalyticsWindow.LAST_HOUR);
+        assertThrows(NullPointerException.class, () -> service.analytics(null));
+        now = null;
+        assertThrows(NullPointerException.class, () -> service.analytics(AnalyticsWindow.LAST_DAY));
+
+        OperationStats analytics = service.metrics().getOperation(OrderOperation.ANALYTICS);
+        assertEquals(1, analytics.getSuccesses());
+        assertEquals(2, analytics.getFailures());
+        assertEquals(Map.of(NullPointerException.class.getName(), 2L), analytics.getFailuresByType());
+    }
+
+    @Test
+    void latencyHistogramStaysWithinItsPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.total());
+        assertEquals(50_000_000, snapshot.valueAt(0.5), 50_000_000 * 0.04);
+        assertEquals(99_000_000, snapshot.valueAt(0.99), 99_000_000 * 0.04);
+        assertEquals(99_900_000, snapshot.valueAt(0.999), 99_900_000 * 0.04);
+        assertEquals(100_000_000, snapshot.valueAt(1));
+        for (long value : new long[]{0, 63, 64, 1_000_003, Long.MAX_VALUE}) {
+            long top = LatencyHistogram.highestIn(LatencyHistogram.bucketOf(value));
+            assertTrue(top >= value && top - value <= value / 32, "bucket of " + value);
+        }
+    }
+
+    @Test
+    void lifecycleEmitsFlightRecorderEvents() throws Exception {
+        Customer customer = Customer.of("C-7", "naseema");
+        CreditCard card = cardFactory.register("11223344", buildDate(2030, Calendar.JANUARY, 1), "naseema");
+        PresetModel preset = PresetModel.of("ACME", "Starter", List.of("CPU"));
+        Path file = Files.createTempFile("orders", ".jfr");
+        CustomerOrder placed;
+        try (Recording recording = new Recording()) {
+            recording.enable("uk.ac.ncl.csc8404.pcretailer.OrderPlaced");
+            recording.enable("uk.ac.ncl.csc8404.pcretailer.OrderFulfilled");
+            recording.enable("uk.ac.ncl.csc8404.pcretailer.AnalyticsComputed");
+            recording.start();
+            placed = service.placeOrder(customer, card, List.of(OrderLine.of(preset, 2), OrderLine.of(preset, 3)));
+            service.fulfillOrder(placed.getId());
+            service.analytics(AnalyticsWindow.LAST_DAY);
+            recording.stop();
+            recording.dump(file);
+        }
+        try {
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            RecordedEvent fulfilled = events.stream()
+                    .filter(event -> event.getEventType().getName().endsWith("OrderFulfilled")).findFirst().orElseThrow();
+            assertEquals(placed.getId().toString(), fulfilled.getString("orderId"));
+            assertEquals("C-7", fulfilled.getString("customerId"));
+            assertEquals(2, fulfilled.getInt("lineCount"));
+            assertEquals(5, fulfilled.getInt("totalQuantity"));
+            assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().endsWith("OrderPlaced")));
+            assertEquals("LAST_DAY", events.stream()
+                    .filter(event -> event.getEventType().getName().endsWith("AnalyticsComputed"))
+                    .findFirst().orElseThrow().getString("window"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private OrderStatus fulfilAndGet(CustomerOrder order) {
+        service.fulfillOrder(order.getId());
+        return order.getStatus();
+    }
+
     private Date buildDate(int year, int month, int dayOfMonth) {
         Calendar calendar = Calendar.getInstance();
         calendar.clear();
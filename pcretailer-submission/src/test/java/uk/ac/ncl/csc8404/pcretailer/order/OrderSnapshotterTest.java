@@ -0,0 +1,159 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.model.CustomModel;
+import uk.ac.ncl.csc8404.pcretailer.model.PresetModel;
+import uk.ac.ncl.csc8404.pcretailer.order.journal.JournalConfig;
+import uk.ac.ncl.csc8404.pcretailer.order.journal.OrderJournal;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderSnapshotterTest {
+
+    // snapshot then a few more events, restart should glue both back together
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restartLoadsSnapshotThenReplaysTail() throws IOException {
+        Path journalDir = directory.resolve("journal");
+        SnapshotStore store = new SnapshotStore(directory.resolve("snapshots"));
+        JournalConfig journalConfig = JournalConfig.defaults().withSegmentSize(4096);
+        Customer alice = Customer.of("C-1", "Adill");
+        Customer bob = Customer.of("C-2", "nawaz");
+        PresetModel bolt = PresetModel.of("ACME", "Bolt", List.of("CPU", "RAM"));
+        CustomModel rig = CustomModel.of("Rig", List.of("CPU", "GPU"));
+        List<UUID> ids = new ArrayList<>();
+
+        try (OrderJournal journal = OrderJournal.open(journalDir, journalConfig)) {
+            OrderService service = new OrderService(OrderServiceConfig.defaults().withJournal(journal));
+            CreditCard card = new CreditCardFactory().register("12345670", buildDate(2099, Calendar.JANUARY, 1), "nawaz");
+            for (int i = 0; i < 80; i++) {
+                Customer customer = i % 4 == 0 ? alice : bob;
+                ids.add(service.placeOrder(customer, card, List.of(OrderLine.of(bolt, 2), OrderLine.of(rig, 1))).getId());
+            }
+            service.fulfillOrders(ids.subList(0, 40));
+            service.cancelOrder(ids.get(40));
+
+            long covered = new OrderSnapshotter(journal, store, true).snapshot();
+            assertEquals(journal.lastSequence(), covered);
+            assertEquals(covered, store.latestSequence().orElseThrow());
+
+            service.fulfillOrder(ids.get(41));
+            service.cancelOrder(ids.get(42));
+        }
+        try (var files = Files.list(journalDir)) {
+            assertEquals(1, files.count(), "segments covered by the snapshot should be pruned");
+        }
+
+        try (OrderJournal journal = OrderJournal.open(journalDir, journalConfig)) {
+            OrderService restored = new OrderService(OrderServiceConfig.defaults()
+                    .withJournal(journal)
+                    .withSnapshots(store));
+            RecoveryStats stats = restored.recoveryStats();
+            assertEquals(80, stats.ordersRestored());
+            assertEquals(2, stats.eventsReplayed());
+            assertEquals(journal.lastSequence() - 2, stats.snapshotSequence());
+
+            assertEquals(OrderStatus.FULFILLED, restored.findOrder(ids.get(0)).orElseThrow().getStatus());
+            assertEquals(OrderStatus.CANCELLED, restored.findOrder(ids.get(40)).orElseThrow().getStatus());
+            assertEquals(OrderStatus.FULFILLED, restored.findOrder(ids.get(41)).orElseThrow().getStatus());
+            assertEquals(OrderStatus.CANCELLED, restored.findOrder(ids.get(42)).orElseThrow().getStatus());
+            assertEquals(OrderStatus.PLACED, restored.findOrder(ids.get(79)).orElseThrow().getStatus());
+            assertEquals(List.of(OrderLine.of(bolt, 2), OrderLine.of(rig, 1)),
+                    restored.findOrder(ids.get(79)).orElseThrow().getOrderLines());
+            assertEquals(List.of(new Ranked<>(bob, 31), new Ranked<>(alice, 10)), restored.topCustomers(2));
+            assertEquals(List.of(new Ranked<>("Bolt", 82)), restored.topPresetModels("ACME", 5));
+            assertEquals(41, restored.topCustomParts(1).get(0).count());
+        }
+    }
+
+    @Test
+    void pruningKeepsWhatTheOlderSnapshotNeeds() throws IOException {
+        Path journalDir = directory.resolve("journal");
+        Path snapshotDir = directory.resolve("snapshots");
+        SnapshotStore store = new SnapshotStore(snapshotDir);
+        JournalConfig journalConfig = JournalConfig.defaults().withSegmentSize(4096);
+        Customer alice = Customer.of("C-1", "Adill");
+        PresetModel bolt = PresetModel.of("ACME", "Bolt", List.of("CPU", "RAM"));
+        List<UUID> ids = new ArrayList<>();
+        long older;
+
+        try (OrderJournal journal = OrderJournal.open(journalDir, journalConfig)) {
+            OrderService service = new OrderService(OrderServiceConfig.defaults().withJournal(journal));
+            CreditCard card = new CreditCardFactory().register("12345670", buildDate(2099, Calendar.JANUARY, 1), "Adill");
+            OrderSnapshotter snapshotter = new OrderSnapshotter(journal, store, true);
+            for (int i = 0; i < 60; i++) {
+                ids.add(service.placeOrder(alice, card, List.of(OrderLine.of(bolt, 1))).getId());
+            }
+            older = snapshotter.snapshot();
+            for (int i = 0; i < 60; i++) {
+                ids.add(service.placeOrder(alice, card, List.of(OrderLine.of(bolt, 1))).getId());
+            }
+            service.fulfillOrders(ids.subList(0, 90));
+            snapshotter.snapshot();
+            service.cancelOrder(ids.get(119));
+        }
+        try (var files = Files.list(snapshotDir)) {
+            Path newest = files.max(Path::compareTo).orElseThrow();
+            byte[] bytes = Files.readAllBytes(newest);
+            bytes[bytes.length / 2] ^= 1;
+            Files.write(newest, bytes);
+        }
+
+        try (OrderJournal journal = OrderJournal.open(journalDir, journalConfig)) {
+            OrderService restored = new OrderService(OrderServiceConfig.defaults()
+                    .withJournal(journal)
+                    .withSnapshots(store));
+            assertEquals(older, restored.recoveryStats().snapshotSequence(), "fell back to the older snapshot");
+            assertEquals(60, restored.recoveryStats().ordersRestored());
+            assertEquals(60 + 90 + 1, restored.recoveryStats().eventsReplayed());
+            assertEquals(OrderStatus.FULFILLED, restored.findOrder(ids.get(89)).orElseThrow().getStatus());
+            assertEquals(OrderStatus.PLACED, restored.findOrder(ids.get(90)).orElseThrow().getStatus());
+            assertEquals(OrderStatus.CANCELLED, restored.findOrder(ids.get(119)).orElseThrow().getStatus());
+        }
+    }
+
+    @Test
+    void aDamagedSnapshotRestoresNoCards() throws IOException {
+        Path snapshotDir = directory.resolve("snapshots");
+        try (OrderJournal journal = OrderJournal.open(directory.resolve("journal"), JournalConfig.defaults())) {
+            OrderService service = new OrderService(OrderServiceConfig.defaults().withJournal(journal));
+            CreditCard card = new CreditCardFactory().register("12345670", buildDate(2099, Calendar.JANUARY, 1), "Adill");
+            service.placeOrder(Customer.of("C-1", "Adill"), card,
+                    List.of(OrderLine.of(PresetModel.of("ACME", "Bolt", List.of("CPU", "RAM")), 1)));
+            new OrderSnapshotter(journal, new SnapshotStore(snapshotDir)).snapshot();
+        }
+        try (var files = Files.list(snapshotDir)) {
+            Path only = files.findFirst().orElseThrow();
+            byte[] bytes = Files.readAllBytes(only);
+            bytes[bytes.length - 1] ^= 1;
+            Files.write(only, bytes);
+        }
+
+        CreditCardFactory cards = new CreditCardFactory();
+        assertThrows(IOException.class, () -> new SnapshotStore(snapshotDir, cards).readLatest());
+        assertFalse(cards.isAllocated("12345670"));
+    }
+
+    private static Date buildDate(int year, int month, int dayOfMonth) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, dayOfMonth, 0, 0, 0);
+        return calendar.getTime();
+    }
+}
@@ -0,0 +1,56 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartCountsTest {
+
+    // a LinkedHashMap is the spec, ids spread from small to huge so the table has to grow and probe
+
+    @Test
+    void countsLikeAMapInFirstSeenOrder() {
+        Random random = new Random(7);
+        PartCounts counts = new PartCounts();
+        PartCounts other = new PartCounts();
+        Map<Integer, Integer> expected = new LinkedHashMap<>();
+        Map<Integer, Integer> expectedOther = new LinkedHashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            int partId = random.nextBoolean() ? random.nextInt(300) : random.nextInt(Integer.MAX_VALUE);
+            int quantity = 1 + random.nextInt(4);
+            boolean toOther = i % 3 == 0;
+            (toOther ? other : counts).add(partId, quantity);
+            (toOther ? expectedOther : expected).merge(partId, quantity, Integer::sum);
+        }
+        expectedOther.forEach((partId, count) -> expected.merge(partId, count, Integer::sum));
+
+        counts.addAll(other);
+        List<Integer> order = new ArrayList<>();
+        counts.forEach((partId, count) -> {
+            order.add(partId);
+            assertEquals(expected.get(partId), count);
+        });
+        assertEquals(new ArrayList<>(expected.keySet()), order);
+        assertEquals(expected.size(), counts.size());
+        expected.forEach((partId, count) -> assertEquals(count, counts.get(partId)));
+        assertEquals(0, counts.get(-1));
+    }
+
+    @Test
+    void aFewPartsStaySmallWhateverTheirIds() {
+        PartCounts counts = new PartCounts();
+        counts.add(Integer.MAX_VALUE - 1, 2);
+        counts.add(3, 1);
+        counts.add(Integer.MAX_VALUE - 1, 5);
+        assertEquals(2, counts.size());
+        assertEquals(7, counts.get(Integer.MAX_VALUE - 1));
+        assertEquals(1, counts.get(3));
+        assertEquals(0, counts.get(4));
+    }
+}
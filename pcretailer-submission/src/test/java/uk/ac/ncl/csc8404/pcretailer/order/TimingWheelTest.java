@@ -0,0 +1,57 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    // compare against the obvious list scan with deadlines from seconds to decades away
+
+    @Test
+    void firesExactlyWhatIsDueWhateverTheJumps() {
+        Random random = new Random(7);
+        long start = 1_700_000_000_000L;
+        TimingWheel<Long> wheel = new TimingWheel<>(1_000, start);
+        List<Long> pending = new ArrayList<>();
+        long now = start;
+        for (int round = 0; round < 2_000; round++) {
+            for (int i = random.nextInt(5); i > 0; i--) {
+                long deadline = now + (long) Math.pow(10, random.nextInt(12)) * random.nextInt(10) - 500;
+                wheel.schedule(deadline, deadline);
+                pending.add(deadline);
+            }
+            now += (long) Math.pow(10, random.nextInt(11)) * random.nextInt(3);
+            List<Long> fired = new ArrayList<>();
+            wheel.advance(now, fired::add);
+            long tickStart = Math.floorDiv(now, 1_000) * 1_000;
+            for (long deadline : fired) {
+                assertTrue(deadline <= now, "never early");
+                assertTrue(pending.remove(deadline));
+            }
+            for (long deadline : pending) {
+                assertTrue(deadline > tickStart, "at most one tick late");
+            }
+            assertEquals(pending.size(), wheel.size());
+        }
+    }
+
+    @Test
+    void pastDeadlinesFireOnTheNextAdvanceAndTheClockNeverGoesBack() {
+        TimingWheel<String> wheel = new TimingWheel<>(1_000, 10_000);
+        wheel.schedule(5_000, "late");
+        wheel.schedule(12_500, "soon");
+        List<String> fired = new ArrayList<>();
+        wheel.advance(9_000, fired::add);
+        assertEquals(List.of("late"), fired);
+        wheel.advance(12_999, fired::add);
+        assertEquals(List.of("late"), fired, "12.5s rounds up to the 13s tick");
+        wheel.advance(13_000, fired::add);
+        assertEquals(List.of("late", "soon"), fired);
+        assertEquals(0, wheel.size());
+    }
+}
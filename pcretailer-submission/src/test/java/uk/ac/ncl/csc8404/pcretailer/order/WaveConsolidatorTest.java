@@ -0,0 +1,129 @@
+package uk.ac.ncl.csc8404.pcretailer.order;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.model.CustomModel;
+import uk.ac.ncl.csc8404.pcretailer.model.PresetModel;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaveConsolidatorTest {
+
+    // the wave should come out the same as fulfilling everything in one go
+
+    private final Date now = buildDate(2025, Calendar.JANUARY, 1);
+    private final Customer customer = Customer.of("C-1", "Adill");
+    private final CreditCard card = new CreditCardFactory().register("12345670", buildDate(2099, Calendar.JANUARY, 1), "Adill");
+    private final PresetModel bolt = PresetModel.of("ACME", "Bolt", List.of("CPU", "RAM"));
+    private final PresetModel nut = PresetModel.of("Zeta", "Nut", List.of("SSD"));
+    private final CustomModel rig = CustomModel.of("Rig", List.of("GPU", "PSU"));
+    private final WaveConsolidator wave = new WaveConsolidator();
+
+    @Test
+    void concurrentAddsMatchBulkFulfilment() throws Exception {
+        FulfillmentPlan expected = fillWaveAndFulfilInBulk(400);
+
+        assertEquals(400, wave.planCount());
+        assertEquals(expected.getPresetModelCounts().get("ACME").get("Bolt"), (int) wave.presetTotal("ACME", "Bolt"));
+        assertEquals(expected.getCustomPartCounts().get("GPU"), (int) wave.partTotal("GPU"));
+        assertEquals(0, wave.presetTotal("ACME", "Nut"));
+        assertEquals(expected.getPresetModelCounts(), wave.pickList().getPresetModelCounts());
+        assertEquals(expected.getCustomPartCounts(), wave.pickList().getCustomPartCounts());
+    }
+
+    @Test
+    void closingHandsBackTheWholeWaveInNameOrder() throws Exception {
+        FulfillmentPlan expected = fillWaveAndFulfilInBulk(90);
+
+        FulfillmentPlan closed = wave.closeWave();
+        assertEquals(expected.getPresetModelCounts(), closed.getPresetModelCounts());
+        assertEquals(expected.getCustomPartCounts(), closed.getCustomPartCounts());
+        assertEquals(List.of("ACME", "Zeta"), new ArrayList<>(closed.getPresetModelCounts().keySet()));
+    }
+
+    @Test
+    void aClosedWaveRestartsEmpty() throws Exception {
+        fillWaveAndFulfilInBulk(30);
+        wave.closeWave();
+
+        assertEquals(0, wave.planCount());
+        assertEquals(0, wave.presetTotal("ACME", "Bolt"));
+        assertTrue(wave.pickList().getPresetModelCounts().isEmpty());
+        assertTrue(wave.closeWave().getCustomPartCounts().isEmpty());
+    }
+
+    @Test
+    void aPlanThatWouldOverflowIsRefusedWhole() {
+        wave.add(FulfillmentPlan.of(Map.of("ACME", Map.of("Bolt", 5)), Map.of("GPU", Integer.MAX_VALUE - 1)));
+        // the preset fits, the part does not, so the preset has to be taken back
+        FulfillmentPlan tooMuch = FulfillmentPlan.of(Map.of("ACME", Map.of("Bolt", 2)), Map.of("GPU", 2));
+        assertThrows(IllegalStateException.class, () -> wave.add(tooMuch));
+        assertEquals(1, wave.planCount());
+        assertEquals(5, wave.presetTotal("ACME", "Bolt"));
+
+        wave.add(FulfillmentPlan.of(Map.of(), Map.of("GPU", 1)));
+        FulfillmentPlan closed = wave.closeWave();
+        assertEquals(Map.of("Bolt", 5), closed.getPresetModelCounts().get("ACME"));
+        assertEquals(Map.of("GPU", Integer.MAX_VALUE), closed.getCustomPartCounts());
+        wave.add(tooMuch);
+        assertEquals(2, wave.partTotal("GPU"));
+    }
+
+    // same orders on two services: one fulfilled order by order into the wave on four threads, one in bulk
+    private FulfillmentPlan fillWaveAndFulfilInBulk(int count) throws Exception {
+        OrderService perOrder = new OrderService(() -> new Date(now.getTime()));
+        OrderService bulk = new OrderService(() -> new Date(now.getTime()));
+        List<UUID> perOrderIds = place(perOrder, count);
+        List<UUID> bulkIds = place(bulk, count);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int first = t;
+                tasks.add(pool.submit(() -> {
+                    for (int i = first; i < perOrderIds.size(); i += 4) {
+                        wave.add(perOrder.fulfillOrder(perOrderIds.get(i)));
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return bulk.fulfillOrders(bulkIds).getPlan();
+    }
+
+    private List<UUID> place(OrderService service, int count) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            List<OrderLine> lines = switch (i % 3) {
+                case 0 -> List.of(OrderLine.of(bolt, 1 + i % 4));
+                case 1 -> List.of(OrderLine.of(nut, 2), OrderLine.of(rig, 1));
+                default -> List.of(OrderLine.of(bolt, 1), OrderLine.of(rig, 3));
+            };
+            ids.add(service.placeOrder(customer, card, lines).getId());
+        }
+        return ids;
+    }
+
+    private static Date buildDate(int year, int month, int dayOfMonth) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, dayOfMonth, 0, 0, 0);
+        return calendar.getTime();
+    }
+}
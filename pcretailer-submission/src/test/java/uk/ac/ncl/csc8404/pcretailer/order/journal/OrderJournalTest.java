@@ -0,0 +1,211 @@
+package uk.ac.ncl.csc8404.pcretailer.order.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ncl.csc8404.pcretailer.customer.Customer;
+import uk.ac.ncl.csc8404.pcretailer.model.CustomModel;
+import uk.ac.ncl.csc8404.pcretailer.model.PresetModel;
+import uk.ac.ncl.csc8404.pcretailer.order.CustomerOrder;
+import uk.ac.ncl.csc8404.pcretailer.order.ExpiredCardAction;
+import uk.ac.ncl.csc8404.pcretailer.order.OrderLine;
+import uk.ac.ncl.csc8404.pcretailer.order.OrderQuery;
+import uk.ac.ncl.csc8404.pcretailer.order.OrderService;
+import uk.ac.ncl.csc8404.pcretailer.order.OrderServiceConfig;
+import uk.ac.ncl.csc8404.pcretailer.order.OrderStatus;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCard;
+import uk.ac.ncl.csc8404.pcretailer.payment.CreditCardFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderJournalTest {
+
+    // write stuff, pretend to crash, see if it all comes back
+
+    @TempDir
+    Path directory;
+
+    private final Date now = buildDate(2025, Calendar.JANUARY, 1);
+    private final Customer alice = Customer.of("C-1", "Adill");
+    private final Customer bob = Customer.of("C-2", "nawaz");
+    private final PresetModel bolt = PresetModel.of("ACME", "Bolt", List.of("CPU", "RAM"));
+    private final CustomModel rig = CustomModel.of("Rig", List.of("CPU", "GPU"));
+
+    @Test
+    void restartReplaysOrdersAndAnalytics() throws IOException {
+        JournalConfig config = JournalConfig.defaults().withSegmentSize(4096);
+        List<UUID> ids = new ArrayList<>();
+        try (OrderJournal journal = OrderJournal.open(directory, config)) {
+            OrderService service = newService(journal);
+            CreditCard card = new CreditCardFactory().register("12345670", buildDate(2030, Calendar.JANUARY, 1), "nawaz");
+            for (int i = 0; i < 60; i++) {
+                Customer customer = i % 3 == 0 ? alice : bob;
+                ids.add(service.placeOrder(customer, card, List.of(OrderLine.of(bolt, 1), OrderLine.of(rig, 2))).getId());
+            }
+            service.cancelOrder(ids.get(0));
+            service.fulfillOrder(ids.get(1));
+            service.fulfillOrders(ids.subList(2, 30));
+        }
+        assertTrue(countSegments() > 1, "small segments should have rolled over");
+
+        CreditCardFactory cards = new CreditCardFactory();
+        try (OrderJournal journal = OrderJournal.open(directory, config.withCardFactory(cards))) {
+            OrderService restored = newService(journal);
+            assertEquals(OrderStatus.CANCELLED, restored.findOrder(ids.get(0)).orElseThrow().getStatus());
+            assertEquals(OrderStatus.FULFILLED, restored.findOrder(ids.get(1)).orElseThrow().getStatus());
+            assertEquals(OrderStatus.PLACED, restored.findOrder(ids.get(59)).orElseThrow().getStatus());
+            CustomerOrder order = restored.findOrder(ids.get(5)).orElseThrow();
+            assertEquals(List.of(OrderLine.of(bolt, 1), OrderLine.of(rig, 2)), order.getOrderLines());
+            assertEquals(now, order.getPlacedAt());
+            assertEquals(bob, restored.analytics().largestCustomer().orElseThrow());
+            assertEquals(29, restored.topPresetModels(1).get(0).count());
+            assertThrows(IllegalStateException.class,
+                    () -> cards.register("12345670", buildDate(2030, Calendar.JANUARY, 1), "nawaz"));
+
+            restored.fulfillOrder(ids.get(59));
+        }
+        try (OrderJournal journal = OrderJournal.open(directory, config)) {
+            assertEquals(OrderStatus.FULFILLED, newService(journal).findOrder(ids.get(59)).orElseThrow().getStatus());
+        }
+    }
+
+    @Test
+    void syncedModeAcknowledgesAfterForce() throws IOException {
+        JournalConfig config = JournalConfig.defaults()
+                .withDurability(JournalConfig.Durability.SYNCED)
+                .withSyncInterval(Duration.ofMillis(2));
+        try (OrderJournal journal = OrderJournal.open(directory, config)) {
+            long first = journal.append(new OrderEvent.Cancelled(UUID.randomUUID())).join();
+            long second = journal.append(new OrderEvent.Fulfilled(UUID.randomUUID())).join();
+            assertEquals(first + 1, second);
+            assertEquals(second, journal.lastSequence());
+        }
+    }
+
+    @Test
+    void tornTailIsIgnoredOnRecovery() throws IOException {
+        UUID kept = UUID.randomUUID();
+        try (OrderJournal journal = OrderJournal.open(directory, JournalConfig.defaults().withSegmentSize(4096))) {
+            journal.write(new OrderEvent.Cancelled(kept));
+            journal.write(new OrderEvent.Cancelled(UUID.randomUUID()));
+        }
+        Path segment;
+        try (var files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(segment);
+        // flip a payload byte of the second record so its checksum no longer matches
+        int secondRecord = 16 + bytes[3];
+        bytes[secondRecord + 20] ^= 0x7f;
+        Files.write(segment, bytes);
+
+        try (OrderJournal journal = OrderJournal.open(directory, JournalConfig.defaults().withSegmentSize(4096))) {
+            List<OrderEvent> events = new ArrayList<>();
+            assertEquals(1, journal.replay(events::add));
+            assertEquals(List.of(new OrderEvent.Cancelled(kept)), events);
+            journal.write(new OrderEvent.Fulfilled(kept));
+            journal.flush();
+            assertEquals(2, journal.lastSequence());
+        }
+    }
+
+    @Test
+    void aFailedWriteFailsEverythingAfterIt() throws IOException {
+        try (OrderJournal journal = OrderJournal.open(directory, JournalConfig.defaults().withSegmentSize(4096))) {
+            journal.write(new OrderEvent.Cancelled(UUID.randomUUID()));
+            journal.flush();
+            // the next segment cannot be created once the directory is gone
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+            List<CompletableFuture<Long>> futures = new ArrayList<>();
+            try {
+                for (int i = 0; i < 300; i++) {
+                    futures.add(journal.append(new OrderEvent.Cancelled(UUID.randomUUID())));
+                }
+            } catch (IllegalStateException e) {
+                // the writer already failed and refuses the rest
+            }
+            assertThrows(CompletionException.class, () -> futures.get(futures.size() - 1).join());
+            int firstFailed = 0;
+            while (!futures.get(firstFailed).isCompletedExceptionally()) {
+                firstFailed++;
+            }
+            for (CompletableFuture<Long> future : futures.subList(firstFailed, futures.size())) {
+                assertTrue(future.isCompletedExceptionally(), "nothing is written after a failure");
+            }
+            assertThrows(IllegalStateException.class, () -> journal.write(new OrderEvent.Cancelled(UUID.randomUUID())));
+            assertThrows(IllegalStateException.class, journal::flush);
+        }
+    }
+
+    @Test
+    void transitionsTheJournalRefusesAreUndone() throws IOException {
+        OrderJournal journal = OrderJournal.open(directory, JournalConfig.defaults());
+        OrderService service = newService(journal);
+        CreditCard card = new CreditCardFactory().register("12345670", buildDate(2030, Calendar.JANUARY, 1), "nawaz");
+        UUID first = service.placeOrder(alice, card, List.of(OrderLine.of(bolt, 1))).getId();
+        UUID second = service.placeOrder(bob, card, List.of(OrderLine.of(bolt, 1))).getId();
+        journal.close();
+
+        assertThrows(IllegalStateException.class, () -> service.cancelOrder(first));
+        assertThrows(IllegalStateException.class, () -> service.fulfillOrder(first));
+        assertEquals(0, service.fulfillOrders(List.of(first, second)).fulfilledCount());
+        for (UUID id : List.of(first, second)) {
+            assertEquals(OrderStatus.PLACED, service.findOrder(id).orElseThrow().getStatus());
+        }
+        assertEquals(2, service.findOrders(OrderQuery.all().withStatus(OrderStatus.PLACED)).count());
+        assertTrue(service.topCustomers(5).isEmpty(), "nothing counts as fulfilled");
+    }
+
+    @Test
+    void expiredCardSweepsRetryWhatTheJournalRefused() throws IOException {
+        OrderJournal journal = OrderJournal.open(directory, JournalConfig.defaults());
+        OrderService service = newService(journal);
+        CreditCard card = new CreditCardFactory().register("12345670", buildDate(2025, Calendar.FEBRUARY, 1), "nawaz");
+        UUID first = service.placeOrder(alice, card, List.of(OrderLine.of(bolt, 1))).getId();
+        UUID second = service.placeOrder(bob, card, List.of(OrderLine.of(bolt, 1))).getId();
+        journal.close();
+        now.setTime(buildDate(2025, Calendar.MARCH, 1).getTime());
+
+        assertThrows(IllegalStateException.class, () -> service.sweepExpiredCards(ExpiredCardAction.CANCEL));
+        assertEquals(OrderStatus.PLACED, service.findOrder(first).orElseThrow().getStatus());
+        List<UUID> flagged = new ArrayList<>();
+        service.sweepExpiredCards(ExpiredCardAction.FLAG).forEach(order -> flagged.add(order.getId()));
+        assertEquals(Set.of(first, second), Set.copyOf(flagged));
+    }
+
+    private OrderService newService(OrderJournal journal) {
+        return new OrderService(OrderServiceConfig.defaults()
+                .withClock(() -> new Date(now.getTime()))
+                .withJournal(journal));
+    }
+
+    private long countSegments() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static Date buildDate(int year, int month, int dayOfMonth) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, dayOfMonth, 0, 0, 0);
+        return calendar.getTime();
+    }
+}
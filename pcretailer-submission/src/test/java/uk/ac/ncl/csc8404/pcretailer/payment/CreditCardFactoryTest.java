@@ -2,8 +2,15 @@ package uk.ac.ncl.csc8404.pcretailer.payment;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -29,6 +36,90 @@ class CreditCardFactoryTest {
         assertFalse(card.isValid(futureDate(2025, Calendar.JANUARY, 1)));
     }
 
+    @Test
+    void parsesExactlyEightDigits() {
+        assertEquals(12_345_678, CardNumberBitmap.parse("12345678"));
+        assertEquals(0, CardNumberBitmap.parse("00000000"));
+        assertEquals(99_999_999, CardNumberBitmap.parse("99999999"));
+        for (String bad : new String[]{"", "1234567", "123456789", "1234567a", "-1234567", "1234 678", "١٢٣٤٥٦٧٨"}) {
+            assertEquals(-1, CardNumberBitmap.parse(bad), bad);
+            assertThrows(IllegalArgumentException.class,
+                    () -> factory.register(bad, futureDate(2030, Calendar.JANUARY, 1), "jai"));
+        }
+        assertEquals("00000042", factory.register(" 00000042 ", futureDate(2030, Calendar.JANUARY, 1), "jai").getNumber());
+        assertTrue(factory.isAllocated("00000042"));
+    }
+
+    @Test
+    void releasedNumbersCanBeRegisteredAgain() {
+        CreditCard card = factory.register("99999999", futureDate(2030, Calendar.JANUARY, 1), "jai");
+        assertTrue(factory.isAllocated("99999999"));
+        assertFalse(factory.isAllocated("99999998"));
+        factory.release(card);
+        assertFalse(factory.isAllocated("99999999"));
+        factory.register("99999999", futureDate(2031, Calendar.JANUARY, 1), "naseema");
+        factory.restore("99999999", futureDate(2031, Calendar.JANUARY, 1), "naseema");
+        assertTrue(factory.isAllocated("99999999"));
+    }
+
+    @Test
+    void registerAllIsAllOrNothing() {
+        Date expiry = futureDate(2030, Calendar.JANUARY, 1);
+        List<CardRegistration> batch = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            batch.add(CardRegistration.of(String.format("%08d", 10_000_000 + i * 7), expiry, "holder " + i));
+        }
+        List<CreditCard> cards = factory.registerAll(batch);
+        assertEquals(5_000, cards.size());
+        assertEquals("10000007", cards.get(1).getNumber());
+        assertEquals("holder 4999", cards.get(4_999).getHolderName());
+        assertEquals(5_000, factory.allocatedCount());
+
+        List<CardRegistration> clashing = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            clashing.add(CardRegistration.of(String.format("%08d", 20_000_000 + i), expiry, "holder " + i));
+        }
+        clashing.add(CardRegistration.of("10000014", expiry, "late"));
+        assertThrows(IllegalStateException.class, () -> factory.registerAll(clashing));
+        assertFalse(factory.isAllocated("20000000"), "claims made for a failed batch are released");
+
+        List<CardRegistration> invalid = List.of(CardRegistration.of("30000000", expiry, "ok"),
+                CardRegistration.of("3000000x", expiry, "bad"));
+        assertThrows(IllegalArgumentException.class, () -> factory.registerAll(invalid));
+        assertThrows(IllegalStateException.class, () -> factory.registerAll(List.of(
+                CardRegistration.of("40000000", expiry, "twice"), CardRegistration.of("40000000", expiry, "twice"))));
+        assertEquals(5_000, factory.allocatedCount());
+    }
+
+    @Test
+    void racingRegistrationsGetEachNumberOnce() throws Exception {
+        Date expiry = futureDate(2030, Calendar.JANUARY, 1);
+        Set<String> won = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        String number = String.format("%08d", 50_000_000 + i);
+                        try {
+                            assertTrue(won.add(factory.register(number, expiry, "racer").getNumber()));
+                        } catch (IllegalStateException alreadyTaken) {
+                            // another thread got there first
+                        }
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(20_000, won.size());
+        assertEquals(20_000, factory.allocatedCount());
+    }
+
     private Date futureDate(int year, int month, int dayOfMonth) {
         Calendar calendar = Calendar.getInstance();
         calendar.clear();